@@ -2474,6 +2474,52 @@ public class BasicGroovyBuildTests extends GroovierBuilderTests {
 		}
 	}
 
+	public void testLargeProjects_DependentUnitsInOneGroup() throws Exception {
+		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		fullBuild(projectPath);
+
+		env.removePackageFragmentRoot(projectPath, ""); //$NON-NLS-1$
+
+		IPath root = env.addPackageFragmentRoot(projectPath, "src"); //$NON-NLS-1$
+		env.setOutputFolder(projectPath, "bin"); //$NON-NLS-1$
+
+		int max = AbstractImageBuilder.MAX_AT_ONCE;
+		boolean chunk = AbstractImageBuilder.CHUNK_UNITS;
+		try {
+			AbstractImageBuilder.MAX_AT_ONCE = 3;
+			AbstractImageBuilder.CHUNK_UNITS = true;
+
+			for (int i = 1; i < 5; i++) {
+				env.addClass(root, "p1", "Hello" + i, "package p1;\n"
+						+ "class Hello" + i + " {\n" + "}\n");
+			}
+
+			// groovy -> java -> groovy, so the three have to be compiled in the same group
+			env.addGroovyClass(root, "p1", "Base", "package p1;\n"
+					+ "class Base {\n" + "  Helper helper = new Helper()\n" + "}\n");
+			env.addClass(root, "p1", "Helper", "package p1;\n"
+					+ "public class Helper {\n" + "  public Other other = new Other();\n" + "}\n");
+			env.addGroovyClass(root, "p1", "Other", "package p1;\n"
+					+ "class Other {\n" + "  String name = 'other'\n" + "}\n");
+			env.addGroovyClass(root, "p1", "Sub", "package p1;\n"
+					+ "class Sub extends Base {\n" + "}\n");
+			env.addClass(root, "p1", "Uses", "package p1;\n"
+					+ "public class Uses {\n" + "  public static void main(String[] argv) {\n"
+					+ "    System.out.print(new Sub().getHelper().other.getName());\n" + "  }\n" + "}\n");
+
+			fullBuild(projectPath);
+			expectingNoProblems();
+			expectingCompiledClassesV("p1.Hello1", "p1.Hello2", "p1.Hello3", "p1.Hello4", "p1.Base", "p1.Helper",
+					"p1.Other", "p1.Sub", "p1.Uses");
+			executeClass(projectPath, "p1.Uses", "other", "");
+		} finally {
+			AbstractImageBuilder.MAX_AT_ONCE = max;
+			AbstractImageBuilder.CHUNK_UNITS = chunk;
+		}
+	}
+
 	public void testIncrementalCompilationTheBasics() throws Exception {
 		IPath projectPath = env.addProject("Project"); //$NON-NLS-1$
 		env.addExternalJars(projectPath, Util.getJavaClassLibs());
@@ -3400,6 +3446,46 @@ public class BasicGroovyBuildTests extends GroovierBuilderTests {
 		assertEquals("Wrong classnode found", "java.net.URL", url.getName());
 	}
 
+	public void testBinaryMembersCreatedByName() throws Exception {
+		IPath projectPath = env.addProject("Project");
+		env.addExternalJars(projectPath, Util.getJavaClassLibs());
+		env.addGroovyJars(projectPath);
+		env.addGroovyNature("Project");
+
+		// remove old package fragment root so that names don't collide
+		env.removePackageFragmentRoot(projectPath, "");
+
+		env.addPackageFragmentRoot(projectPath, "src");
+		env.setOutputFolder(projectPath, "bin");
+
+		env.addGroovyClass(projectPath.append("src"), "p", "Groov",
+				"package p\nclass Groov {\njava.util.regex.Matcher matcher\n}\n");
+		GroovyCompilationUnit unit = (GroovyCompilationUnit) env
+				.getJavaProject("Project").findType("p.Groov")
+				.getCompilationUnit();
+		unit.becomeWorkingCopy(null);
+		try {
+			ClassNode matcher = unit.getModuleNode().getClasses().get(0).getField("matcher").getType().redirect();
+			assertTrue("Should be a JDTClassNode", matcher instanceof JDTClassNode);
+
+			List<MethodNode> group = matcher.getDeclaredMethods("group");
+			assertTrue("Should have found the group methods", group.size() > 0);
+			assertFalse("Should only have created the group methods", ((JDTClassNode) matcher).isMembersInitialized());
+			assertEquals("Should have reused the group methods", group, matcher.getDeclaredMethods("group"));
+
+			// all other members are created as they are asked for, keeping the nodes that exist already
+			List<MethodNode> all = matcher.getMethods();
+			assertTrue("Should have created all members", ((JDTClassNode) matcher).isMembersInitialized());
+			assertTrue("Should have more than the group methods", all.size() > group.size());
+			for (MethodNode method : group) {
+				assertTrue("Should have kept " + method.getTypeDescriptor(), all.contains(method));
+			}
+			assertEquals(group, matcher.getDeclaredMethods("group"));
+		} finally {
+			unit.discardWorkingCopy();
+		}
+	}
+
 	// GRECLIPSE-1170
 	public void testFieldInitializerFromOtherFile() throws Exception {
 		IPath projectPath = env.addProject("Project");
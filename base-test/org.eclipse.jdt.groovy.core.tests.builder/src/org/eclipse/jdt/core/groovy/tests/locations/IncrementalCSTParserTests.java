@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2013 SpringSource and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     SpringSource - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.jdt.core.groovy.tests.locations;
+
+import groovy.lang.GroovyClassLoader;
+
+import junit.framework.TestCase;
+
+import org.codehaus.groovy.antlr.IncrementalCSTParser;
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassCodeVisitorSupport;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.Comment;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.ast.stmt.Statement;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.ErrorCollector;
+import org.codehaus.groovy.control.SourceUnit;
+
+/**
+ * Checks that reconciling an edit inside a method, which only parses that method again, gives the same
+ * module as parsing the whole file.
+ */
+public class IncrementalCSTParserTests extends TestCase {
+
+    private static final String CLASS_CONTENTS =
+        "package p\n" +
+        "// one\n" +
+        "class A {\n" +
+        "  /** doc */\n" +
+        "  def foo() {\n" +
+        "    println 'a'\n" +
+        "  }\n" +
+        "\n" +
+        "  // two\n" +
+        "  String bar(int x) {\n" +
+        "    x + 1\n" +
+        "  }\n" +
+        "  def baz = 7\n" +
+        "}\n" +
+        "/* three */\n" +
+        "class B { def qux() {} }\n";
+
+    private static final String SCRIPT_CONTENTS =
+        "def m() {\r\n" +
+        "  1\r\n" +
+        "}\r\n" +
+        "m()\r\n" +
+        "def n() {\r\n" +
+        "  2\r\n" +
+        "}\r\n";
+
+    public void testReparsesEditInsideMethod() throws Exception {
+        reconcile("Edit1", CLASS_CONTENTS);
+        assertNotNull(IncrementalCSTParser.reparse("Edit1", CLASS_CONTENTS.replace("println 'a'", "println 'ab'").toCharArray()));
+    }
+
+    public void testReparsesUnchangedSource() throws Exception {
+        reconcile("Edit2", CLASS_CONTENTS);
+        assertNotNull(IncrementalCSTParser.reparse("Edit2", CLASS_CONTENTS.toCharArray()));
+    }
+
+    public void testParsesEditOutsideMethodInFull() throws Exception {
+        reconcile("Edit3", CLASS_CONTENTS);
+        assertNull(IncrementalCSTParser.reparse("Edit3", CLASS_CONTENTS.replace("baz = 7", "baz = 8").toCharArray()));
+    }
+
+    public void testParsesBrokenEditInFull() throws Exception {
+        reconcile("Edit4", CLASS_CONTENTS);
+        assertNull(IncrementalCSTParser.reparse("Edit4", CLASS_CONTENTS.replace("println 'a'", "println 'a' }").toCharArray()));
+    }
+
+    public void testParsesEditInSingleLineMethodInFull() throws Exception {
+        reconcile("Edit5", CLASS_CONTENTS);
+        assertNull(IncrementalCSTParser.reparse("Edit5", CLASS_CONTENTS.replace("qux() {}", "qux() { 1 }").toCharArray()));
+    }
+
+    public void testParsesEditInGenericMethodInFull() throws Exception {
+        String contents = "class C {\n  public <T> T g(T t) {\n    t\n  }\n}\n";
+        reconcile("Edit6", contents);
+        assertNull(IncrementalCSTParser.reparse("Edit6", contents.replace("    t\n", "    t; t\n").toCharArray()));
+    }
+
+    public void testChangeStatement() throws Exception {
+        assertReconcile(CLASS_CONTENTS, CLASS_CONTENTS.replace("println 'a'", "println 'abc'"));
+    }
+
+    public void testAddLines() throws Exception {
+        assertReconcile(CLASS_CONTENTS, CLASS_CONTENTS.replace("println 'a'", "println 'a'\n    def y = 2 // c\n    y++"));
+    }
+
+    public void testRemoveLine() throws Exception {
+        assertReconcile(CLASS_CONTENTS, CLASS_CONTENTS.replace("    x + 1\n", ""));
+    }
+
+    public void testAddMultiLineComment() throws Exception {
+        assertReconcile(CLASS_CONTENTS, CLASS_CONTENTS.replace("x + 1", "x + 1 /* m\n */ + 2"));
+    }
+
+    public void testSeveralEdits() throws Exception {
+        String second = CLASS_CONTENTS.replace("println 'a'", "println 'a'\n    println 'b'");
+        String third = second.replace("x + 1", "def z = x\n    z + 1");
+        assertReconcile(CLASS_CONTENTS, second, third, third.replace("println 'b'", ""));
+    }
+
+    public void testScriptWithCRLF() throws Exception {
+        assertReconcile(SCRIPT_CONTENTS, SCRIPT_CONTENTS.replace("  1\r\n", "  1\r\n  3\r\n"),
+                SCRIPT_CONTENTS.replace("  2", "  [a:1]"));
+    }
+
+    private void assertReconcile(String... contents) throws Exception {
+        String name = "Reconcile" + getName();
+        for (String content : contents) {
+            SourceUnit reconciled = reconcile(name, content);
+            SourceUnit parsed = parse(name, content, false);
+            assertFalse(reconciled.getErrorCollector().hasErrors());
+            assertEquals(describe(parsed), describe(reconciled));
+        }
+    }
+
+    private SourceUnit reconcile(String name, String content) throws Exception {
+        return parse(name, content, true);
+    }
+
+    private SourceUnit parse(String name, String content, boolean reconcile) throws Exception {
+        SourceUnit sourceUnit = new SourceUnit(name, content, new CompilerConfiguration(), new GroovyClassLoader(), new ErrorCollector(new CompilerConfiguration()));
+        sourceUnit.isReconcile = reconcile;
+        sourceUnit.parse();
+        sourceUnit.completePhase();
+        sourceUnit.convert();
+        return sourceUnit;
+    }
+
+    /**
+     * @return the kind and position of the classes, members and statements of the module, and of its comments
+     */
+    private String describe(final SourceUnit sourceUnit) {
+        final StringBuilder sb = new StringBuilder();
+        ModuleNode module = sourceUnit.getAST();
+        ClassCodeVisitorSupport visitor = new ClassCodeVisitorSupport() {
+            @Override
+            protected SourceUnit getSourceUnit() {
+                return sourceUnit;
+            }
+            @Override
+            public void visitClass(ClassNode node) {
+                describe(node, node.getName());
+                super.visitClass(node);
+            }
+            @Override
+            protected void visitConstructorOrMethod(MethodNode node, boolean isConstructor) {
+                describe(node, node.getName() + " " + node.getNameStart() + "-" + node.getNameEnd());
+                super.visitConstructorOrMethod(node, isConstructor);
+            }
+            @Override
+            public void visitField(FieldNode node) {
+                describe(node, node.getName());
+                super.visitField(node);
+            }
+            @Override
+            protected void visitStatement(Statement statement) {
+                describe(statement, statement.getText());
+                super.visitStatement(statement);
+            }
+            private void describe(ASTNode node, String text) {
+                sb.append(node.getClass().getSimpleName()).append(' ').append(text).append(' ')
+                  .append(node.getStart()).append('-').append(node.getEnd()).append(' ')
+                  .append(node.getLineNumber()).append(':').append(node.getColumnNumber()).append('-')
+                  .append(node.getLastLineNumber()).append(':').append(node.getLastColumnNumber()).append('\n');
+            }
+        };
+        for (ClassNode classNode : module.getClasses()) {
+            visitor.visitClass(classNode);
+        }
+        for (Comment comment : sourceUnit.getComments()) {
+            sb.append(comment.sline).append(':').append(comment.scol).append('-')
+              .append(comment.eline).append(':').append(comment.ecol).append(' ').append(comment).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -18,7 +18,9 @@ import java.util.List;
 
 import junit.framework.TestCase;
 
+import org.codehaus.groovy.antlr.LineColumn;
 import org.codehaus.groovy.antlr.LocationSupport;
+import org.codehaus.groovy.antlr.SourceBuffer;
 import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.MethodNode;
 import org.codehaus.groovy.ast.ModuleNode;
@@ -56,6 +58,27 @@ public class LocationSupportTests extends TestCase {
         assertEquals("Wrong offset found", 10, locations.findOffset(3, 3));
     }
     
+    public void testSourceBuffer() throws Exception {
+        String content = "def x = 7\r\n  x++\n  def y = []";
+        SourceBuffer buffer = new SourceBuffer();
+        for (char c : content.toCharArray()) {
+            buffer.write(c);
+        }
+
+        assertEquals("x = 7", buffer.getSnippet(new LineColumn(1, 5), new LineColumn(1, 10)));
+        assertEquals("x++", buffer.getSnippet(new LineColumn(2, 3), new LineColumn(2, 6)));
+        assertEquals("7\r\n  x++\n  def", buffer.getSnippet(new LineColumn(1, 9), new LineColumn(3, 6)));
+        assertEquals("def y = []", buffer.getSnippetSequence(new LineColumn(3, 3), new LineColumn(3, 13)).toString());
+
+        LocationSupport locations = buffer.getLocationSupport();
+        assertEquals(content.indexOf("x++"), locations.findOffset(2, 3));
+        assertEquals(content.length(), locations.getEnd());
+        assertEquals(3, locations.getEndLine());
+        int[] rowCol = locations.getRowCol(content.indexOf("x++"));
+        assertEquals(2, rowCol[0]);
+        assertEquals(3, rowCol[1]);
+    }
+
     public void testParserSourceLocationsBlock() throws Exception {
         String content = "def x = 7\n  x++\n  def y = []";
         SourceUnit sourceUnit = new SourceUnit("Foo", content, new CompilerConfiguration(), new GroovyClassLoader(), new ErrorCollector(new CompilerConfiguration()));
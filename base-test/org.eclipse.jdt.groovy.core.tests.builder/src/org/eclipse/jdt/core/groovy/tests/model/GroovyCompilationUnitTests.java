@@ -205,6 +205,18 @@ public class GroovyCompilationUnitTests extends AbstractGroovyTypeRootTests {
         assertTrue("Multiple calls to getModuleNode should return the same object after a call to reconcile with no force problem detection", node1 == node2);
     }
     
+    public void testGetModuleNode_11() throws Exception {
+        IFile groovyFile = createSimpleGroovyProject();
+        GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
+        unit1.becomeWorkingCopy(null);
+        ModuleNode node1 = unit1.getModuleNode();
+        ModuleNode node2 = unit1.getModuleNode();
+        long retained = ModuleNodeMapper.getRetainedSourceChars();
+        unit1.discardWorkingCopy();
+        assertSame("Second call to getModuleNode should be served from the cache", node1, node2);
+        assertTrue("Cached module node should account for its source", retained >= unit1.getSource().length());
+    }
+
     public void testGetNewModuleNode() throws Exception {
         IFile groovyFile = createSimpleGroovyProject();
         GroovyCompilationUnit unit1 = (GroovyCompilationUnit) JavaCore.createCompilationUnitFrom(groovyFile);
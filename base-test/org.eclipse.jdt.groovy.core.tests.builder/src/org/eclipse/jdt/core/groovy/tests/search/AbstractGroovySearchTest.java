@@ -305,7 +305,7 @@ public abstract class AbstractGroovySearchTest extends BuilderTests {
     }
     
     @SuppressWarnings("deprecation")
-    private void waitForIndexer() throws JavaModelException {
+    protected void waitForIndexer() throws JavaModelException {
         final TypeNameRequestor requestor = new TypeNameRequestor() {};
         new SearchEngine().searchAllTypeNames(null, null, R_EXACT_MATCH
                 | R_CASE_SENSITIVE, CLASS,
@@ -44,6 +44,10 @@ public class AllSearchTests {
         suite.addTestSuite(Groovy21InferencingTests.class);
         suite.addTestSuite(GenericsMappingTest.class);
         suite.addTestSuite(BinarySearchTests.class);
+        suite.addTestSuite(InferredReferenceIndexTests.class);
+        suite.addTestSuite(InferenceResultStoreTests.class);
+        suite.addTestSuite(ParameterizedTypeFactoryTests.class);
+        suite.addTestSuite(VariableScopeTests.class);
         return suite;
     }
 }
@@ -373,4 +373,12 @@ public class DGMInferencingTests extends AbstractInferencingTest {
             assertDeclaringType(contents, start, end, "org.codehaus.groovy.runtime.DefaultGroovyMethods");
         }
     }
+    // closeQuietly is inherited by DefaultGroovyMethods from DefaultGroovyMethodsSupport
+    public void testDGMDeclaring4() throws Exception {
+        String contents = "new StringReader('').closeQuietly";
+        String str = "closeQuietly";
+        int start = contents.lastIndexOf(str);
+        int end = start + str.length();
+        assertDeclaringType(contents, start, end, "org.codehaus.groovy.runtime.DefaultGroovyMethodsSupport");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.InferenceResultStore;
+import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
+import org.eclipse.jdt.groovy.search.TypeLookupResult;
+
+/**
+ * Tests that {@link InferenceResultStore} hands out the results of an earlier visit
+ * of the same module node, and only of the same module node
+ */
+public class InferenceResultStoreTests extends AbstractGroovySearchTest {
+
+    public InferenceResultStoreTests(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return buildTestSuite(InferenceResultStoreTests.class);
+    }
+
+    private static class CollectingRequestor implements ITypeRequestor {
+        final List<ASTNode> nodes = new ArrayList<ASTNode>();
+        final List<TypeLookupResult> results = new ArrayList<TypeLookupResult>();
+        final VisitStatus status;
+
+        CollectingRequestor(VisitStatus status) {
+            this.status = status;
+        }
+
+        public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+            nodes.add(node);
+            results.add(result);
+            return status;
+        }
+    }
+
+    public void testNotSharedForNonWorkingCopies() throws Exception {
+        GroovyCompilationUnit unit = createUnit("First", "class First { def x = 'a'.length() }");
+        assertNull(factory.createVisitor(unit).getResultStore());
+    }
+
+    public void testReplayAfterCompleteVisit() throws Exception {
+        GroovyCompilationUnit unit = createUnit("First", "class First { def x = 'a'.length() }");
+        unit.becomeWorkingCopy(null);
+        try {
+            CollectingRequestor first = new CollectingRequestor(ITypeRequestor.VisitStatus.CONTINUE);
+            TypeInferencingVisitorWithRequestor visitor = factory.createVisitor(unit);
+            assertFalse(visitor.getResultStore().isComplete());
+            visitor.visitCompilationUnitAndRecord(first);
+
+            InferenceResultStore store = factory.createVisitor(unit).getResultStore();
+            assertTrue(store.isComplete());
+            CollectingRequestor second = new CollectingRequestor(ITypeRequestor.VisitStatus.CONTINUE);
+            assertTrue(store.replayAll(second));
+            assertEquals(first.nodes, second.nodes);
+            assertEquals(first.results, second.results);
+            assertSame(first.results.get(0), store.get(first.nodes.get(0)).result);
+        } finally {
+            unit.discardWorkingCopy();
+        }
+    }
+
+    public void testStoppedVisitIsNotComplete() throws Exception {
+        GroovyCompilationUnit unit = createUnit("First", "class First { def x = 'a'.length() }");
+        unit.becomeWorkingCopy(null);
+        try {
+            CollectingRequestor first = new CollectingRequestor(ITypeRequestor.VisitStatus.STOP_VISIT);
+            factory.createVisitor(unit).visitCompilationUnitAndRecord(first);
+            assertEquals(1, first.nodes.size());
+
+            InferenceResultStore store = factory.createVisitor(unit).getResultStore();
+            assertFalse(store.isComplete());
+            assertFalse(store.replayAll(new CollectingRequestor(ITypeRequestor.VisitStatus.CONTINUE)));
+            // what was seen before the visit stopped is still available
+            assertNotNull(store.get(first.nodes.get(0)));
+        } finally {
+            unit.discardWorkingCopy();
+        }
+    }
+
+    public void testNewModuleNodeAfterChange() throws Exception {
+        GroovyCompilationUnit unit = createUnit("First", "class First { def x = 'a'.length() }");
+        unit.becomeWorkingCopy(null);
+        try {
+            factory.createVisitor(unit).visitCompilationUnitAndRecord(new CollectingRequestor(ITypeRequestor.VisitStatus.CONTINUE));
+            assertTrue(factory.createVisitor(unit).getResultStore().isComplete());
+
+            unit.getBuffer().append("\n");
+            unit.reconcile(true, null);
+            assertFalse(factory.createVisitor(unit).getResultStore().isComplete());
+        } finally {
+            unit.discardWorkingCopy();
+        }
+    }
+}
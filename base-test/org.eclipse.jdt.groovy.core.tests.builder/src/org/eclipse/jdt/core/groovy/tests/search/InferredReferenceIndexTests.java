@@ -0,0 +1,140 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import junit.framework.Test;
+
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.InferredReferenceIndex;
+import org.eclipse.jdt.groovy.search.TypeRequestorFactory;
+
+/**
+ * Tests that {@link InferredReferenceIndex} only lets searches skip files that cannot contain a match
+ */
+public class InferredReferenceIndexTests extends AbstractGroovySearchTest {
+
+    public InferredReferenceIndexTests(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return buildTestSuite(InferredReferenceIndexTests.class);
+    }
+
+    private InferredReferenceIndex index;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        index = InferredReferenceIndex.getInstance();
+        index.clear();
+    }
+
+    public void testUnindexedFileIsNotSkipped() throws Exception {
+        GroovyCompilationUnit first = createUnit("First", "class First { def xxx() { } }");
+        GroovyCompilationUnit second = createUnit("Second", "new First().xxx()");
+        assertFalse(index.hasNoMatches(new MockPossibleMatch(second), createPattern(first)));
+    }
+
+    public void testOtherDeclaringTypeIsSkipped() throws Exception {
+        GroovyCompilationUnit first = createUnit("First", "class First { def xxx() { } }");
+        GroovyCompilationUnit other = createUnit("Other", "class Other { def xxx() { } }");
+        GroovyCompilationUnit second = createUnit("Second", "new Other().xxx()");
+        record(second, createPattern(other));
+        assertTrue(index.hasNoMatches(new MockPossibleMatch(second), createPattern(first)));
+        assertFalse(index.hasNoMatches(new MockPossibleMatch(second), createPattern(other)));
+    }
+
+    public void testSubtypeIsNotSkipped() throws Exception {
+        GroovyCompilationUnit first = createUnit("First", "class First { def xxx() { } }");
+        GroovyCompilationUnit second = createUnit("Second", "class Sub extends First { }\nnew Sub().xxx()");
+        record(second, createPattern(first));
+        assertFalse(index.hasNoMatches(new MockPossibleMatch(second), createPattern(first)));
+    }
+
+    public void testChangedFileIsNotSkipped() throws Exception {
+        GroovyCompilationUnit first = createUnit("First", "class First { def xxx() { } }");
+        GroovyCompilationUnit second = createUnit("Second", "new Object().toString()");
+        record(second, createPattern(first));
+        assertTrue(index.hasNoMatches(new MockPossibleMatch(second), createPattern(first)));
+
+        second = createUnit("Second", "new First().xxx()");
+        assertFalse(index.hasNoMatches(new MockPossibleMatch(second), createPattern(first)));
+    }
+
+    public void testChangedDSLDIsNotSkipped() throws Exception {
+        GroovyCompilationUnit first = createUnit("First", "class First { def xxx() { } }");
+        GroovyCompilationUnit second = createUnit("Second", "new Object().toString()");
+        record(second, createPattern(first));
+        assertTrue(index.hasNoMatches(new MockPossibleMatch(second), createPattern(first)));
+
+        // a DSLD may contribute xxx to Object
+        env.addFile(project.getFolder("src").getFullPath(), "Contributions.dsld", "contribute(currentType()) { method name: 'xxx' }");
+        assertFalse(index.hasNoMatches(new MockPossibleMatch(second), createPattern(first)));
+    }
+
+    public void testUnrelatedChangeKeepsEntry() throws Exception {
+        GroovyCompilationUnit first = createUnit("First", "class First { def xxx() { } }");
+        GroovyCompilationUnit other = createUnit("Other", "class Other { def xxx() { } }");
+        GroovyCompilationUnit second = createUnit("Second", "new Other().xxx()");
+        record(second, createPattern(other));
+
+        createUnit("Unrelated", "class Unrelated { }");
+        assertTrue(index.hasNoMatches(new MockPossibleMatch(second), createPattern(first)));
+
+        // Second now calls First.xxx() without being changed itself
+        createUnit("Other", "class Other extends First { }");
+        assertFalse(index.hasNoMatches(new MockPossibleMatch(second), createPattern(first)));
+    }
+
+    public void testIndexedFileIsSkipped() throws Exception {
+        GroovyCompilationUnit first = createUnit("First", "class First { def xxx() { } }");
+        GroovyCompilationUnit second = createUnit("Second", "new Object().toString()");
+        waitForIndexer();
+        index.waitForIndexing();
+        assertTrue(index.hasNoMatches(new MockPossibleMatch(second), createPattern(first)));
+    }
+
+    public void testSavedEntriesAreLoaded() throws Exception {
+        GroovyCompilationUnit first = createUnit("First", "class First { def xxx() { } }");
+        GroovyCompilationUnit second = createUnit("Second", "new Object().toString()");
+        record(second, createPattern(first));
+        assertTrue(index.save());
+
+        InferredReferenceIndex.shutdown();
+        index = InferredReferenceIndex.getInstance();
+        assertTrue(index.hasNoMatches(new MockPossibleMatch(second), createPattern(first)));
+    }
+
+    private SearchPattern createPattern(GroovyCompilationUnit unit) throws Exception {
+        IMethod method = (IMethod) unit.getTypes()[0].getChildren()[0];
+        return SearchPattern.createPattern(method, IJavaSearchConstants.REFERENCES);
+    }
+
+    private void record(GroovyCompilationUnit unit, SearchPattern pattern) {
+        MockPossibleMatch match = new MockPossibleMatch(unit);
+        ITypeRequestor typeRequestor = new TypeRequestorFactory().createRequestor(match, pattern, searchRequestor);
+        InferredReferenceIndex.Recorder recorder = index.createRecorder(match, pattern, typeRequestor);
+        assertNotNull(recorder);
+        factory.createVisitor(match).visitCompilationUnit(recorder);
+        recorder.store();
+    }
+}
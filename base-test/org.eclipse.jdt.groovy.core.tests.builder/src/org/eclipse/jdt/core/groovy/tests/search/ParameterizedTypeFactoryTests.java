@@ -0,0 +1,85 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import junit.framework.TestCase;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.GenericsType;
+import org.eclipse.jdt.groovy.search.GenericsMapper;
+import org.eclipse.jdt.groovy.search.ParameterizedTypeFactory;
+import org.eclipse.jdt.groovy.search.VariableScope;
+
+/**
+ * Tests that {@link ParameterizedTypeFactory} creates a parameterized type only once
+ */
+public class ParameterizedTypeFactoryTests extends TestCase {
+
+    public ParameterizedTypeFactoryTests(String name) {
+        super(name);
+    }
+
+    public void testParameterize() throws Exception {
+        ClassNode list = ParameterizedTypeFactory.parameterize(VariableScope.LIST_CLASS_NODE, VariableScope.STRING_CLASS_NODE);
+        assertSame(VariableScope.LIST_CLASS_NODE.redirect(), list.redirect());
+        GenericsType[] generics = list.getGenericsTypes();
+        assertEquals(1, generics.length);
+        assertSame(VariableScope.STRING_CLASS_NODE, generics[0].getType());
+        assertEquals("java.lang.String", generics[0].getName());
+        assertFalse(generics[0].isPlaceholder());
+    }
+
+    public void testSameParameterizationIsShared() throws Exception {
+        ClassNode first = ParameterizedTypeFactory.parameterize(VariableScope.LIST_CLASS_NODE, VariableScope.STRING_CLASS_NODE);
+        // any reference to the declaration will do
+        ClassNode second = ParameterizedTypeFactory.parameterize(VariableScope.LIST_CLASS_NODE.getPlainNodeReference(),
+                VariableScope.STRING_CLASS_NODE);
+        assertSame(first, second);
+    }
+
+    public void testDifferentParameterizations() throws Exception {
+        ClassNode strings = ParameterizedTypeFactory.parameterize(VariableScope.LIST_CLASS_NODE, VariableScope.STRING_CLASS_NODE);
+        ClassNode integers = ParameterizedTypeFactory.parameterize(VariableScope.LIST_CLASS_NODE, VariableScope.INTEGER_CLASS_NODE);
+        ClassNode map = ParameterizedTypeFactory.parameterize(VariableScope.MAP_CLASS_NODE, VariableScope.STRING_CLASS_NODE,
+                VariableScope.STRING_CLASS_NODE);
+        assertNotSame(strings, integers);
+        assertNotSame(strings, map);
+    }
+
+    public void testNestedParameterizationIsShared() throws Exception {
+        ClassNode first = ParameterizedTypeFactory.parameterize(VariableScope.MAP_CLASS_NODE, VariableScope.STRING_CLASS_NODE,
+                ParameterizedTypeFactory.parameterize(VariableScope.LIST_CLASS_NODE, VariableScope.STRING_CLASS_NODE));
+        ClassNode second = ParameterizedTypeFactory.parameterize(VariableScope.MAP_CLASS_NODE, VariableScope.STRING_CLASS_NODE,
+                ParameterizedTypeFactory.parameterize(VariableScope.LIST_CLASS_NODE, VariableScope.STRING_CLASS_NODE));
+        assertSame(first, second);
+    }
+
+    public void testResolveTypeParameterization() throws Exception {
+        ClassNode list = ParameterizedTypeFactory.parameterize(VariableScope.LIST_CLASS_NODE, VariableScope.STRING_CLASS_NODE);
+        ClassNode iterator = VariableScope.LIST_CLASS_NODE.getMethods("iterator").get(0).getReturnType();
+        String unresolvedName = iterator.getGenericsTypes()[0].getName();
+
+        GenericsMapper mapper = GenericsMapper.gatherGenerics(list, VariableScope.LIST_CLASS_NODE.redirect());
+        ClassNode resolved = VariableScope.resolveTypeParameterization(mapper, iterator);
+        assertEquals("java.util.Iterator", resolved.getName());
+        assertSame(VariableScope.STRING_CLASS_NODE, resolved.getGenericsTypes()[0].getType());
+        assertSame("Should have shared the resolved type", resolved,
+                VariableScope.resolveTypeParameterization(mapper, iterator));
+        // the declaration has not changed
+        assertEquals(unresolvedName, iterator.getGenericsTypes()[0].getName());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.eclipse.jdt.core.groovy.tests.search;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.groovy.search.VariableScope;
+import org.eclipse.jdt.groovy.search.VariableScope.VariableInfo;
+
+/**
+ * Tests the lookup of this and delegate in nested {@link VariableScope}s
+ */
+public class VariableScopeTests extends TestCase {
+
+    public VariableScopeTests(String name) {
+        super(name);
+    }
+
+    public void testThisAndDelegate() throws Exception {
+        VariableScope top = new VariableScope(null, null, false);
+        top.addVariable("this", VariableScope.STRING_CLASS_NODE, null);
+        VariableScope closure = new VariableScope(new VariableScope(top, null, false), null, false);
+        assertSame(VariableScope.STRING_CLASS_NODE, closure.getThis());
+        assertNull(closure.getDelegate());
+        assertSame(top.lookupName("this"), closure.getDelegateOrThisInfo());
+
+        closure.addVariable("delegate", VariableScope.LIST_CLASS_NODE, VariableScope.CLOSURE_CLASS);
+        VariableScope inner = new VariableScope(closure, null, false);
+        assertSame(VariableScope.LIST_CLASS_NODE, inner.getDelegate());
+        assertSame(VariableScope.LIST_CLASS_NODE, inner.getDelegateOrThis());
+        assertSame(closure.lookupName("delegate"), inner.getDelegateOrThisInfo());
+    }
+
+    public void testUpdatedDelegate() throws Exception {
+        VariableScope closure = new VariableScope(null, null, false);
+        closure.addVariable("delegate", VariableScope.LIST_CLASS_NODE, VariableScope.CLOSURE_CLASS);
+        VariableScope inner = new VariableScope(closure, null, false);
+        assertTrue(inner.updateVariable("delegate", VariableScope.MAP_CLASS_NODE, null));
+        assertSame(VariableScope.MAP_CLASS_NODE, inner.getDelegate());
+        assertSame(VariableScope.CLOSURE_CLASS, inner.getDelegateOrThisInfo().declaringType);
+        assertFalse(inner.containsInThisScope("delegate"));
+    }
+
+    public void testVariables() throws Exception {
+        VariableScope top = new VariableScope(null, null, false);
+        top.addVariable("this", VariableScope.STRING_CLASS_NODE, null);
+        top.addVariable("x", VariableScope.INTEGER_CLASS_NODE, null);
+        VariableScope inner = new VariableScope(top, null, false);
+        inner.addVariable("y", VariableScope.INTEGER_CLASS_NODE, null);
+
+        Set<String> names = new HashSet<String>();
+        for (Iterator<Entry<String, VariableInfo>> iter = new VariableScope(inner, null, false).variablesIterator(); iter.hasNext();) {
+            names.add(iter.next().getKey());
+        }
+        assertEquals(3, names.size());
+        assertTrue(names.contains("this"));
+        assertTrue(names.contains("x"));
+        assertTrue(names.contains("y"));
+    }
+
+    public void testEmptyScopesDeclareNothing() throws Exception {
+        VariableScope top = new VariableScope(null, null, false);
+        top.addVariable("this", VariableScope.STRING_CLASS_NODE, null);
+        VariableScope scope = top;
+        for (int i = 0; i < 10; i++) {
+            scope = new VariableScope(scope, null, false);
+        }
+        assertNull(scope.lookupNameInCurrentScope("this"));
+        assertSame(VariableScope.STRING_CLASS_NODE, scope.getDelegateOrThis());
+        assertNull(scope.lookupName("x"));
+
+        scope.addVariable("x", VariableScope.INTEGER_CLASS_NODE, null);
+        assertSame(VariableScope.INTEGER_CLASS_NODE, scope.lookupNameInCurrentScope("x").type);
+        assertNull(top.lookupName("x"));
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2003-2013 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.antlr;
+
+import groovyjarjarantlr.RecognitionException;
+import groovyjarjarantlr.TokenStreamException;
+import groovyjarjarantlr.collections.AST;
+
+import java.io.CharArrayReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.antlr.parser.GroovyLexer;
+import org.codehaus.groovy.antlr.parser.GroovyRecognizer;
+import org.codehaus.groovy.antlr.parser.GroovyTokenTypes;
+import org.codehaus.groovy.ast.Comment;
+
+// FIXASC (groovychange) new type
+/**
+ * Parses only the changed method when a file is reconciled again. The CST of the last reconcile of a file is kept, and when
+ * the text has only changed inside one method, that method is parsed on its own and its subtree replaces the old one. The
+ * nodes and comments after the method are moved by the number of lines that the edit added or removed.
+ * <p>
+ * The method must take up whole lines, and the edit must leave it a single method that parses without errors at the same
+ * place. In all other cases, and when the source has unicode escapes, the whole file is parsed. Only the CST is reused: the
+ * ModuleNode is still built from the whole CST and resolved again, since groovy changes it in place while compiling.
+ * <p>
+ * Can be turned off with -Dgreclipse.incrementalReconcile=false.
+ *
+ * @see ErrorRecoveredCSTParserPlugin
+ */
+public class IncrementalCSTParser {
+
+	private static final boolean ENABLED = Boolean.valueOf(System.getProperty("greclipse.incrementalReconcile", "true"));
+
+	// CSTs of large files are big, so only those of the files reconciled last are kept
+	private static final int MAX_FILES = 4;
+
+	private static final Map<String, ParsedCST> lastParses = new LinkedHashMap<String, ParsedCST>(8, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ParsedCST> eldest) {
+			return size() > MAX_FILES;
+		}
+	};
+
+	/**
+	 * The CST of a source and the comments found in it
+	 */
+	public static class ParsedCST {
+		public final char[] source;
+		public final AST cst;
+		public final List<Comment> comments;
+		public final String[] tokenNames;
+
+		ParsedCST(char[] source, AST cst, List<Comment> comments, String[] tokenNames) {
+			this.source = source;
+			this.cst = cst;
+			this.comments = comments;
+			this.tokenNames = tokenNames;
+		}
+	}
+
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * Keeps the CST of a source that parsed without errors, to parse the next version of the source from. The CST must have
+	 * been through {@link AntlrASTProcessSnippets}, and the ModuleNode must have been built from it, since it is changed by
+	 * the next call to {@link #reparse(String, char[])}.
+	 */
+	public static void remember(String name, char[] source, AST cst, List<Comment> comments, String[] tokenNames) {
+		if (!(cst instanceof GroovySourceAST) || comments == null) {
+			forget(name);
+			return;
+		}
+		synchronized (lastParses) {
+			lastParses.put(name, new ParsedCST(source, cst, comments, tokenNames));
+		}
+	}
+
+	public static void forget(String name) {
+		synchronized (lastParses) {
+			lastParses.remove(name);
+		}
+	}
+
+	/**
+	 * @return the CST and comments of the new source, built from the remembered CST of the file, or null if the source has to be
+	 *         parsed in full. The end positions of the new nodes are filled in by {@link AntlrASTProcessSnippets}.
+	 */
+	public static ParsedCST reparse(String name, char[] source) {
+		ParsedCST last;
+		synchronized (lastParses) {
+			// the old CST is changed in place, so nobody else may use it
+			last = lastParses.remove(name);
+		}
+		if (last == null || hasUnicodeEscapes(source)) {
+			// escapes make the columns of the lexer differ from the offsets in the source
+			return null;
+		}
+		try {
+			return reparse(last, name, source);
+		} catch (RuntimeException e) {
+			// the CST may be broken now, but it is not remembered any more
+			return null;
+		}
+	}
+
+	private static ParsedCST reparse(ParsedCST last, String name, char[] source) {
+		char[] oldSource = last.source;
+		int max = Math.min(oldSource.length, source.length);
+		int prefix = 0;
+		while (prefix < max && oldSource[prefix] == source[prefix]) {
+			prefix++;
+		}
+		int suffix = 0;
+		while (suffix < max - prefix && oldSource[oldSource.length - 1 - suffix] == source[source.length - 1 - suffix]) {
+			suffix++;
+		}
+		if (prefix == oldSource.length && prefix == source.length) {
+			// unchanged, eg. when problems are asked for again
+			return new ParsedCST(source, last.cst, moveComments(last.comments, 0, 0, 0), last.tokenNames);
+		}
+
+		int[] oldLines = lineStarts(oldSource);
+		GroovySourceAST method = findMethod(last.cst, oldLines, prefix, oldSource.length - suffix);
+		if (method == null) {
+			return null;
+		}
+		// the method must take up whole lines: only whitespace before it, and a line break right after it
+		int startLine = method.getLine();
+		int endLine = method.getLineLast();
+		int methodStart = offset(oldLines, startLine, method.getColumn());
+		int methodEnd = offset(oldLines, endLine, method.getColumnLast()); // the start of the token after the method
+		if (methodEnd >= oldSource.length || !isLineBreak(oldSource[methodEnd])) {
+			return null;
+		}
+		for (int i = oldLines[startLine - 1]; i < methodStart; i++) {
+			if (!isWhitespace(oldSource[i])) {
+				return null;
+			}
+		}
+		if (!isOnlyOnLines(last.cst, method, startLine, endLine)) {
+			return null;
+		}
+
+		// parse the new text of the method at the same place, with everything else blanked out
+		int newMethodEnd = methodEnd + source.length - oldSource.length;
+		char[] blanked = new char[source.length];
+		for (int i = 0; i < source.length; i++) {
+			blanked[i] = (i >= methodStart && i < newMethodEnd) || isWhitespace(source[i]) ? source[i] : ' ';
+		}
+		SourceBuffer sourceBuffer = new SourceBuffer();
+		UnicodeEscapingReader unicodeReader = new UnicodeEscapingReader(new CharArrayReader(blanked), sourceBuffer);
+		GroovyLexer lexer = new GroovyLexer(new UnicodeLexerSharedInputState(unicodeReader));
+		unicodeReader.setLexer(lexer);
+		GroovyRecognizer parser = GroovyRecognizer.make(lexer);
+		parser.setSourceBuffer(sourceBuffer);
+		parser.setFilename(name);
+		try {
+			parser.compilationUnit();
+		} catch (RecognitionException e) {
+			return null;
+		} catch (TokenStreamException e) {
+			return null;
+		}
+		AST parsed = parser.getAST();
+		if (!parser.getErrorList().isEmpty() || !(parsed instanceof GroovySourceAST) || parsed.getType() != GroovyTokenTypes.METHOD_DEF
+				|| parsed.getNextSibling() != null) {
+			return null;
+		}
+		GroovySourceAST newMethod = (GroovySourceAST) parsed;
+		int[] newLines = lineStarts(source);
+		int lineDelta = newLines.length - oldLines.length;
+		if (newMethod.getLine() != startLine || newMethod.getColumn() != method.getColumn()
+				|| newMethod.getLineLast() != endLine + lineDelta
+				|| offset(newLines, newMethod.getLineLast(), newMethod.getColumnLast()) != newMethodEnd) {
+			return null;
+		}
+
+		// replace the method and move everything after it
+		AST cst = last.cst;
+		newMethod.setNextSibling(method.getNextSibling());
+		if (cst == method) {
+			cst = newMethod;
+		} else if (!replace(cst, method, newMethod)) {
+			return null;
+		}
+		moveLines(cst, newMethod, endLine, lineDelta);
+
+		List<Comment> comments = moveComments(last.comments, startLine, endLine, lineDelta);
+		int i = 0;
+		while (i < comments.size() && comments.get(i).sline < startLine) {
+			i++;
+		}
+		comments.addAll(i, parser.getComments());
+		return new ParsedCST(source, cst, comments, parser.getTokenNames());
+	}
+
+	/**
+	 * @return the outermost method whose text contains the given range, or null if there is none or it is a generic method
+	 */
+	private static GroovySourceAST findMethod(AST node, int[] lines, int start, int end) {
+		for (; node != null; node = node.getNextSibling()) {
+			GroovySourceAST sourceNode = (GroovySourceAST) node;
+			int nodeStart = offset(lines, sourceNode.getLine(), sourceNode.getColumn());
+			int nodeEnd = offset(lines, sourceNode.getLineLast(), sourceNode.getColumnLast());
+			if (nodeStart >= 0 && nodeEnd >= 0 && nodeStart <= start && end <= nodeEnd) {
+				if (node.getType() != GroovyTokenTypes.METHOD_DEF) {
+					GroovySourceAST method = findMethod(node.getFirstChild(), lines, start, end);
+					if (method != null) {
+						return method;
+					}
+					continue;
+				}
+				// a method with type parameters does not parse the same way outside of a class
+				for (AST child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+					if (child.getType() == GroovyTokenTypes.TYPE_PARAMETERS) {
+						return null;
+					}
+				}
+				return sourceNode;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return true if no node other than those of the method starts on its lines, or ends on them after its first line
+	 */
+	private static boolean isOnlyOnLines(AST node, AST method, int startLine, int endLine) {
+		for (; node != null; node = node.getNextSibling()) {
+			if (node == method) {
+				continue;
+			}
+			GroovySourceAST sourceNode = (GroovySourceAST) node;
+			if ((sourceNode.getLine() >= startLine && sourceNode.getLine() <= endLine)
+					|| (sourceNode.getLineLast() > startLine && sourceNode.getLineLast() <= endLine)) {
+				return false;
+			}
+			if (!isOnlyOnLines(node.getFirstChild(), method, startLine, endLine)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean replace(AST node, AST oldNode, AST newNode) {
+		for (; node != null; node = node.getNextSibling()) {
+			if (node.getFirstChild() == oldNode) {
+				node.setFirstChild(newNode);
+				return true;
+			}
+			if (node.getNextSibling() == oldNode) {
+				node.setNextSibling(newNode);
+				return true;
+			}
+			if (replace(node.getFirstChild(), oldNode, newNode)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void moveLines(AST node, AST skip, int afterLine, int lineDelta) {
+		if (lineDelta == 0) {
+			return;
+		}
+		for (; node != null; node = node.getNextSibling()) {
+			if (node == skip) {
+				continue;
+			}
+			GroovySourceAST sourceNode = (GroovySourceAST) node;
+			if (sourceNode.getLine() > afterLine) {
+				sourceNode.setLine(sourceNode.getLine() + lineDelta);
+			}
+			if (sourceNode.getLineLast() > afterLine) {
+				sourceNode.setLineLast(sourceNode.getLineLast() + lineDelta);
+			}
+			moveLines(node.getFirstChild(), skip, afterLine, lineDelta);
+		}
+	}
+
+	/**
+	 * Comments are marked as used when they are attached to a declaration, so the remembered ones are copied.
+	 *
+	 * @return copies of the comments that are not on the given lines, with those after them moved by the line delta
+	 */
+	private static List<Comment> moveComments(List<Comment> comments, int startLine, int endLine, int lineDelta) {
+		List<Comment> moved = new ArrayList<Comment>(comments.size());
+		for (Comment comment : comments) {
+			if (comment.eline < startLine) {
+				moved.add(copy(comment, 0));
+			} else if (comment.sline > endLine) {
+				moved.add(copy(comment, lineDelta));
+			}
+		}
+		return moved;
+	}
+
+	private static Comment copy(Comment comment, int lineDelta) {
+		String text = comment.toString();
+		if (text.startsWith("/*")) {
+			return Comment.makeMultiLineComment(comment.sline + lineDelta, comment.scol, comment.eline + lineDelta, comment.ecol, text);
+		}
+		return Comment.makeSingleLineComment(comment.sline + lineDelta, comment.scol, comment.eline + lineDelta, comment.ecol, text);
+	}
+
+	/**
+	 * @return the offset at which each line starts, breaking lines the way the lexer does
+	 */
+	private static int[] lineStarts(char[] source) {
+		int[] starts = new int[Math.max(16, source.length / 32)];
+		int count = 1;
+		for (int i = 0; i < source.length; i++) {
+			char c = source[i];
+			if (c == '\r' && i + 1 < source.length && source[i + 1] == '\n') {
+				continue;
+			}
+			if (c == '\r' || c == '\n') {
+				if (count == starts.length) {
+					int[] grown = new int[count * 2];
+					System.arraycopy(starts, 0, grown, 0, count);
+					starts = grown;
+				}
+				starts[count++] = i + 1;
+			}
+		}
+		int[] trimmed = new int[count];
+		System.arraycopy(starts, 0, trimmed, 0, count);
+		return trimmed;
+	}
+
+	/**
+	 * @return the offset of the given 1-based line and column, or -1 if there is no such line
+	 */
+	private static int offset(int[] lineStarts, int line, int column) {
+		return line >= 1 && line <= lineStarts.length && column >= 1 ? lineStarts[line - 1] + column - 1 : -1;
+	}
+
+	private static boolean isLineBreak(char c) {
+		return c == '\r' || c == '\n';
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\f' || isLineBreak(c);
+	}
+
+	private static boolean hasUnicodeEscapes(char[] source) {
+		for (int i = 0; i + 1 < source.length; i++) {
+			if (source[i] == '\\' && source[i + 1] == 'u') {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -126,11 +126,20 @@ public class LocationSupport {
     }
     
     public int[] getRowCol(int offset) {
-        for (int i = 1; i < lineEndings.length; i++) {
-            if (lineEndings[i] > offset) {
-                return new int[] { i, offset - lineEndings[i-1] +1};
+        // binary search for the first line that ends after the offset
+        int low = 1;
+        int high = lineEndings.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lineEndings[mid] > offset) {
+                high = mid;
+            } else {
+                low = mid + 1;
             }
         }
+        if (low < lineEndings.length) {
+            return new int[] { low, offset - lineEndings[low-1] +1};
+        }
         // after end of document
         throw new RuntimeException("Location is after end of document.  Offset : " + offset);
     }
@@ -20,15 +20,22 @@ import groovyjarjarantlr.TokenStreamException;
 import groovyjarjarantlr.TokenStreamIOException;
 import groovyjarjarantlr.TokenStreamRecognitionException;
 
+import java.io.CharArrayReader;
+import java.io.CharArrayWriter;
+import java.io.IOException;
 import java.io.Reader;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import org.codehaus.groovy.antlr.IncrementalCSTParser.ParsedCST;
 import org.codehaus.groovy.antlr.parser.GroovyLexer;
 import org.codehaus.groovy.antlr.parser.GroovyRecognizer;
+import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.syntax.ParserException;
+import org.codehaus.groovy.syntax.Reduction;
 import org.codehaus.groovy.syntax.SyntaxException;
 // FIXASC (groovychange) new type
 /**
@@ -40,6 +47,9 @@ import org.codehaus.groovy.syntax.SyntaxException;
 public class ErrorRecoveredCSTParserPlugin extends AntlrParserPlugin {
 	private final ICSTReporter reporter;
 
+	// the text of a reconciled source, whose CST is remembered once the module is built
+	private char[] reconcileSource;
+
 	ErrorRecoveredCSTParserPlugin(ICSTReporter reporter) {
 		this.reporter = reporter;
 	}
@@ -50,6 +60,32 @@ public class ErrorRecoveredCSTParserPlugin extends AntlrParserPlugin {
 
 		setController(sourceUnit);
 
+		// a reconcile after an edit inside a single method only parses that method again
+		reconcileSource = null;
+		if (sourceUnit.isReconcile && IncrementalCSTParser.isEnabled()) {
+			try {
+				reconcileSource = readFully(reader);
+			} catch (IOException e) {
+				sourceUnit.addException(e);
+				return;
+			}
+			ParsedCST reparsed = IncrementalCSTParser.reparse(sourceUnit.getName(), reconcileSource);
+			if (reparsed != null) {
+				for (char c : reconcileSource) {
+					sourceBuffer.write(c);
+				}
+				configureLocationSupport(sourceBuffer);
+				super.tokenNames = reparsed.tokenNames;
+				super.ast = reparsed.cst;
+				sourceUnit.setComments(reparsed.comments);
+				if (reporter != null) {
+					reporter.generatedCST(sourceUnit.getName(), (GroovySourceAST) reparsed.cst);
+				}
+				return;
+			}
+			reader = new CharArrayReader(reconcileSource);
+		}
+
         // GRECLIPSE: start
         /* old {
         UnicodeEscapingReader unicodeReader = new UnicodeEscapingReader(reader,sourceBuffer);
@@ -128,6 +164,32 @@ public class ErrorRecoveredCSTParserPlugin extends AntlrParserPlugin {
 		reportCST(sourceUnit, parser);
 	}
 
+	private static char[] readFully(Reader reader) throws IOException {
+		CharArrayWriter contents = new CharArrayWriter();
+		char[] chunk = new char[8192];
+		int read;
+		while ((read = reader.read(chunk)) != -1) {
+			contents.write(chunk, 0, read);
+		}
+		return contents.toCharArray();
+	}
+
+	@Override
+	public ModuleNode buildAST(SourceUnit sourceUnit, ClassLoader classLoader, Reduction cst) throws ParserException {
+		ModuleNode module = super.buildAST(sourceUnit, classLoader, cst);
+		if (reconcileSource != null) {
+			// the CST is only needed again for the next reconcile, which changes it
+			if (sourceUnit.getErrorCollector().hasErrors()) {
+				IncrementalCSTParser.forget(sourceUnit.getName());
+			} else {
+				IncrementalCSTParser.remember(sourceUnit.getName(), reconcileSource, super.ast, sourceUnit.getComments(),
+						super.tokenNames);
+			}
+			reconcileSource = null;
+		}
+		return module;
+	}
+
 	@SuppressWarnings("unchecked")
 	private void reportCST(final SourceUnit sourceUnit,
 			final GroovyRecognizer parser) {
@@ -15,8 +15,7 @@
  */
 package org.codehaus.groovy.antlr;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.CharBuffer;
 
 /**
  * A simple buffer that provides line/col access to chunks of source code
@@ -26,25 +25,43 @@ import java.util.List;
  * @version $Revision$
  */
 public class SourceBuffer {
-    private final List<StringBuilder> lines; //GRECLIPSE: type was List (raw)
-    private StringBuilder current; //GRECLIPSE: type was StringBuffer
     // GRECLIPSE: start
-    private final List<Integer> lineEndings;
+    /*{
+    private final List lines;
+    private StringBuffer current;
+    }*/
+    // newcode:
+    // the source is kept in a single array, where each line ends with its line terminator
+    private char[] chars;
+    private int length;
+
+    // index in chars where each line starts, for line 1 at [0]
+    private int[] lineStarts;
+    // offset in the original source where each line starts.  Differs from
+    // lineStarts when the source contains unicode escapes
+    private int[] lineEndings;
+    private int lineCount;
 
     // GRECLIPSE-805 Support for unicode escape sequences
     private UnicodeEscapingReader unescaper;
     // end
 
     public SourceBuffer() {
-        lines = new ArrayList<StringBuilder>();
-        //lines.add(new StringBuffer()); // dummy row for position [0] in the List
         // GRECLIPSE: start
-        lineEndings = new ArrayList<Integer>();
-        lineEndings.add(0);
+        /*{
+        lines = new ArrayList();
+        //lines.add(new StringBuffer()); // dummy row for position [0] in the List
+
+        current = new StringBuffer();
+        lines.add(current);
+        }*/
+        // newcode:
+        chars = new char[1024];
+        lineStarts = new int[64];
+        lineEndings = new int[64];
+        lineCount = 1;
         unescaper = new NoEscaper();
         // end
-        current = new StringBuilder();
-        lines.add(current);
     }
 
     /**
@@ -54,10 +71,26 @@ public class SourceBuffer {
      * @return specified snippet of source code as a String, or null if no source available
      */
     public String getSnippet(LineColumn start, LineColumn end) {
+        // GRECLIPSE: start
+        CharSequence snippet = getSnippetSequence(start, end);
+        return snippet == null ? null : snippet.toString();
+        // end
+    }
+
+    // GRECLIPSE: start
+    /**
+     * Obtains a snippet of the source code within the bounds specified, without
+     * copying it.  The snippet is a view of the buffer, which only ever grows, so it
+     * does not change when more source is written.
+     * @param start (inclusive line/ inclusive column)
+     * @param end (inclusive line / exclusive column)
+     * @return specified snippet of source code, or null if no source available
+     */
+    public CharSequence getSnippetSequence(LineColumn start, LineColumn end) {
         // preconditions
         if (start == null || end == null) { return null; } // no text to return
         if (start.equals(end)) { return null; } // no text to return
-        if (lines.size() == 1 && current.length() == 0) { return null; } // buffer hasn't been filled yet
+        if (length == 0) { return null; } // buffer hasn't been filled yet
 
         // working variables
         int startLine = start.getLine();
@@ -70,37 +103,39 @@ public class SourceBuffer {
         if (endLine < 1) { endLine = 1;}
         if (startColumn < 1) { startColumn = 1;}
         if (endColumn < 1) { endColumn = 1;}
-        if (startLine > lines.size()) { startLine = lines.size(); }
-        if (endLine > lines.size()) { endLine = lines.size(); }
+        if (startLine > lineCount) { startLine = lineCount; }
+        if (endLine > lineCount) { endLine = lineCount; }
 
-        // obtain the snippet from the buffer within specified bounds
-        StringBuffer snippet = new StringBuffer();
-        for (int i = startLine - 1; i < endLine;i++) {
-            String line = (lines.get(i)).toString();
-            if (startLine == endLine) {
-                // reset any out of bounds requests (again)
-                if (startColumn > line.length()) { startColumn = line.length();}
-                if (startColumn < 1) { startColumn = 1;}
-                if (endColumn > line.length()) { endColumn = line.length() + 1;}
-                if (endColumn < 1) { endColumn = 1;}
-
-                line = line.substring(startColumn - 1, endColumn - 1);
-            } else {
-                if (i == startLine - 1) {
-                    if (startColumn - 1 < line.length()) {
-                        line = line.substring(startColumn - 1);
-                    }
-                }
-                if (i == endLine - 1) {
-                    if (endColumn - 1 < line.length()) {
-                        line = line.substring(0,endColumn - 1);
-                    }
-                }
+        int from;
+        int to;
+        if (startLine == endLine) {
+            int lineLength = lineLength(startLine);
+            // reset any out of bounds requests (again)
+            if (startColumn > lineLength) { startColumn = lineLength;}
+            if (startColumn < 1) { startColumn = 1;}
+            if (endColumn > lineLength) { endColumn = lineLength + 1;}
+            from = lineStarts[startLine - 1] + startColumn - 1;
+            to = Math.max(from, lineStarts[startLine - 1] + endColumn - 1);
+        } else {
+            // a column after the end of its line means the whole line
+            from = lineStarts[startLine - 1];
+            if (startColumn - 1 < lineLength(startLine)) {
+                from += startColumn - 1;
+            }
+            to = lineStarts[endLine - 1] + lineLength(endLine);
+            if (endColumn - 1 < lineLength(endLine)) {
+                to = lineStarts[endLine - 1] + endColumn - 1;
             }
-            snippet.append(line);
+            to = Math.max(from, to);
         }
-        return snippet.toString();
+        return CharBuffer.wrap(chars, from, to - from);
+    }
+
+    private int lineLength(int line) {
+        int lineEnd = line < lineCount ? lineStarts[line] : length;
+        return lineEnd - lineStarts[line - 1];
     }
+    // end
 
     /**
      * Writes the specified character into the buffer
@@ -125,45 +160,55 @@ public class SourceBuffer {
     
     private boolean prevWasCarriageReturn = false;
     private int col = 0;
-    // FIXASC tidy this up, looks slow
     public void write(int c) {
         if (c != -1) {
-        	col++;
-            current.append((char)c);
+            col++;
+            if (length == chars.length) {
+                char[] newChars = new char[length * 2];
+                System.arraycopy(chars, 0, newChars, 0, length);
+                chars = newChars;
+            }
+            chars[length++] = (char) c;
         }
         if (c == '\n') {
-        	if (!prevWasCarriageReturn) {
-	            current = new StringBuilder();
-	            lines.add(current);
-	            lineEndings.add(col + unescaper.getUnescapedUnicodeOffsetCount());
-        	} else {
-        		// \r\n was found
-        		// back out previous line and add a \n to the line
-        		current = new StringBuilder();
-        		lines.get(lines.size()-1).append('\n');
-        		lineEndings.remove(lineEndings.size()-1);
-        		lineEndings.add(col + unescaper.getUnescapedUnicodeOffsetCount());
-        	}
+            if (!prevWasCarriageReturn) {
+                startLine();
+            } else {
+                // \r\n was found
+                // the line started at the \r really starts after the \n
+                lineStarts[lineCount - 1] = length;
+                lineEndings[lineCount - 1] = col + unescaper.getUnescapedUnicodeOffsetCount();
+            }
         }
         // handle carriage returns as well as newlines
         if (c == '\r') {
-        	current = new StringBuilder();
-        	lines.add(current);
-        	lineEndings.add(col + unescaper.getUnescapedUnicodeOffsetCount());
-        	// this may be a \r\n, but may not be
-        	prevWasCarriageReturn = true;
+            startLine();
+            // this may be a \r\n, but may not be
+            prevWasCarriageReturn = true;
         } else {
-        	prevWasCarriageReturn = false;
+            prevWasCarriageReturn = false;
+        }
+    }
+
+    private void startLine() {
+        if (lineCount == lineStarts.length) {
+            int[] newLineStarts = new int[lineCount * 2];
+            System.arraycopy(lineStarts, 0, newLineStarts, 0, lineCount);
+            lineStarts = newLineStarts;
+            int[] newLineEndings = new int[lineCount * 2];
+            System.arraycopy(lineEndings, 0, newLineEndings, 0, lineCount);
+            lineEndings = newLineEndings;
         }
+        lineStarts[lineCount] = length;
+        lineEndings[lineCount] = col + unescaper.getUnescapedUnicodeOffsetCount();
+        lineCount++;
     }
     
     public LocationSupport getLocationSupport() {
-    	lineEndings.add(col + unescaper.getUnescapedUnicodeOffsetCount()); // last line ends where the data runs out
-    	int[] lineEndingsArray = new int[lineEndings.size()];
-    	for (int i=0,max=lineEndings.size();i<max;i++) {
-    		lineEndingsArray[i] = lineEndings.get(i).intValue();
-    	}
-    	return new LocationSupport(lineEndingsArray);
+        int[] lineEndingsArray = new int[lineCount + 1];
+        System.arraycopy(lineEndings, 0, lineEndingsArray, 0, lineCount);
+        lineEndingsArray[lineCount] = col + unescaper.getUnescapedUnicodeOffsetCount(); // last line ends where the data runs out
+        return new LocationSupport(lineEndingsArray);
     }
     // end
 }
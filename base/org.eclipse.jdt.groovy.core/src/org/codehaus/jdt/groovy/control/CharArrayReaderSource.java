@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.codehaus.jdt.groovy.control;
+
+import java.io.CharArrayReader;
+import java.io.Reader;
+
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.io.AbstractReaderSource;
+
+/**
+ * Reads the source of a {@link EclipseSourceUnit} directly from the contents of the compilation unit, so that they do not have to
+ * be copied into a String first. The array must not be changed afterwards.
+ */
+public class CharArrayReaderSource extends AbstractReaderSource {
+
+	private final char[] contents;
+
+	public CharArrayReaderSource(char[] contents, CompilerConfiguration configuration) {
+		super(configuration);
+		this.contents = contents;
+	}
+
+	public Reader getReader() {
+		return new CharArrayReader(contents);
+	}
+}
@@ -35,6 +35,12 @@ public class EclipseSourceUnit extends SourceUnit {
 		this.file = resource;
 	}
 
+	public EclipseSourceUnit(IFile resource, String filepath, char[] contents, CompilerConfiguration groovyCompilerConfig,
+			GroovyClassLoader classLoader, ErrorCollector errorCollector) {
+		super(filepath, new CharArrayReaderSource(contents, groovyCompilerConfig), groovyCompilerConfig, classLoader, errorCollector);
+		this.file = resource;
+	}
+
 	/**
 	 * Will be null if workspace is closed (ie- batch compilation mode)
 	 */
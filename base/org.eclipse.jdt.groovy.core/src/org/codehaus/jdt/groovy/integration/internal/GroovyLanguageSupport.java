@@ -43,6 +43,7 @@ import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.core.util.GroovyUtils;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.eclipse.jdt.groovy.search.ITypeRequestor;
+import org.eclipse.jdt.groovy.search.InferredReferenceIndex;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
 import org.eclipse.jdt.groovy.search.TypeRequestorFactory;
@@ -189,8 +190,19 @@ public class GroovyLanguageSupport implements LanguageSupport {
 		if (possibleMatch.openable != null && possibleMatch.openable.exists()) {
 			ITypeRequestor typeRequestor = new TypeRequestorFactory().createRequestor(possibleMatch, pattern, requestor);
 			if (typeRequestor != null) {
+				InferredReferenceIndex index = InferredReferenceIndex.getInstance();
+				if (index.hasNoMatches(possibleMatch, pattern)) {
+					// an earlier search already inferenced this file and found nothing that could match
+					return true;
+				}
+				InferredReferenceIndex.Recorder recorder = index.createRecorder(possibleMatch, pattern, typeRequestor);
 				TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(possibleMatch);
-				visitor.visitCompilationUnit(typeRequestor);
+				if (recorder != null) {
+					visitor.visitCompilationUnit(recorder);
+					recorder.store();
+				} else {
+					visitor.visitCompilationUnit(typeRequestor);
+				}
 				return true;
 			}
 		}
@@ -18,6 +18,7 @@ import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.groovy.search.InferredReferenceIndex;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
 import org.eclipse.jdt.internal.compiler.IProblemFactory;
 import org.eclipse.jdt.internal.compiler.ISourceElementRequestor;
@@ -78,6 +79,9 @@ public class MultiplexingIndexingParser extends IndexingParser {
 
 			notifier.notifySourceElementRequestor(cud, 0, unit.getContents().length, groovyReportReferenceInfo, sourceEnds,
 			/* We don't care about the @category tag, so pass empty map */Collections.EMPTY_MAP);
+
+			// the references of the file are inferred once the indexer is done with it
+			InferredReferenceIndex.indexLater(new String(unit.getFileName()));
 			return cud;
 		} else {
 			return super.parseCompilationUnit(unit, fullParse, pm);
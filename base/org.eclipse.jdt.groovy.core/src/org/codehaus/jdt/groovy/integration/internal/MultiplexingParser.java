@@ -11,6 +11,9 @@
  *******************************************************************************/
 package org.codehaus.jdt.groovy.integration.internal;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser;
 import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
@@ -47,6 +50,17 @@ public class MultiplexingParser extends Parser {
 		}
 	}
 
+	@Override
+	public void prepareToParse(ICompilationUnit[] sourceUnits, int maxUnits) {
+		List<ICompilationUnit> groovyUnits = new ArrayList<ICompilationUnit>();
+		for (int i = 0; i < maxUnits; i++) {
+			if (ContentTypeUtils.isGroovyLikeFileName(sourceUnits[i].getFileName())) {
+				groovyUnits.add(sourceUnits[i]);
+			}
+		}
+		groovyParser.prepareToParse(groovyUnits.toArray(new ICompilationUnit[groovyUnits.size()]));
+	}
+
 	@Override
 	public void reset() {
 		groovyParser.reset();
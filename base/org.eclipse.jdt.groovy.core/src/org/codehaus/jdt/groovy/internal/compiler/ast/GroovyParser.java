@@ -22,9 +22,17 @@ import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.jar.JarFile;
 
 import org.apache.xbean.classloader.NonLockingJarFileClassLoader;
@@ -36,7 +44,6 @@ import org.codehaus.groovy.control.customizers.CompilationCustomizer;
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.ErrorCollector;
 import org.codehaus.groovy.control.Phases;
-import org.codehaus.groovy.control.SourceUnit;
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.jdt.groovy.control.EclipseSourceUnit;
@@ -82,33 +89,134 @@ public class GroovyParser {
 	private boolean allowTransforms;
 	private boolean isReconcile;
 
+	private static final int PARALLEL_PARSE_THREADS = Integer.getInteger("greclipse.parallelParse.threads", 1); //$NON-NLS-1$
+
+	// how many units may be parsed ahead of the unit being compiled, which bounds the parsed sources held in memory
+	private static final int PARSE_AHEAD_WINDOW = Integer.getInteger("greclipse.parallelParse.window", 2 * PARALLEL_PARSE_THREADS); //$NON-NLS-1$
+
+	// the units that are still to be asked for, in the order that the compiler will ask for them
+	private final LinkedList<ICompilationUnit> parseAheadOrder = new LinkedList<ICompilationUnit>();
+	private final Map<ICompilationUnit, Boolean> parseAheadUnits = new IdentityHashMap<ICompilationUnit, Boolean>();
+	// the units of parseAheadOrder that are being parsed, or were parsed and are waiting to be asked for
+	private final Map<ICompilationUnit, Future<ParsedSource>> parsedAhead = new IdentityHashMap<ICompilationUnit, Future<ParsedSource>>();
+	private ExecutorService parseAheadExecutor;
+
 	/*
 	 * Each project is allowed a GroovyClassLoader that will be used to load transform definitions and supporting classes. A cache
 	 * is maintained from project names to the current classpath and associated loader. If the classpath matches the cached version
-	 * on a call to build a parser then it is reused. If it does not match then a new loader is created and stored (storing it
-	 * orphans the previously cached one). When either a full build or a clean or project close occurs, we also discard the loader
-	 * instances associated with the project.
+	 * on a call to build a parser then it is reused. If it does not match then the loader for the new classpath is looked up.
+	 * Loaders are shared between projects: they are pooled by a fingerprint of the classpath entries (the normalized path of each
+	 * entry plus, for jars, their size and timestamp) and reference counted by the projects using them, so projects with the same
+	 * transform classpath load the transform jars only once. The fingerprint is checked on every lookup, so a jar that is rebuilt
+	 * at the same path gets a new loader. When either a full build or a clean occurs, the project lets go of its loader, and when
+	 * the project is closed the loader is also closed if no other project is using it.
 	 */
 
 	private static Map<String, PathLoaderPair> projectToLoaderCache = Collections
 			.synchronizedMap(new HashMap<String, PathLoaderPair>());
+	private static Map<String, SharedLoader> fingerprintToLoaderCache = new HashMap<String, SharedLoader>();
 	private static Map<String, ScriptFolderSelector> scriptFolderSelectorCache = Collections
 			.synchronizedMap(new HashMap<String, ScriptFolderSelector>());
 
 	static class PathLoaderPair {
 		String classpath;
 		GroovyClassLoader groovyClassLoader;
+		SharedLoader sharedLoader;
 
-		PathLoaderPair(String classpath) {
+		PathLoaderPair(String classpath, SharedLoader sharedLoader) {
 			this.classpath = classpath;
+			this.sharedLoader = sharedLoader;
+			this.groovyClassLoader = sharedLoader.groovyClassLoader;
+		}
+	}
+
+	/**
+	 * A transform loader and the number of projects that are using it
+	 */
+	static class SharedLoader {
+		final String fingerprint;
+		final GroovyClassLoader groovyClassLoader;
+		int refCount;
+
+		SharedLoader(String fingerprint, String classpath) {
+			this.fingerprint = fingerprint;
 			this.groovyClassLoader = new GroovyClassLoader(createConfigureLoader(classpath));
 		}
 	}
 
+	/**
+	 * @return the shared loader for the classpath, with its reference count incremented
+	 */
+	static SharedLoader acquireLoader(String classpath) {
+		return acquireLoader(classpath, fingerprint(classpath));
+	}
+
+	private static SharedLoader acquireLoader(String classpath, String fingerprint) {
+		synchronized (fingerprintToLoaderCache) {
+			SharedLoader sharedLoader = fingerprintToLoaderCache.get(fingerprint);
+			if (sharedLoader == null) {
+				if (GroovyLogManager.manager.hasLoggers()) {
+					GroovyLogManager.manager.log(TraceCategory.AST_TRANSFORM,
+							"Classpath for GroovyClassLoader (used to discover transforms): " + classpath);
+				}
+				sharedLoader = new SharedLoader(fingerprint, classpath);
+				fingerprintToLoaderCache.put(fingerprint, sharedLoader);
+			}
+			sharedLoader.refCount++;
+			return sharedLoader;
+		}
+	}
+
+	/**
+	 * Decrements the reference count of the loader and drops it from the pool once it is unused
+	 * 
+	 * @param close if true, an unused loader also has its jar files closed
+	 */
+	static void releaseLoader(SharedLoader sharedLoader, boolean close) {
+		synchronized (fingerprintToLoaderCache) {
+			if (--sharedLoader.refCount > 0) {
+				return;
+			}
+			if (fingerprintToLoaderCache.get(sharedLoader.fingerprint) == sharedLoader) {
+				fingerprintToLoaderCache.remove(sharedLoader.fingerprint);
+			}
+		}
+		if (close) {
+			close(sharedLoader.groovyClassLoader);
+			if (sharedLoader.groovyClassLoader.getParent() instanceof URLClassLoader) {
+				close((URLClassLoader) sharedLoader.groovyClassLoader.getParent());
+			}
+		}
+	}
+
+	/**
+	 * Entries are compared by their normalized path, and jars also by size and timestamp so that a rebuilt jar is not served from
+	 * a loader that was created before it changed. Folders are compared by path only.
+	 */
+	static String fingerprint(String classpath) {
+		StringBuilder sb = new StringBuilder();
+		List<String> seen = new ArrayList<String>();
+		StringTokenizer tokenizer = new StringTokenizer(classpath, File.pathSeparator);
+		while (tokenizer.hasMoreTokens()) {
+			File entry = new File(tokenizer.nextToken()).getAbsoluteFile();
+			String entryPath = entry.getPath();
+			if (seen.contains(entryPath)) {
+				continue;
+			}
+			seen.add(entryPath);
+			sb.append(entryPath);
+			if (entry.isFile()) {
+				sb.append('|').append(entry.length()).append('|').append(entry.lastModified());
+			}
+			sb.append(File.pathSeparatorChar);
+		}
+		return sb.toString();
+	}
+
 	/**
 	 * Close the jar files that have been kept open by the URLClassLoader
 	 */
-	public static void close(GroovyClassLoader groovyClassLoader) {
+	public static void close(URLClassLoader groovyClassLoader) {
 		// System.out.println("Running close for GCL " + groovyClassLoader);
 		try {
 			Class<?> clazz = java.net.URLClassLoader.class;
@@ -146,18 +254,36 @@ public class GroovyParser {
 	 * Remove all cached classloaders for this project
 	 */
 	public static void tidyCache(String projectName) {
-		// This will orphan the loader on the heap
-		projectToLoaderCache.remove(projectName);
+		// This will orphan the loader on the heap if no other project uses it
+		PathLoaderPair pathLoaderPair = projectToLoaderCache.remove(projectName);
+		if (pathLoaderPair != null) {
+			releaseLoader(pathLoaderPair.sharedLoader, false);
+		}
 		scriptFolderSelectorCache.remove(projectName);
 	}
 
 	public static void closeClassLoader(String projectName) {
-		PathLoaderPair pathLoaderPair = projectToLoaderCache.get(projectName);
+		PathLoaderPair pathLoaderPair = projectToLoaderCache.remove(projectName);
 		if (pathLoaderPair != null) {
-			close(pathLoaderPair.groovyClassLoader);
+			releaseLoader(pathLoaderPair.sharedLoader, true);
 		}
 	}
 
+	/**
+	 * Close the loaders of all projects, eg- between the compilations of a long lived batch compiler
+	 */
+	public static void tidyAllCaches() {
+		List<PathLoaderPair> pathLoaderPairs;
+		synchronized (projectToLoaderCache) {
+			pathLoaderPairs = new ArrayList<PathLoaderPair>(projectToLoaderCache.values());
+			projectToLoaderCache.clear();
+		}
+		for (PathLoaderPair pathLoaderPair : pathLoaderPairs) {
+			releaseLoader(pathLoaderPair.sharedLoader, true);
+		}
+		scriptFolderSelectorCache.clear();
+	}
+
 	// public GroovyParser(CompilerOptions options, ProblemReporter problemReporter) {
 	// this(null, options, problemReporter);
 	// }
@@ -214,24 +340,22 @@ public class GroovyParser {
 			if (projectName == null) {
 				// throw new IllegalStateException("Cannot build without knowing project name");
 			} else {
-				PathLoaderPair pathAndLoader = projectToLoaderCache.get(projectName);
-				if (pathAndLoader == null) {
-					if (GroovyLogManager.manager.hasLoggers()) {
-						GroovyLogManager.manager.log(TraceCategory.AST_TRANSFORM,
-								"Classpath for GroovyClassLoader (used to discover transforms): " + path);
-					}
-					pathAndLoader = new PathLoaderPair(path);
-					projectToLoaderCache.put(projectName, pathAndLoader);
-				} else {
-					if (!path.equals(pathAndLoader.classpath)) {
-						// classpath change detected
-						// System.out.println("Classpath change detected for " + projectName);
-						pathAndLoader = new PathLoaderPair(path);
-						projectToLoaderCache.put(projectName, pathAndLoader);
+				synchronized (projectToLoaderCache) {
+					PathLoaderPair pathAndLoader = projectToLoaderCache.get(projectName);
+					// a jar that was rebuilt in place keeps its path, so the entries are checked as well
+					String fingerprint = fingerprint(path);
+					if (pathAndLoader == null || !path.equals(pathAndLoader.classpath)
+							|| !fingerprint.equals(pathAndLoader.sharedLoader.fingerprint)) {
+						// new project, classpath change or changed jar detected
+						PathLoaderPair newPathAndLoader = new PathLoaderPair(path, acquireLoader(path, fingerprint));
+						projectToLoaderCache.put(projectName, newPathAndLoader);
+						if (pathAndLoader != null) {
+							releaseLoader(pathAndLoader.sharedLoader, false);
+						}
+						pathAndLoader = newPathAndLoader;
 					}
+					gcl = pathAndLoader.groovyClassLoader;
 				}
-				// System.out.println("Using loader with path " + pathAndLoader.classpath);
-				gcl = pathAndLoader.groovyClassLoader;
 			}
 		}
 		return gcl;
@@ -290,6 +414,19 @@ public class GroovyParser {
 		groovyCompilationUnit.setResolveVisitor(resolver);
 	}
 
+	/**
+	 * A source that was read and parsed ahead of its call to dietParse
+	 */
+	private static class ParsedSource {
+		final char[] sourceCode;
+		final EclipseSourceUnit sourceUnit;
+
+		ParsedSource(char[] sourceCode, EclipseSourceUnit sourceUnit) {
+			this.sourceCode = sourceCode;
+			this.sourceUnit = sourceUnit;
+		}
+	}
+
 	static class GrapeAwareGroovyClassLoader extends GroovyClassLoader {
 
 		// Could be prodded to indicate a grab has occurred within this compilation unit
@@ -395,14 +532,117 @@ public class GroovyParser {
 	}
 
 	/**
-	 * Call the groovy parser to drive the first few phases of
+	 * Starts parsing the given groovy units on worker threads, ahead of the calls to {@link #dietParse(ICompilationUnit, CompilationResult)}
+	 * for them. Only the per-source PARSING phase (reading the file and building the CST) runs in parallel, each unit into its own
+	 * SourceUnit. The later phases still run on the calling thread, one unit at a time, when the unit is added to the groovy
+	 * compilation unit. Only used for builds, and only if the 'greclipse.parallelParse.threads' system property is greater than 1.
+	 * At most 'greclipse.parallelParse.window' units (by default twice the number of threads) are parsed ahead of the unit that is
+	 * being compiled, and a parsed unit is let go of as soon as it is asked for or dropped.
 	 */
-	public CompilationUnitDeclaration dietParse(ICompilationUnit sourceUnit, CompilationResult compilationResult) {
+	public void prepareToParse(ICompilationUnit[] sourceUnits) {
+		if (isReconcile || PARALLEL_PARSE_THREADS <= 1 || sourceUnits.length < 2) {
+			return;
+		}
+		cancelParseAhead();
+		parseAheadExecutor = Executors.newFixedThreadPool(Math.min(PARALLEL_PARSE_THREADS, sourceUnits.length), new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Groovy parser"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		for (ICompilationUnit sourceUnit : sourceUnits) {
+			parseAheadOrder.add(sourceUnit);
+			parseAheadUnits.put(sourceUnit, Boolean.TRUE);
+		}
+		startParsingAhead();
+	}
+
+	/**
+	 * Starts parsing the next units that are not being parsed yet, as long as there is room in the window
+	 */
+	private void startParsingAhead() {
+		for (final ICompilationUnit sourceUnit : parseAheadOrder) {
+			if (parsedAhead.size() >= PARSE_AHEAD_WINDOW) {
+				break;
+			}
+			if (parsedAhead.containsKey(sourceUnit)) {
+				continue;
+			}
+			parsedAhead.put(sourceUnit, parseAheadExecutor.submit(new Callable<ParsedSource>() {
+				public ParsedSource call() {
+					try {
+						char[] sourceCode = getContents(sourceUnit);
+						EclipseSourceUnit groovySourceUnit = createSourceUnit(sourceUnit, sourceCode);
+						groovySourceUnit.parse();
+						groovySourceUnit.completePhase();
+						return new ParsedSource(sourceCode, groovySourceUnit);
+					} catch (Throwable t) {
+						// the unit is parsed again when it is added, so its problems are reported from there
+						return null;
+					}
+				}
+			}));
+		}
+	}
+
+	/**
+	 * @return the unit parsed by {@link #prepareToParse(ICompilationUnit[])}, or null if it was not parsed ahead or failed
+	 */
+	private ParsedSource takeParsedAhead(ICompilationUnit sourceUnit) {
+		if (parseAheadUnits.remove(sourceUnit) == null) {
+			return null;
+		}
+		// the compiler asks for the units in order, so the ones before this unit were dropped and are not asked for any more
+		ICompilationUnit next;
+		while ((next = parseAheadOrder.removeFirst()) != sourceUnit) {
+			parseAheadUnits.remove(next);
+			Future<ParsedSource> dropped = parsedAhead.remove(next);
+			if (dropped != null) {
+				dropped.cancel(true);
+			}
+		}
+		Future<ParsedSource> parsed = parsedAhead.remove(sourceUnit);
+		if (parseAheadOrder.isEmpty()) {
+			// lets the worker threads finish
+			parseAheadExecutor.shutdown();
+			parseAheadExecutor = null;
+		} else {
+			startParsingAhead();
+		}
+		if (parsed == null) {
+			// not started yet, so it is parsed on this thread
+			return null;
+		}
+		try {
+			return parsed.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			return null;
+		}
+	}
+
+	private void cancelParseAhead() {
+		if (parseAheadExecutor != null) {
+			parseAheadExecutor.shutdownNow();
+			parseAheadExecutor = null;
+		}
+		parseAheadOrder.clear();
+		parseAheadUnits.clear();
+		parsedAhead.clear();
+	}
+
+	private static char[] getContents(ICompilationUnit sourceUnit) {
 		char[] sourceCode = sourceUnit.getContents();
 		if (sourceCode == null) {
 			sourceCode = CharOperation.NO_CHAR; // pretend empty from thereon
 		}
+		return sourceCode;
+	}
 
+	private EclipseSourceUnit createSourceUnit(ICompilationUnit sourceUnit, char[] sourceCode) {
 		// groovyCompilerConfig.setPluginFactory(new ErrorRecoveredCSTParserPluginFactory(null));
 		ErrorCollector errorCollector = new GroovyErrorCollectorForJDT(groovyCompilationUnit.getConfiguration());
 		String filepath = null;
@@ -431,9 +671,27 @@ public class GroovyParser {
 			}
 		}
 
-		SourceUnit groovySourceUnit = new EclipseSourceUnit(eclipseFile, filepath, new String(sourceCode),
+		EclipseSourceUnit groovySourceUnit = new EclipseSourceUnit(eclipseFile, filepath, sourceCode,
 				groovyCompilationUnit.getConfiguration(), groovyCompilationUnit.getClassLoader(), errorCollector);
 		groovySourceUnit.isReconcile = isReconcile;
+		return groovySourceUnit;
+	}
+
+	/**
+	 * Call the groovy parser to drive the first few phases of
+	 */
+	public CompilationUnitDeclaration dietParse(ICompilationUnit sourceUnit, CompilationResult compilationResult) {
+		char[] sourceCode;
+		EclipseSourceUnit groovySourceUnit;
+		ParsedSource parsed = takeParsedAhead(sourceUnit);
+		if (parsed != null) {
+			sourceCode = parsed.sourceCode;
+			groovySourceUnit = parsed.sourceUnit;
+		} else {
+			sourceCode = getContents(sourceUnit);
+			groovySourceUnit = createSourceUnit(sourceUnit, sourceCode);
+		}
+		IFile eclipseFile = groovySourceUnit.getEclipseFile();
 		GroovyCompilationUnitDeclaration gcuDeclaration = new GroovyCompilationUnitDeclaration(problemReporter, compilationResult,
 				sourceCode.length, groovyCompilationUnit, groovySourceUnit, compilerOptions);
 		// FIXASC get this from the Antlr parser
@@ -530,6 +788,7 @@ public class GroovyParser {
 	}
 
 	public void reset() {
+		cancelParseAhead();
 		GroovyClassLoader gcl = getLoaderFor(gclClasspath);
 		GrapeAwareGroovyClassLoader grabbyLoader = new GrapeAwareGroovyClassLoader(gcl);
 		boolean allowTransforms = this.groovyCompilationUnit.allowTransforms;
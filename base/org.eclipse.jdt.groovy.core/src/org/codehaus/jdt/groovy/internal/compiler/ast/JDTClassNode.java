@@ -12,11 +12,16 @@
 package org.codehaus.jdt.groovy.internal.compiler.ast;
 
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.codehaus.groovy.GroovyBugError;
+import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.AnnotationNode;
 import org.codehaus.groovy.ast.ClassHelper;
 import org.codehaus.groovy.ast.ClassNode;
@@ -46,6 +51,7 @@ import org.eclipse.jdt.internal.compiler.impl.ShortConstant;
 import org.eclipse.jdt.internal.compiler.impl.StringConstant;
 import org.eclipse.jdt.internal.compiler.lookup.AnnotationBinding;
 import org.eclipse.jdt.internal.compiler.lookup.ArrayBinding;
+import org.eclipse.jdt.internal.compiler.lookup.Binding;
 import org.eclipse.jdt.internal.compiler.lookup.BinaryTypeBinding;
 import org.eclipse.jdt.internal.compiler.lookup.ClassScope;
 import org.eclipse.jdt.internal.compiler.lookup.CompilationUnitScope;
@@ -66,6 +72,11 @@ import org.eclipse.jdt.internal.compiler.lookup.TypeVariableBinding;
  * Groovy can use these to ask questions of JDT bindings. They are only built as required (as groovy references to java files are
  * resolved). They remain uninitialized until groovy starts digging into them - at that time the details are filled in (eg.
  * members).
+ * <p>
+ * The methods and fields of a binary type are turned into nodes one name at a time, as groovy asks for them through
+ * {@link #getDeclaredMethods(String)} or {@link #getDeclaredField(String)}, since groovy often needs only a few members of large
+ * types such as DefaultGroovyMethods. Asking for all of them (eg- {@link #getMethods()}) initializes the rest, reusing the nodes
+ * that were already created.
  * 
  * @author Andy Clement
  */
@@ -93,6 +104,19 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 	private static final int PROPERTIES_INITIALIZED = 0x0002;
 	private TypeDeclaration groovyDecl = null;
 
+	// Members of binary types are initialized separately from the type hierarchy, see ensureMembersInitialized()
+	private final Object membersLock = new Object();
+	private volatile boolean membersInitialized = false;
+	private boolean membersBeingInitialized = false;
+
+	// Nodes created for single names before the members are initialized, read without locking
+	private volatile Map<String, List<MethodNode>> methodsByName;
+	private volatile Map<String, FieldNode> fieldsByName;
+
+	// The bindings that nodes have been created for, so that initializing all the members can reuse the nodes. Guarded by
+	// membersLock.
+	private Map<Binding, ASTNode> nodesByBinding;
+
 	static final ClassNode unboundWildcard; // represents plain old '?'
 
 	static final GenericsType genericsTypeUnboundWildcard;
@@ -224,7 +248,10 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 				interfaces[i] = resolver.convertToClassNode(superInterfaceBindings[i]);
 			}
 			setInterfaces(interfaces);
-			initializeMembers();
+			if (!hasLazyMembers()) {
+				// members of binary types are only initialized when they are asked for
+				initializeMembers();
+			}
 		} finally {
 			beingInitialized = false;
 		}
@@ -253,7 +280,7 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 					ConstructorNode cNode = constructorBindingToConstructorNode(bindings[i]);
 					addConstructor(cNode);
 				} else {
-					MethodNode mNode = methodBindingToMethodNode(bindings[i]);
+					MethodNode mNode = methodNodeFor(bindings[i]);
 					addMethod(mNode);
 				}
 			}
@@ -265,7 +292,7 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 					ConstructorNode cNode = constructorBindingToConstructorNode(infraBindings[i]);
 					addConstructor(cNode);
 				} else {
-					MethodNode mNode = methodBindingToMethodNode(infraBindings[i]);
+					MethodNode mNode = methodNodeFor(infraBindings[i]);
 					addMethod(mNode);
 				}
 			}
@@ -304,12 +331,188 @@ public class JDTClassNode extends ClassNode implements JDTNode {
 		}
 		if (fieldBindings != null) {
 			for (int i = 0; i < fieldBindings.length; i++) {
-				FieldNode fNode = fieldBindingToFieldNode(fieldBindings[i], groovyDecl);
+				FieldNode fNode = fieldNodeFor(fieldBindings[i]);
 				addField(fNode);
 			}
 		}
 	}
 
+	/**
+	 * @return true if the methods and fields of this node are turned into nodes only when they are asked for
+	 */
+	private boolean hasLazyMembers() {
+		return jdtBinding instanceof BinaryTypeBinding && redirect == null;
+	}
+
+	/**
+	 * Creates the nodes for all members of a binary type. Other types have their members created by {@link #lazyClassInit()}.
+	 */
+	private void ensureMembersInitialized() {
+		if (membersInitialized || !hasLazyMembers()) {
+			return;
+		}
+		synchronized (membersLock) {
+			if (membersInitialized || membersBeingInitialized) {
+				return;
+			}
+			try {
+				membersBeingInitialized = true;
+				initializeMembers();
+				membersInitialized = true;
+				// from now on the members are found through the super class
+				methodsByName = null;
+				fieldsByName = null;
+				nodesByBinding = null;
+			} finally {
+				membersBeingInitialized = false;
+			}
+		}
+	}
+
+	@Override
+	public List<MethodNode> getMethods() {
+		ensureMembersInitialized();
+		return super.getMethods();
+	}
+
+	@Override
+	public List<ConstructorNode> getDeclaredConstructors() {
+		ensureMembersInitialized();
+		return super.getDeclaredConstructors();
+	}
+
+	@Override
+	public List<FieldNode> getFields() {
+		ensureMembersInitialized();
+		return super.getFields();
+	}
+
+	@Override
+	public List<MethodNode> getDeclaredMethods(String name) {
+		if (!membersInitialized && hasLazyMembers()) {
+			Map<String, List<MethodNode>> known = methodsByName;
+			List<MethodNode> methods = (known == null ? null : known.get(name));
+			if (methods == null) {
+				synchronized (membersLock) {
+					if (!membersInitialized) {
+						methods = createMethodNodes(name);
+					}
+				}
+			}
+			if (methods != null) {
+				return methods;
+			}
+		}
+		return super.getDeclaredMethods(name);
+	}
+
+	@Override
+	public FieldNode getDeclaredField(String name) {
+		if (!membersInitialized && hasLazyMembers()) {
+			Map<String, FieldNode> known = fieldsByName;
+			FieldNode field = (known == null ? null : known.get(name));
+			if (field != null) {
+				return field;
+			}
+			synchronized (membersLock) {
+				if (!membersInitialized) {
+					return createFieldNode(name);
+				}
+			}
+		}
+		return super.getDeclaredField(name);
+	}
+
+	/**
+	 * Creates the nodes for the methods of a binary type with the given name, in the order that they have after a full
+	 * initialization. Called with membersLock held.
+	 */
+	private List<MethodNode> createMethodNodes(String name) {
+		if (methodsByName == null) {
+			methodsByName = new ConcurrentHashMap<String, List<MethodNode>>();
+		}
+		List<MethodNode> methods = methodsByName.get(name);
+		if (methods == null) {
+			BinaryTypeBinding binaryBinding = (BinaryTypeBinding) jdtBinding;
+			char[] selector = name.toCharArray();
+			methods = new ArrayList<MethodNode>(2);
+			for (MethodBinding methodBinding : binaryBinding.getMethods(selector)) {
+				if (!methodBinding.isConstructor()) {
+					methods.add(methodNodeFor(methodBinding));
+				}
+			}
+			for (MethodBinding methodBinding : binaryBinding.infraMethods()) {
+				if (!methodBinding.isConstructor() && CharOperation.equals(selector, methodBinding.selector)) {
+					methods.add(methodNodeFor(methodBinding));
+				}
+			}
+			methodsByName.put(name, methods);
+		}
+		return methods;
+	}
+
+	/**
+	 * Creates the node for the field of a binary type with the given name. Called with membersLock held.
+	 * 
+	 * @return the field node, or null if there is no such field
+	 */
+	private FieldNode createFieldNode(String name) {
+		if (fieldsByName == null) {
+			fieldsByName = new ConcurrentHashMap<String, FieldNode>();
+		}
+		FieldNode field = fieldsByName.get(name);
+		if (field == null) {
+			FieldBinding fieldBinding = jdtBinding.getField(name.toCharArray(), true);
+			if (fieldBinding != null) {
+				field = fieldNodeFor(fieldBinding);
+				fieldsByName.put(name, field);
+			}
+		}
+		return field;
+	}
+
+	/**
+	 * @return the node for the method binding, which is only created if it does not exist yet
+	 */
+	private MethodNode methodNodeFor(MethodBinding methodBinding) {
+		MethodNode mNode = (nodesByBinding == null ? null : (MethodNode) nodesByBinding.get(methodBinding));
+		if (mNode == null) {
+			mNode = methodBindingToMethodNode(methodBinding);
+			rememberNode(methodBinding, mNode);
+		}
+		return mNode;
+	}
+
+	/**
+	 * @return the node for the field binding, which is only created if it does not exist yet
+	 */
+	private FieldNode fieldNodeFor(FieldBinding fieldBinding) {
+		FieldNode fNode = (nodesByBinding == null ? null : (FieldNode) nodesByBinding.get(fieldBinding));
+		if (fNode == null) {
+			fNode = fieldBindingToFieldNode(fieldBinding, groovyDecl);
+			rememberNode(fieldBinding, fNode);
+		}
+		return fNode;
+	}
+
+	private void rememberNode(Binding binding, ASTNode node) {
+		if (!hasLazyMembers() || membersBeingInitialized) {
+			// nothing can ask for the node again
+			return;
+		}
+		if (nodesByBinding == null) {
+			nodesByBinding = new IdentityHashMap<Binding, ASTNode>();
+		}
+		nodesByBinding.put(binding, node);
+	}
+
+	/**
+	 * @return true if the nodes for all members of a binary type have been created, rather than only those asked for by name
+	 */
+	public boolean isMembersInitialized() {
+		return membersInitialized;
+	}
+
 	@Override
 	public boolean mightHaveInners() {
 		// return super.hasInnerClasses();
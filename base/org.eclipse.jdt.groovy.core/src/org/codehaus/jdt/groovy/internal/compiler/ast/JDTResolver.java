@@ -13,6 +13,9 @@ package org.codehaus.jdt.groovy.internal.compiler.ast;
 
 import groovy.lang.GroovyClassLoader;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -104,6 +107,23 @@ public class JDTResolver extends ResolveVisitor {
 	// Cache from bindings to JDTClassNodes to avoid unnecessary JDTClassNode creation
 	private Map<Binding, JDTClassNode> nodeCache = Collections.synchronizedMap(new WeakHashMap<Binding, JDTClassNode>());
 
+	// Secondary index over nodeCache keyed by the readable name of the binding (e.g. java.lang.Comparable<E>). Values are weak so
+	// that an entry never keeps a JDTClassNode alive longer than nodeCache would; cleared entries are expunged through the queue.
+	private Map<String, NamedNodeReference> nameCache = new HashMap<String, NamedNodeReference>();
+	private ReferenceQueue<JDTClassNode> nameCacheQueue = new ReferenceQueue<JDTClassNode>();
+
+	private int nameCacheHits = 0;
+	private int nameCacheMisses = 0;
+
+	private static class NamedNodeReference extends WeakReference<JDTClassNode> {
+		final String name;
+
+		NamedNodeReference(String name, JDTClassNode node, ReferenceQueue<JDTClassNode> queue) {
+			super(node, queue);
+			this.name = name;
+		}
+	}
+
 	public JDTResolver(CompilationUnit groovyCompilationUnit) {
 		super(groovyCompilationUnit);
 		if (recordInstances) {
@@ -115,28 +135,80 @@ public class JDTResolver extends ResolveVisitor {
 	}
 
 	public static JDTClassNode getCachedNode(JDTResolver instance, String name) {
-		for (Map.Entry<Binding, JDTClassNode> nodeFromCache : instance.nodeCache.entrySet()) {
-			String nodename = new String(nodeFromCache.getKey().readableName());
-			if (nodename.equals(name)) {
-				return nodeFromCache.getValue();
-			}
-		}
-		return null;
+		return instance.getCachedNodeByName(name);
 	}
 
 	public static JDTClassNode getCachedNode(String name) {
 		for (JDTResolver resolver : instances) {
-			for (Map.Entry<Binding, JDTClassNode> nodeFromCache : resolver.nodeCache.entrySet()) {
-				String nodename = new String(nodeFromCache.getKey().readableName());
-				System.out.println(nodename);
-				if (nodename.equals(name)) {
-					return nodeFromCache.getValue();
-				}
+			JDTClassNode node = resolver.getCachedNodeByName(name);
+			if (node != null) {
+				return node;
 			}
 		}
 		return null;
 	}
 
+	/**
+	 * Find a previously built JDTClassNode by the readable name of its binding, without walking the binding cache.
+	 * 
+	 * @param name the readable name of the binding, for example java.lang.Comparable&lt;E&gt;
+	 * @return the cached node or null if no live node is known by that name
+	 */
+	public JDTClassNode getCachedNodeByName(String name) {
+		synchronized (nameCache) {
+			expungeStaleNames();
+			NamedNodeReference ref = nameCache.get(name);
+			JDTClassNode node = (ref == null ? null : ref.get());
+			if (node != null) {
+				nameCacheHits += 1;
+			} else {
+				nameCacheMisses += 1;
+			}
+			return node;
+		}
+	}
+
+	/**
+	 * @return number of {@link #getCachedNodeByName(String)} calls that found a node
+	 */
+	public int getCachedNodeHits() {
+		synchronized (nameCache) {
+			return nameCacheHits;
+		}
+	}
+
+	/**
+	 * @return number of {@link #getCachedNodeByName(String)} calls that did not find a node
+	 */
+	public int getCachedNodeMisses() {
+		synchronized (nameCache) {
+			return nameCacheMisses;
+		}
+	}
+
+	private void cacheNode(TypeBinding jdtBinding, JDTClassNode jdtNode) {
+		nodeCache.put(jdtBinding, jdtNode);
+		String name = new String(jdtBinding.readableName());
+		synchronized (nameCache) {
+			expungeStaleNames();
+			nameCache.put(name, new NamedNodeReference(name, jdtNode, nameCacheQueue));
+		}
+	}
+
+	/**
+	 * Remove the name entries whose nodes have been collected. Caller must hold the nameCache lock.
+	 */
+	private void expungeStaleNames() {
+		Reference<? extends JDTClassNode> ref;
+		while ((ref = nameCacheQueue.poll()) != null) {
+			NamedNodeReference stale = (NamedNodeReference) ref;
+			// only remove the mapping if it has not since been replaced by a live node of the same name
+			if (nameCache.get(stale.name) == stale) {
+				nameCache.remove(stale.name);
+			}
+		}
+	}
+
 	/**
 	 * resolveFromModule() - look at other types in the same source file (no need to talk to JDT)
 	 */
@@ -478,7 +550,7 @@ public class JDTResolver extends ResolveVisitor {
 			inProgress.put(jdtBinding, jdtNode);
 			jdtNode.setupGenerics(); // for a binarytypebinding this fixes up those generics.
 			inProgress.remove(jdtBinding);
-			nodeCache.put(jdtBinding, jdtNode);
+			cacheNode(jdtBinding, jdtNode);
 		}
 		return classNode;
 	}
@@ -514,6 +586,9 @@ public class JDTResolver extends ResolveVisitor {
 			throw geb;
 		}
 		activeScope = (GroovyCompilationUnitScope) gtDeclaration.scope.compilationUnitScope();
+		synchronized (nameCache) {
+			expungeStaleNames();
+		}
 		if (debug) {
 			System.err.println("Resolver: commencing resolution for " + this.currentClass.getName());
 		}
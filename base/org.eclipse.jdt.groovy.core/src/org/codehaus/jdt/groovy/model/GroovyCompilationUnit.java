@@ -126,7 +126,13 @@ public class GroovyCompilationUnit extends CompilationUnit {
 				}
 				PerWorkingCopyInfo info = getPerWorkingCopyInfo();
 				if (info != null) {
-					return ModuleNodeMapper.getInstance().get(info);
+					ModuleNodeInfo moduleInfo = ModuleNodeMapper.getInstance().get(info);
+					if (moduleInfo == null && ModuleNodeMapper.getInstance().isEvicted(info)) {
+						// module node was dropped to keep the cache within budget, so rebuild it
+						openWhenClosed(createElementInfo(), false, new NullProgressMonitor());
+						moduleInfo = ModuleNodeMapper.getInstance().get(info);
+					}
+					return moduleInfo;
 				}
 			} finally {
 				try {
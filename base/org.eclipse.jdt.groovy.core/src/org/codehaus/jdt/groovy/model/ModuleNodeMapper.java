@@ -12,19 +12,20 @@
 package org.codehaus.jdt.groovy.model;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.jdt.groovy.internal.compiler.ast.GroovyCompilationUnitDeclaration;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
-import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
 import org.eclipse.jdt.internal.core.JavaModelManager;
 import org.eclipse.jdt.internal.core.JavaModelManager.PerWorkingCopyInfo;
@@ -36,20 +37,43 @@ import org.eclipse.jdt.internal.core.util.Util;
  * 
  *          This class stores module nodes for groovy compilation units This class is not meant to be accessed externally.
  * 
- *          One module node is stored per working copy of a unit
+ *          One module node is stored per working copy of a unit. The number of stored module nodes and the total size of the
+ *          source they were built from are bounded (see {@link #MAX_ENTRIES} and {@link #MAX_SOURCE_CHARS}); the least recently
+ *          used module nodes are evicted first and are rebuilt on demand by {@link GroovyCompilationUnit#getModuleInfo(boolean)}.
  */
 public class ModuleNodeMapper {
 
 	public static class ModuleNodeInfo {
 		public ModuleNodeInfo(ModuleNode module, JDTResolver resolver) {
+			this(module, resolver, 0);
+		}
+
+		ModuleNodeInfo(ModuleNode module, JDTResolver resolver, int sourceLength) {
 			this.module = module;
 			this.resolver = resolver;
+			this.sourceLength = sourceLength;
 		}
 
 		public final ModuleNode module;
 		public final JDTResolver resolver;
+
+		/**
+		 * length of the source the module was built from, used as an estimate of the memory retained by this entry
+		 */
+		final int sourceLength;
 	}
 
+	/**
+	 * maximum number of module nodes kept before the least recently used ones are evicted
+	 */
+	static final int MAX_ENTRIES = Integer.getInteger("greclipse.moduleNodeCache.maxEntries", 50).intValue();
+
+	/**
+	 * maximum number of source characters (summed over all cached module nodes) kept before the least recently used ones are
+	 * evicted
+	 */
+	static final long MAX_SOURCE_CHARS = Long.getLong("greclipse.moduleNodeCache.maxSourceChars", 20000000L).longValue();
+
 	private static final ModuleNodeMapper INSTANCE = new ModuleNodeMapper();
 
 	static ModuleNodeMapper getInstance() {
@@ -58,13 +82,32 @@ public class ModuleNodeMapper {
 
 	private final ReentrantLock lock = new ReentrantLock(true);
 
-	private final Map<PerWorkingCopyInfo, ModuleNodeInfo> infoToModuleMap = new HashMap<PerWorkingCopyInfo, ModuleNodeInfo>();
+	// access ordered, so iteration starts with the least recently used entry
+	private final LinkedHashMap<PerWorkingCopyInfo, ModuleNodeInfo> infoToModuleMap = new LinkedHashMap<PerWorkingCopyInfo, ModuleNodeInfo>(
+			16, 0.75f, true);
+
+	// module nodes produced while another thread held the lock; folded into infoToModuleMap by the next lock holder
+	private final Map<PerWorkingCopyInfo, ModuleNodeInfo> pendingStores = new ConcurrentHashMap<PerWorkingCopyInfo, ModuleNodeInfo>();
+
+	// working copies whose module node was evicted and so must be rebuilt rather than treated as missing
+	private final Set<PerWorkingCopyInfo> evicted = new HashSet<PerWorkingCopyInfo>();
+
+	private long retainedSourceChars = 0;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
 
 	void store(PerWorkingCopyInfo info, ModuleNode module, JDTResolver resolver) {
+		store(info, new ModuleNodeInfo(module, shouldStoreResovler() ? resolver : null));
+	}
+
+	private void store(PerWorkingCopyInfo info, ModuleNodeInfo moduleNodeInfo) {
 		lock.lock();
 		try {
 			sweepAndPurgeModuleNodes();
-			infoToModuleMap.put(info, new ModuleNodeInfo(module, shouldStoreResovler() ? resolver : null));
+			drainPendingStores();
+			put(info, moduleNodeInfo);
 		} finally {
 			lock.unlock();
 		}
@@ -99,7 +142,14 @@ public class ModuleNodeMapper {
 		lock.lock();
 		try {
 			sweepAndPurgeModuleNodes();
-			return infoToModuleMap.get(info);
+			drainPendingStores();
+			ModuleNodeInfo moduleNodeInfo = infoToModuleMap.get(info);
+			if (moduleNodeInfo != null) {
+				hits.incrementAndGet();
+			} else {
+				misses.incrementAndGet();
+			}
+			return moduleNodeInfo;
 		} finally {
 			lock.unlock();
 		}
@@ -119,13 +169,32 @@ public class ModuleNodeMapper {
 		lock.lock();
 		try {
 			sweepAndPurgeModuleNodes();
+			drainPendingStores();
+			evicted.remove(info);
 			ModuleNodeInfo removed = infoToModuleMap.remove(info);
+			if (removed != null) {
+				retainedSourceChars -= removed.sourceLength;
+			}
 			return removed != null ? removed.module : null;
 		} finally {
 			lock.unlock();
 		}
 	}
 
+	/**
+	 * @return true if the module node for this working copy was dropped to keep the cache within its budget and has not been
+	 *         stored again since. Callers should rebuild the module node rather than treat it as unavailable.
+	 */
+	boolean isEvicted(PerWorkingCopyInfo info) {
+		lock.lock();
+		try {
+			drainPendingStores();
+			return evicted.contains(info);
+		} finally {
+			lock.unlock();
+		}
+	}
+
 	/**
 	 * Cache the module node if this is a working copy
 	 * 
@@ -135,39 +204,122 @@ public class ModuleNodeMapper {
 	protected void maybeCacheModuleNode(final JavaModelManager.PerWorkingCopyInfo perWorkingCopyInfo,
 			final GroovyCompilationUnitDeclaration compilationUnitDeclaration) {
 
-		if (lock.tryLock()) {
-			try {
-				if (perWorkingCopyInfo != null && compilationUnitDeclaration != null) {
-					ModuleNode module = compilationUnitDeclaration.getModuleNode();
-
-					// Store it for later
-					if (module != null) {
-						JDTResolver resolver;
-						if (shouldStoreResovler()) {
-							resolver = (JDTResolver) compilationUnitDeclaration.getCompilationUnit().getResolveVisitor();
-						} else {
-							resolver = null;
+		if (perWorkingCopyInfo != null && compilationUnitDeclaration != null) {
+			ModuleNode module = compilationUnitDeclaration.getModuleNode();
+
+			// Store it for later
+			if (module != null) {
+				JDTResolver resolver;
+				if (shouldStoreResovler()) {
+					resolver = (JDTResolver) compilationUnitDeclaration.getCompilationUnit().getResolveVisitor();
+				} else {
+					resolver = null;
+				}
+				ModuleNodeInfo moduleNodeInfo = new ModuleNodeInfo(module, resolver, compilationUnitDeclaration.sourceEnd + 1);
+				if (lock.tryLock()) {
+					try {
+						store(perWorkingCopyInfo, moduleNodeInfo);
+					} finally {
+						lock.unlock();
+					}
+				} else {
+					// lock grabbed by someone else. leave it for the current lock holder (or the next one) to store
+					pendingStores.put(perWorkingCopyInfo, moduleNodeInfo);
+					if (lock.tryLock()) {
+						// the holder may have released the lock before seeing the pending store
+						try {
+							drainPendingStores();
+						} finally {
+							lock.unlock();
 						}
-						store(perWorkingCopyInfo, module, resolver);
 					}
 				}
-			} finally {
-				lock.unlock();
 			}
-		} else {
-			// lock grabbed by someone else. rerun this operation later
-			new Job("Cache module node") {
-				@Override
-				protected IStatus run(IProgressMonitor monitor) {
-					maybeCacheModuleNode(perWorkingCopyInfo, compilationUnitDeclaration);
-					return Status.OK_STATUS;
-				}
-			}.schedule();
+		}
+	}
+
+	/**
+	 * Must be called while holding the lock
+	 */
+	private void put(PerWorkingCopyInfo info, ModuleNodeInfo moduleNodeInfo) {
+		evicted.remove(info);
+		ModuleNodeInfo previous = infoToModuleMap.put(info, moduleNodeInfo);
+		if (previous != null) {
+			retainedSourceChars -= previous.sourceLength;
+		}
+		retainedSourceChars += moduleNodeInfo.sourceLength;
+		evictIfNecessary(info);
+	}
+
+	/**
+	 * Must be called while holding the lock
+	 */
+	private void drainPendingStores() {
+		if (!pendingStores.isEmpty()) {
+			for (Iterator<Map.Entry<PerWorkingCopyInfo, ModuleNodeInfo>> iter = pendingStores.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry<PerWorkingCopyInfo, ModuleNodeInfo> entry = iter.next();
+				iter.remove();
+				put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Evict least recently used entries until the cache is within its budget. The entry that was just stored is never evicted.
+	 * Must be called while holding the lock
+	 */
+	private void evictIfNecessary(PerWorkingCopyInfo justStored) {
+		if (infoToModuleMap.size() <= MAX_ENTRIES && retainedSourceChars <= MAX_SOURCE_CHARS) {
+			return;
+		}
+		for (Iterator<Map.Entry<PerWorkingCopyInfo, ModuleNodeInfo>> iter = infoToModuleMap.entrySet().iterator(); iter.hasNext()
+				&& (infoToModuleMap.size() > MAX_ENTRIES || retainedSourceChars > MAX_SOURCE_CHARS);) {
+			Map.Entry<PerWorkingCopyInfo, ModuleNodeInfo> entry = iter.next();
+			if (entry.getKey() == justStored) {
+				continue;
+			}
+			iter.remove();
+			retainedSourceChars -= entry.getValue().sourceLength;
+			evicted.add(entry.getKey());
+			evictions.incrementAndGet();
 		}
 	}
 
 	public static boolean isEmpty() {
-		return INSTANCE.infoToModuleMap.isEmpty();
+		return INSTANCE.infoToModuleMap.isEmpty() && INSTANCE.pendingStores.isEmpty();
+	}
+
+	/**
+	 * @return number of lookups that found a cached module node
+	 */
+	public static long getHitCount() {
+		return INSTANCE.hits.get();
+	}
+
+	/**
+	 * @return number of lookups that did not find a cached module node
+	 */
+	public static long getMissCount() {
+		return INSTANCE.misses.get();
+	}
+
+	/**
+	 * @return number of module nodes dropped to keep the cache within its budget
+	 */
+	public static long getEvictionCount() {
+		return INSTANCE.evictions.get();
+	}
+
+	/**
+	 * @return number of source characters the currently cached module nodes were built from
+	 */
+	public static long getRetainedSourceChars() {
+		INSTANCE.lock.lock();
+		try {
+			return INSTANCE.retainedSourceChars;
+		} finally {
+			INSTANCE.lock.unlock();
+		}
 	}
 
 	// GRECLIPSE-804 check to see that the stored nodes are correct
@@ -194,7 +346,8 @@ public class ModuleNodeMapper {
 
 			if (toPurge.size() > 0) {
 				for (PerWorkingCopyInfo info : toPurge) {
-					infoToModuleMap.remove(info);
+					ModuleNodeInfo removed = infoToModuleMap.remove(info);
+					retainedSourceChars -= removed.sourceLength;
 				}
 			}
 		} finally {
@@ -209,4 +362,4 @@ public class ModuleNodeMapper {
 	public void unlock() {
 		lock.unlock();
 	}
-}
\ No newline at end of file
+}
@@ -21,6 +21,7 @@ import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.IScopeContext;
 import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.eclipse.jdt.groovy.search.InferredReferenceIndex;
 import org.eclipse.jdt.internal.core.util.Util;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.prefs.BackingStoreException;
@@ -58,6 +59,7 @@ public class Activator extends Plugin {
 	}
 
 	public void stop(BundleContext context) throws Exception {
+		InferredReferenceIndex.shutdown();
 		plugin = null;
 		super.stop(context);
 	}
@@ -56,6 +56,18 @@ public class GroovyScanner {
 		this(new StringReader(text), false);
 	}
 
+	/**
+	 * Scans input that does not start at the beginning of the text, eg- to rescan the changed part of a document.
+	 * 
+	 * @param line antlr style line number where the input starts (starts at 1)
+	 * @param col antlr style col number where the input starts (starts at 1)
+	 */
+	public GroovyScanner(Reader input, int line, int col) {
+		this(input, false);
+		lexer.setLine(line);
+		lexer.setColumn(col);
+	}
+
 	public Token nextToken() throws TokenStreamException {
 		return stream.nextToken();
 	}
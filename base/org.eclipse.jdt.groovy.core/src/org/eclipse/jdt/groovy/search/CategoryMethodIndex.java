@@ -0,0 +1,160 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+
+/**
+ * An immutable index of the methods of a category class, keyed by the names under which they can be referenced. A category
+ * method is filed under its own name and, if it is a static getter or setter, also under the property names that refer to it.
+ * <p>
+ * Indexes for the default categories ({@link VariableScope#ALL_DEFAULT_CATEGORIES}) are built once per Groovy runtime and
+ * shared by all lookups.
+ */
+public class CategoryMethodIndex {
+
+	private static final MethodNode[] NO_METHODS = new MethodNode[0];
+
+	private static final Map<ClassNode, CategoryMethodIndex> DEFAULT_INDEXES = new IdentityHashMap<ClassNode, CategoryMethodIndex>();
+
+	/**
+	 * @return the shared index for the given category, or null if it is not one of the default categories
+	 */
+	public static CategoryMethodIndex getDefaultIndex(ClassNode category) {
+		if (!VariableScope.ALL_DEFAULT_CATEGORIES.contains(category)) {
+			return null;
+		}
+		synchronized (DEFAULT_INDEXES) {
+			CategoryMethodIndex index = DEFAULT_INDEXES.get(category);
+			if (index == null) {
+				index = new CategoryMethodIndex(category);
+				DEFAULT_INDEXES.put(category, index);
+			}
+			return index;
+		}
+	}
+
+	private final ClassNode category;
+
+	private final Map<String, MethodNode[]> byReferenceName;
+
+	public CategoryMethodIndex(ClassNode category) {
+		this.category = category;
+		Map<String, List<MethodNode>> byName = new LinkedHashMap<String, List<MethodNode>>();
+		Map<String, List<MethodNode>> byGetterAlias = new HashMap<String, List<MethodNode>>();
+		Map<String, List<MethodNode>> bySetterAlias = new HashMap<String, List<MethodNode>>();
+		// walk the super classes too, as ClassNode.getMethods(String) does; e.g. DefaultGroovyMethods inherits
+		// static methods from DefaultGroovyMethodsSupport
+		for (ClassNode type = category; type != null; type = type.getSuperClass()) {
+			for (MethodNode method : type.getMethods()) {
+				String name = method.getName();
+				file(byName, name, method);
+				if (method.isStatic()) {
+					AccessorSupport kind = AccessorSupport.findAccessorKind(method, true);
+					if (kind == AccessorSupport.GETTER) {
+						fileAliases(byGetterAlias, name, method);
+					} else if (kind == AccessorSupport.SETTER) {
+						fileAliases(bySetterAlias, name, method);
+					}
+				}
+			}
+		}
+
+		// a reference to a name finds the methods of that name first, then getters, then setters
+		byReferenceName = new HashMap<String, MethodNode[]>(byName.size() * 2);
+		List<String> allNames = new ArrayList<String>(byName.keySet());
+		allNames.addAll(byGetterAlias.keySet());
+		allNames.addAll(bySetterAlias.keySet());
+		for (String name : allNames) {
+			if (byReferenceName.containsKey(name)) {
+				continue;
+			}
+			List<MethodNode> methods = new ArrayList<MethodNode>();
+			addAll(methods, byName.get(name));
+			addAll(methods, byGetterAlias.get(name));
+			addAll(methods, bySetterAlias.get(name));
+			byReferenceName.put(name, methods.toArray(new MethodNode[methods.size()]));
+		}
+	}
+
+	public ClassNode getCategory() {
+		return category;
+	}
+
+	/**
+	 * @param name a method or property name as written in source
+	 * @return all methods of the category that the name may refer to, in lookup order. Must not be modified.
+	 */
+	public MethodNode[] getMethods(String name) {
+		MethodNode[] methods = byReferenceName.get(name);
+		return methods == null ? NO_METHODS : methods;
+	}
+
+	/**
+	 * Adds all methods of the category that the name may refer to, in lookup order
+	 */
+	public void addMethods(String name, Collection<MethodNode> result) {
+		for (MethodNode method : getMethods(name)) {
+			result.add(method);
+		}
+	}
+
+	private static void file(Map<String, List<MethodNode>> map, String name, MethodNode method) {
+		List<MethodNode> methods = map.get(name);
+		if (methods == null) {
+			methods = new ArrayList<MethodNode>(2);
+			map.put(name, methods);
+		}
+		methods.add(method);
+	}
+
+	/**
+	 * Files an accessor under each property name that {@link AccessorSupport#createAccessorName(String)} turns into the
+	 * accessor's name. The accessor kind guarantees the name has a prefix followed by an upper case letter.
+	 */
+	private static void fileAliases(Map<String, List<MethodNode>> map, String accessorName, MethodNode method) {
+		String capitalized = accessorName.substring(3);
+		String decapitalized = Character.toLowerCase(capitalized.charAt(0)) + capitalized.substring(1);
+		if (isAliasable(capitalized)) {
+			file(map, capitalized, method);
+		}
+		if (!decapitalized.equals(capitalized) && isAliasable(decapitalized)) {
+			file(map, decapitalized, method);
+		}
+	}
+
+	/**
+	 * names that already look like accessors are not turned into accessor names
+	 */
+	private static boolean isAliasable(String propertyName) {
+		return !propertyName.startsWith("get") && !propertyName.startsWith("set");
+	}
+
+	private static void addAll(List<MethodNode> list, List<MethodNode> toAdd) {
+		if (toAdd != null) {
+			list.addAll(toAdd);
+		}
+	}
+}
@@ -57,9 +57,21 @@ public class CategoryTypeLookup implements ITypeLookup {
 			} else if (text.startsWith("$")) {
 				text = text.substring(1);
 			}
-			String getterName = AccessorSupport.GETTER.createAccessorName(text);
-			String setterName = AccessorSupport.SETTER.createAccessorName(text);
+			String getterName = null;
+			String setterName = null;
+			boolean accessorNamesCreated = false;
 			for (ClassNode category : categories) {
+				CategoryMethodIndex index = CategoryMethodIndex.getDefaultIndex(category);
+				if (index != null) {
+					// default categories have accessor variants precomputed
+					index.addMethods(text, possibleMethods);
+					continue;
+				}
+				if (!accessorNamesCreated) {
+					getterName = AccessorSupport.GETTER.createAccessorName(text);
+					setterName = AccessorSupport.SETTER.createAccessorName(text);
+					accessorNamesCreated = true;
+				}
 				List<MethodNode> methods = category.getMethods(text);
 
 				possibleMethods.addAll(methods);
@@ -82,10 +94,17 @@ public class CategoryTypeLookup implements ITypeLookup {
 					}
 				}
 			}
+			if (possibleMethods.isEmpty() || currentType == null) {
+				return null;
+			}
+			// the receiver's super types are the same for every candidate, so only compute them once
+			Set<String> allSupers = new HashSet<String>();
+			allSupers.add("java.lang.Object");
+			findAllSupers(VariableScope.maybeConvertFromPrimitive(currentType), allSupers);
 			for (MethodNode methodNode : possibleMethods) {
 				Parameter[] params = methodNode.getParameters();
-				if (params != null && params.length > 0
-						&& isAssignableFrom(VariableScope.maybeConvertFromPrimitive(currentType), params[0].getType())) {
+				if (params != null && params.length > 0 && params[0].getType() != null
+						&& allSupers.contains(params[0].getType().getName())) {
 					ClassNode declaringClass = methodNode.getDeclaringClass();
 					return new TypeLookupResult(methodNode.getReturnType(), declaringClass, methodNode,
 							getConfidence(declaringClass), scope);
@@ -124,28 +143,6 @@ public class CategoryTypeLookup implements ITypeLookup {
 		}
 	}
 
-	/**
-	 * can from be assigned to to?
-	 * 
-	 * @param from
-	 * @param to
-	 * @return
-	 */
-	private boolean isAssignableFrom(ClassNode from, ClassNode to) {
-		if (from == null || to == null) {
-			return false;
-		}
-		Set<String> allSupers = new HashSet<String>();
-		allSupers.add("java.lang.Object");
-		findAllSupers(from, allSupers);
-		for (String supr : allSupers) {
-			if (to.getName().equals(supr)) {
-				return true;
-			}
-		}
-		return false;
-	}
-
 	public TypeLookupResult lookupType(FieldNode node, VariableScope scope) {
 		return null;
 	}
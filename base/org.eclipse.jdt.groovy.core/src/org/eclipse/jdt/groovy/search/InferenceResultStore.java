@@ -0,0 +1,206 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.groovy.search.ITypeRequestor.VisitStatus;
+
+/**
+ * Holds the results of type inferencing over a single module node, so that the requestors that look at the same, unchanged module
+ * node (semantic highlighting, mark occurrences, code select and hovers) can share them rather than each running the inferencing
+ * engine again.
+ * <p>
+ * The scope of a stored result is the scope object at the time of the visit, which keeps changing until the visit is done, so
+ * requestors that look at {@link TypeLookupResult#scope} must visit instead.
+ * <p>
+ * Results are recorded as a side effect of visits made with
+ * {@link TypeInferencingVisitorWithRequestor#visitCompilationUnitAndRecord(ITypeRequestor)}. Recording stops as soon as a requestor
+ * cancels a member or stops the visit, since the visitor would infer later nodes differently from a full visit. Once a visit has
+ * gone through the whole module, the store is complete and can stand in for an entire visit.
+ * <p>
+ * A new module node is created whenever the unit changes, so the results of a module node never go stale because of edits to its
+ * own unit. Since lookups may also depend on DSLDs, {@link #clearAll()} drops all results when those change. Only the stores of the
+ * most recently used module nodes are kept.
+ */
+public class InferenceResultStore {
+
+	private static final int MAX_STORES = 10;
+
+	// ModuleNode uses identity equality
+	private static final Map<ModuleNode, InferenceResultStore> STORES = new LinkedHashMap<ModuleNode, InferenceResultStore>(16,
+			0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ModuleNode, InferenceResultStore> eldest) {
+			return size() > MAX_STORES;
+		}
+	};
+
+	/**
+	 * @return the store for the given module node, created if necessary
+	 */
+	public static InferenceResultStore getStore(ModuleNode module) {
+		synchronized (STORES) {
+			InferenceResultStore store = STORES.get(module);
+			if (store == null) {
+				store = new InferenceResultStore();
+				STORES.put(module, store);
+			}
+			return store;
+		}
+	}
+
+	/**
+	 * Drops all stored results, eg- because the type lookups have changed
+	 */
+	public static void clearAll() {
+		synchronized (STORES) {
+			STORES.clear();
+		}
+	}
+
+	/**
+	 * A single result as it was passed to a requestor
+	 */
+	public static class Entry {
+		public final ASTNode node;
+		public final TypeLookupResult result;
+		public final IJavaElement enclosingElement;
+
+		Entry(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+			this.node = node;
+			this.result = result;
+			this.enclosingElement = enclosingElement;
+		}
+	}
+
+	/**
+	 * Forwards to a requestor and records what it sees
+	 */
+	class Recorder implements ITypeRequestor {
+		private final ITypeRequestor delegate;
+		private final List<Entry> visited = new ArrayList<Entry>();
+		private boolean recording = true;
+		private boolean sawEverything = true;
+
+		Recorder(ITypeRequestor delegate) {
+			this.delegate = delegate;
+		}
+
+		public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+			VisitStatus status = delegate.acceptASTNode(node, result, enclosingElement);
+			if (recording) {
+				Entry entry = new Entry(node, result, enclosingElement);
+				visited.add(entry);
+				synchronized (InferenceResultStore.this) {
+					if (!byNode.containsKey(node)) {
+						byNode.put(node, entry);
+					}
+				}
+				if (status == VisitStatus.CANCEL_MEMBER || status == VisitStatus.STOP_VISIT) {
+					recording = false;
+				}
+			}
+			if (status != VisitStatus.CONTINUE) {
+				sawEverything = false;
+			}
+			return status;
+		}
+
+		/**
+		 * Called once the visitor has gone through the entire module without failing
+		 */
+		void visitFinished() {
+			if (sawEverything) {
+				synchronized (InferenceResultStore.this) {
+					if (allEntries == null) {
+						allEntries = visited.toArray(new Entry[visited.size()]);
+					}
+				}
+			}
+		}
+	}
+
+	// the first result for each node that was seen. Nodes may be visited more than once, eg- field initializers that are copied
+	// into several constructors
+	private final Map<ASTNode, Entry> byNode = new IdentityHashMap<ASTNode, Entry>();
+
+	// every result of a complete visit, in visit order
+	private Entry[] allEntries;
+
+	InferenceResultStore() {
+		// use getStore()
+	}
+
+	Recorder createRecorder(ITypeRequestor requestor) {
+		return new Recorder(requestor);
+	}
+
+	/**
+	 * @return the stored result for the node, or null if no recorded visit has reached it
+	 */
+	public synchronized Entry get(ASTNode node) {
+		return byNode.get(node);
+	}
+
+	public synchronized boolean isComplete() {
+		return allEntries != null;
+	}
+
+	/**
+	 * Passes the stored result for the node to the requestor, as if a visit had reached it.
+	 *
+	 * @return the status returned by the requestor, or null if there is no stored result for the node
+	 */
+	public VisitStatus replay(ASTNode node, ITypeRequestor requestor) {
+		Entry entry = get(node);
+		if (entry == null) {
+			return null;
+		}
+		return requestor.acceptASTNode(entry.node, entry.result, entry.enclosingElement);
+	}
+
+	/**
+	 * Passes all results of a complete visit to the requestor, in visit order. Only suitable for requestors that never cancel a
+	 * branch or a member, since the nodes inside of them cannot be told apart afterwards. Stopping the visit is honored.
+	 *
+	 * @return true if the results were replayed, or false if the store is not complete and the caller must visit instead
+	 */
+	public boolean replayAll(ITypeRequestor requestor) {
+		Entry[] entries;
+		synchronized (this) {
+			entries = allEntries;
+		}
+		if (entries == null) {
+			return false;
+		}
+		for (Entry entry : entries) {
+			if (requestor.acceptASTNode(entry.node, entry.result, entry.enclosingElement) == VisitStatus.STOP_VISIT) {
+				break;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,917 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.FieldNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.expr.ConstantExpression;
+import org.codehaus.groovy.ast.expr.FieldExpression;
+import org.codehaus.groovy.ast.expr.StaticMethodCallExpression;
+import org.codehaus.groovy.ast.expr.VariableExpression;
+import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ISaveContext;
+import org.eclipse.core.resources.ISaveParticipant;
+import org.eclipse.core.resources.ISavedState;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.groovy.core.Activator;
+import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
+import org.eclipse.jdt.groovy.core.util.ReflectionUtils;
+import org.eclipse.jdt.internal.core.search.matching.FieldPattern;
+import org.eclipse.jdt.internal.core.search.matching.MethodPattern;
+import org.eclipse.jdt.internal.core.search.matching.OrPattern;
+import org.eclipse.jdt.internal.core.search.matching.PossibleMatch;
+import org.eclipse.jdt.internal.core.search.matching.VariablePattern;
+import org.eclipse.jdt.internal.core.util.Util;
+
+/**
+ * Remembers the member references that type inferencing found in each groovy file, so that field and method searches can skip the
+ * files that cannot contain a match without inferencing them again.
+ * <p>
+ * For every name that may refer to a field or method, a file entry holds the names of the inferred declaring types and all of their
+ * supertypes. A file can only contain a match for a pattern if the pattern's name was inferred with a declaring type whose
+ * hierarchy includes the pattern's declaring type, so this is a conservative check for both {@link MethodReferenceSearchRequestor}
+ * and {@link FieldReferenceSearchRequestor}. Files that are not in the index, have changed, or have unsaved changes are always
+ * inferenced.
+ * <p>
+ * Entries are inferred in the background when the indexer parses a groovy file (see {@link #indexLater(String)}), and recorded by
+ * the searches themselves. They are saved with the workspace next to the JDT search indexes, and the resource changes made since
+ * the last save are replayed when they are loaded again.
+ * <p>
+ * Inferencing also depends on the types a file looks at, so an entry holds the simple names of those types as well. When a source
+ * or class file changes, only the entry of that file and the entries that looked at a type of the same name are dropped. A changed
+ * archive or classpath drops the entries of the projects that use it, and a changed DSLD drops all entries, as does DSLD support
+ * when it refreshes or disables its scripts (see {@link #clearAll()}).
+ */
+public class InferredReferenceIndex {
+
+	private static final int MAX_ENTRIES = Integer.getInteger("greclipse.search.inferredReferenceIndex.size", 2000); //$NON-NLS-1$
+
+	private static final String INDEX_FILE_NAME = "groovyInferredReferences.dat"; //$NON-NLS-1$
+
+	private static final int INDEX_FILE_VERSION = 1;
+
+	// wait a little after the indexer so that a burst of changes is inferred in one go
+	private static final long INDEXING_DELAY = 1000;
+
+	private static InferredReferenceIndex instance;
+
+	// the changes made while the workbench was closed only need to be replayed once
+	private static boolean savedStateProcessed;
+
+	public static synchronized InferredReferenceIndex getInstance() {
+		if (instance == null) {
+			instance = new InferredReferenceIndex();
+			instance.load();
+			IWorkspace workspace = ResourcesPlugin.getWorkspace();
+			try {
+				ISavedState savedState = workspace.addSaveParticipant(Activator.PLUGIN_ID, instance.saveParticipant);
+				if (!savedStateProcessed) {
+					savedStateProcessed = true;
+					if (savedState == null) {
+						// nothing is known about what changed since the entries were saved
+						instance.clear();
+					} else {
+						savedState.processResourceChangeEvents(instance.savedStateListener);
+					}
+				}
+			} catch (CoreException e) {
+				Util.log(e);
+				instance.clear();
+			}
+			workspace.addResourceChangeListener(instance.listener, IResourceChangeEvent.POST_CHANGE);
+			JavaCore.addElementChangedListener(instance.classpathListener, ElementChangedEvent.POST_CHANGE);
+		}
+		return instance;
+	}
+
+	public static synchronized void shutdown() {
+		if (instance != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(instance.listener);
+			JavaCore.removeElementChangedListener(instance.classpathListener);
+			instance.close();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Drops all entries, eg- when the DSLDs that contribute to inferencing have changed
+	 */
+	public static synchronized void clearAll() {
+		if (instance != null) {
+			instance.clear();
+		}
+	}
+
+	/**
+	 * Infers the references of a groovy file in the background, eg- after the indexer has parsed it
+	 *
+	 * @param path the full path of the file in the workspace
+	 */
+	public static void indexLater(String path) {
+		IPath filePath = new Path(path);
+		if (filePath.segmentCount() >= 2) {
+			getInstance().scheduleIndexing(filePath);
+		}
+	}
+
+	/**
+	 * The inferred references of a single file
+	 */
+	private static class Entry {
+		final long modificationStamp;
+
+		// name of a field or method reference to the names of its possible declaring types
+		final Map<String, Set<String>> declaringTypesByName;
+
+		// simple names of the top level types that inferencing looked at
+		final Set<String> referencedTypes;
+
+		// simple names of the top level types declared by the file
+		final Set<String> declaredTypes;
+
+		Entry(long modificationStamp, Map<String, Set<String>> declaringTypesByName, Set<String> referencedTypes,
+				Set<String> declaredTypes) {
+			this.modificationStamp = modificationStamp;
+			this.declaringTypesByName = declaringTypesByName;
+			this.referencedTypes = referencedTypes;
+			this.declaredTypes = declaredTypes;
+		}
+
+		boolean mayMatch(String name, String declaringQualifiedName) {
+			Set<String> declaringTypes = declaringTypesByName.get(name);
+			if (declaringTypes == null) {
+				return false;
+			}
+			return declaringQualifiedName.length() == 0 || declaringTypes.contains(declaringQualifiedName);
+		}
+
+		boolean references(Set<String> typeNames) {
+			for (String typeName : typeNames) {
+				if (referencedTypes.contains(typeName)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Forwards to the search requestor and records the inferred references of the file as it goes
+	 */
+	public class Recorder implements ITypeRequestor {
+		private final IFile file;
+		private final long modificationStamp;
+		private final ITypeRequestor delegate;
+		private final Map<String, Set<String>> declaringTypesByName = new HashMap<String, Set<String>>();
+		private final Set<String> referencedTypes = new HashSet<String>();
+		private final Set<String> declaredTypes = new HashSet<String>();
+		private final Map<ClassNode, Set<String>> hierarchies = new IdentityHashMap<ClassNode, Set<String>>();
+		private boolean complete = true;
+
+		Recorder(IFile file, ITypeRequestor delegate) {
+			this.file = file;
+			this.modificationStamp = file.getModificationStamp();
+			this.delegate = delegate;
+		}
+
+		public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+			if (node instanceof ClassNode) {
+				declaredTypes.add(topLevelName((ClassNode) node));
+			}
+			if (result.type != null) {
+				referencedTypes.add(topLevelName(removeArray(result.type)));
+			}
+			String name = findReferenceName(node);
+			if (name != null && result.declaringType != null) {
+				Set<String> declaringTypes = declaringTypesByName.get(name);
+				if (declaringTypes == null) {
+					declaringTypes = new HashSet<String>();
+					declaringTypesByName.put(name, declaringTypes);
+				}
+				declaringTypes.addAll(getHierarchy(removeArray(result.declaringType)));
+			}
+			VisitStatus status = delegate.acceptASTNode(node, result, enclosingElement);
+			if (status != VisitStatus.CONTINUE) {
+				// parts of the file will not be visited, so what is recorded is not the whole story
+				complete = false;
+			}
+			return status;
+		}
+
+		/**
+		 * Adds the recorded references to the index. Must only be called after the entire file has been visited.
+		 */
+		public void store() {
+			if (complete) {
+				put(file, new Entry(modificationStamp, declaringTypesByName, referencedTypes, declaredTypes));
+			}
+		}
+
+		private Set<String> getHierarchy(ClassNode type) {
+			Set<String> hierarchy = hierarchies.get(type);
+			if (hierarchy == null) {
+				hierarchy = new HashSet<String>();
+				addHierarchy(type, hierarchy);
+				hierarchies.put(type, hierarchy);
+			}
+			return hierarchy;
+		}
+
+		private void addHierarchy(ClassNode type, Set<String> hierarchy) {
+			if (type == null) {
+				return;
+			}
+			String typeName = type.getName();
+			if (!hierarchy.add(typeName)) {
+				return;
+			}
+			// field searches compare the binary name, method searches the source name
+			hierarchy.add(typeName.replace('$', '.'));
+			referencedTypes.add(topLevelName(type));
+			addHierarchy(type.getSuperClass(), hierarchy);
+			for (ClassNode iface : type.getInterfaces()) {
+				addHierarchy(iface, hierarchy);
+			}
+		}
+	}
+
+	// lets the whole file be visited when it is inferred in the background
+	private static final ITypeRequestor ACCEPT_ALL = new ITypeRequestor() {
+		public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+			return VisitStatus.CONTINUE;
+		}
+	};
+
+	private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	// true if the entries differ from what was last saved
+	private boolean dirty;
+
+	private boolean closed;
+
+	// true if the entries were saved when the index was shut down, which is before the workspace itself is saved
+	private boolean savedOnClose;
+
+	// the files to infer in the background
+	private final Set<IPath> pending = new LinkedHashSet<IPath>();
+
+	private final Job indexingJob = new Job("Inferring groovy references") { //$NON-NLS-1$
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			while (!monitor.isCanceled()) {
+				IPath path;
+				synchronized (InferredReferenceIndex.this) {
+					Iterator<IPath> paths = pending.iterator();
+					if (!paths.hasNext()) {
+						return Status.OK_STATUS;
+					}
+					path = paths.next();
+					paths.remove();
+				}
+				index(ResourcesPlugin.getWorkspace().getRoot().getFile(path));
+			}
+			return Status.CANCEL_STATUS;
+		}
+	};
+
+	private final IResourceChangeListener listener = new IResourceChangeListener() {
+		public void resourceChanged(IResourceChangeEvent event) {
+			if (event.getDelta() != null) {
+				removeAffectedEntries(event.getDelta());
+			}
+		}
+	};
+
+	private final IResourceChangeListener savedStateListener = new IResourceChangeListener() {
+		public void resourceChanged(IResourceChangeEvent event) {
+			if (event.getDelta() == null) {
+				clear();
+			} else {
+				removeAffectedEntries(event.getDelta());
+			}
+		}
+	};
+
+	private final IElementChangedListener classpathListener = new IElementChangedListener() {
+		public void elementChanged(ElementChangedEvent event) {
+			Set<String> projectNames = new HashSet<String>();
+			collectClasspathChanges(event.getDelta(), projectNames);
+			if (!projectNames.isEmpty()) {
+				removeProjectEntries(withRequiringProjects(projectNames));
+			}
+		}
+	};
+
+	private final ISaveParticipant saveParticipant = new ISaveParticipant() {
+		public void prepareToSave(ISaveContext context) {
+		}
+
+		public void saving(ISaveContext context) {
+			if (save()) {
+				// so that the changes made after this save are replayed when the entries are loaded
+				context.needDelta();
+			}
+		}
+
+		public void doneSaving(ISaveContext context) {
+		}
+
+		public void rollback(ISaveContext context) {
+		}
+	};
+
+	InferredReferenceIndex() {
+		// use getInstance()
+		indexingJob.setSystem(true);
+		indexingJob.setPriority(Job.DECORATE);
+	}
+
+	/**
+	 * @return true if a previous search has shown that the file cannot contain a match for the pattern
+	 */
+	public boolean hasNoMatches(PossibleMatch possibleMatch, SearchPattern pattern) {
+		IFile file = getIndexableFile(possibleMatch);
+		if (file == null || !isIndexable(pattern)) {
+			return false;
+		}
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(file.getFullPath().toPortableString());
+		}
+		if (entry == null || entry.modificationStamp != file.getModificationStamp()) {
+			return false;
+		}
+		return !mayMatch(entry, pattern);
+	}
+
+	/**
+	 * @return a requestor that forwards to the given requestor and records the references of the file, or null if the references
+	 *         of this file cannot be indexed for this pattern
+	 */
+	public Recorder createRecorder(PossibleMatch possibleMatch, SearchPattern pattern, ITypeRequestor requestor) {
+		IFile file = getIndexableFile(possibleMatch);
+		if (file == null || !isIndexable(pattern)) {
+			return null;
+		}
+		return new Recorder(file, requestor);
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		dirty = true;
+	}
+
+	/**
+	 * Waits until the files passed to {@link #indexLater(String)} so far have been inferred
+	 */
+	public void waitForIndexing() throws InterruptedException {
+		indexingJob.join();
+	}
+
+	/**
+	 * Writes the entries next to the JDT search indexes, where they are loaded from when the index is created
+	 *
+	 * @return true if the saved entries are up to date
+	 */
+	public boolean save() {
+		File file = getIndexFile();
+		Map<String, Entry> saved;
+		synchronized (this) {
+			if (closed) {
+				// the listeners are gone, so only what was saved on shutdown is known to be up to date
+				if (!savedOnClose) {
+					file.delete();
+				}
+				return savedOnClose;
+			}
+			if (!dirty && file.exists()) {
+				return true;
+			}
+			saved = new HashMap<String, Entry>(entries);
+			dirty = false;
+		}
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			try {
+				write(out, saved);
+			} finally {
+				out.close();
+			}
+			return true;
+		} catch (IOException e) {
+			Util.log(e, "Could not save the inferred references to " + file); //$NON-NLS-1$
+			file.delete();
+			synchronized (this) {
+				dirty = true;
+			}
+			return false;
+		}
+	}
+
+	synchronized void put(IFile file, Entry entry) {
+		entries.put(file.getFullPath().toPortableString(), entry);
+		dirty = true;
+	}
+
+	private void close() {
+		boolean saved = save();
+		synchronized (this) {
+			closed = true;
+			savedOnClose = saved;
+			pending.clear();
+		}
+		indexingJob.cancel();
+	}
+
+	private void scheduleIndexing(IPath path) {
+		synchronized (this) {
+			if (closed || pending.size() >= MAX_ENTRIES) {
+				return;
+			}
+			pending.add(path);
+		}
+		indexingJob.schedule(INDEXING_DELAY);
+	}
+
+	private void index(IFile file) {
+		synchronized (this) {
+			Entry entry = entries.get(file.getFullPath().toPortableString());
+			if (entry != null ? entry.modificationStamp == file.getModificationStamp() : entries.size() >= MAX_ENTRIES) {
+				// already up to date, or there is no room without pushing out what searches have recorded
+				return;
+			}
+		}
+		IJavaElement element = JavaCore.create(file);
+		if (!(element instanceof GroovyCompilationUnit) || !element.exists()) {
+			return;
+		}
+		GroovyCompilationUnit unit = (GroovyCompilationUnit) element;
+		try {
+			// the index describes what is on disk, not what is in the editor
+			if (unit.hasUnsavedChanges()) {
+				return;
+			}
+			Recorder recorder = new Recorder(file, ACCEPT_ALL);
+			TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
+			visitor.visitCompilationUnit(recorder);
+			if (!visitor.isVisitFailed()) {
+				recorder.store();
+			}
+		} catch (JavaModelException e) {
+			Util.log(e);
+		} catch (RuntimeException e) {
+			Util.log(e, "Could not infer the references of " + file.getFullPath()); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Drops the entries that a change to the workspace may have made out of date
+	 */
+	private void removeAffectedEntries(IResourceDelta delta) {
+		final Set<String> changedFiles = new HashSet<String>();
+		final Set<String> changedTypes = new HashSet<String>();
+		final Set<IPath> changedArchives = new HashSet<IPath>();
+		final boolean[] changedDSLD = new boolean[1];
+		final Map<IProject, IPath[]> outputLocations = new HashMap<IProject, IPath[]>();
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+				public boolean visit(IResourceDelta child) {
+					IResource resource = child.getResource();
+					if (resource.getType() != IResource.FILE) {
+						return true;
+					}
+					if (child.getKind() == IResourceDelta.CHANGED && (child.getFlags() & IResourceDelta.CONTENT) == 0) {
+						// markers and the like
+						return false;
+					}
+					String extension = resource.getFileExtension();
+					if (extension == null) {
+						return false;
+					}
+					String name = resource.getName();
+					String baseName = name.substring(0, name.length() - extension.length() - 1);
+					if (extension.equals("dsld")) { //$NON-NLS-1$
+						changedDSLD[0] = true;
+					} else if (extension.equals("jar") || extension.equals("zip")) { //$NON-NLS-1$ //$NON-NLS-2$
+						changedArchives.add(resource.getFullPath());
+					} else if (extension.equals("class")) { //$NON-NLS-1$
+						// the compiled form of a source file is covered by the change to the source file
+						if (!isInOutputLocation(resource, outputLocations)) {
+							changedTypes.add(topLevelName(baseName));
+						}
+					} else if (ContentTypeUtils.isJavaLikeButNotGroovyLikeExtension(name) || ContentTypeUtils.isGroovyLikeFileName(name)) {
+						changedFiles.add(resource.getFullPath().toPortableString());
+						changedTypes.add(baseName);
+					}
+					return false;
+				}
+			});
+		} catch (CoreException e) {
+			Util.log(e);
+			clear();
+			return;
+		}
+		if (changedDSLD[0]) {
+			clear();
+			return;
+		}
+		Set<String> changedProjects = changedArchives.isEmpty() ? new HashSet<String>()
+				: withRequiringProjects(projectsUsing(changedArchives));
+		if (changedFiles.isEmpty() && changedTypes.isEmpty() && changedProjects.isEmpty()) {
+			return;
+		}
+		synchronized (this) {
+			// a groovy file may declare more types than the one named after it
+			for (String changedFile : changedFiles) {
+				Entry entry = entries.get(changedFile);
+				if (entry != null) {
+					changedTypes.addAll(entry.declaredTypes);
+				}
+			}
+			for (Iterator<Map.Entry<String, Entry>> iter = entries.entrySet().iterator(); iter.hasNext();) {
+				Map.Entry<String, Entry> next = iter.next();
+				if (changedFiles.contains(next.getKey()) || next.getValue().references(changedTypes)
+						|| changedProjects.contains(projectName(next.getKey()))) {
+					iter.remove();
+					dirty = true;
+				}
+			}
+		}
+	}
+
+	private synchronized void removeProjectEntries(Set<String> projectNames) {
+		for (Iterator<String> iter = entries.keySet().iterator(); iter.hasNext();) {
+			if (projectNames.contains(projectName(iter.next()))) {
+				iter.remove();
+				dirty = true;
+			}
+		}
+	}
+
+	private static boolean isInOutputLocation(IResource resource, Map<IProject, IPath[]> outputLocations) {
+		IProject project = resource.getProject();
+		IPath[] locations = outputLocations.get(project);
+		if (locations == null) {
+			Set<IPath> found = new HashSet<IPath>();
+			IJavaProject javaProject = JavaCore.create(project);
+			if (javaProject.exists()) {
+				try {
+					found.add(javaProject.getOutputLocation());
+					for (IClasspathEntry entry : javaProject.getRawClasspath()) {
+						if (entry.getEntryKind() == IClasspathEntry.CPE_SOURCE && entry.getOutputLocation() != null) {
+							found.add(entry.getOutputLocation());
+						}
+					}
+				} catch (JavaModelException e) {
+					// treat it as a class folder
+				}
+			}
+			locations = found.toArray(new IPath[found.size()]);
+			outputLocations.put(project, locations);
+		}
+		for (IPath location : locations) {
+			if (location.isPrefixOf(resource.getFullPath())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the names of the projects that have one of the archives on their classpath
+	 */
+	private static Set<String> projectsUsing(Set<IPath> archives) {
+		Set<String> projectNames = new HashSet<String>();
+		for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+			IJavaProject javaProject = JavaCore.create(project);
+			if (!javaProject.exists()) {
+				continue;
+			}
+			try {
+				for (IClasspathEntry entry : javaProject.getResolvedClasspath(true)) {
+					if (entry.getEntryKind() == IClasspathEntry.CPE_LIBRARY && archives.contains(entry.getPath())) {
+						projectNames.add(project.getName());
+						break;
+					}
+				}
+			} catch (JavaModelException e) {
+				projectNames.add(project.getName());
+			}
+		}
+		return projectNames;
+	}
+
+	/**
+	 * @return the given projects and all the projects that require them, directly or not
+	 */
+	private static Set<String> withRequiringProjects(Set<String> projectNames) {
+		IProject[] projects = ResourcesPlugin.getWorkspace().getRoot().getProjects();
+		boolean added = true;
+		while (added) {
+			added = false;
+			for (IProject project : projects) {
+				if (projectNames.contains(project.getName())) {
+					continue;
+				}
+				IJavaProject javaProject = JavaCore.create(project);
+				if (!javaProject.exists()) {
+					continue;
+				}
+				try {
+					for (String required : javaProject.getRequiredProjectNames()) {
+						if (projectNames.contains(required)) {
+							projectNames.add(project.getName());
+							added = true;
+							break;
+						}
+					}
+				} catch (JavaModelException e) {
+					projectNames.add(project.getName());
+					added = true;
+				}
+			}
+		}
+		return projectNames;
+	}
+
+	/**
+	 * Collects the projects whose raw or resolved classpath, or one of whose archives, has changed
+	 */
+	private static void collectClasspathChanges(IJavaElementDelta delta, Set<String> projectNames) {
+		IJavaElement element = delta.getElement();
+		if (element.getElementType() == IJavaElement.JAVA_PROJECT) {
+			if ((delta.getFlags() & (IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+				projectNames.add(element.getElementName());
+				return;
+			}
+			for (IJavaElementDelta child : delta.getAffectedChildren()) {
+				if ((child.getFlags() & IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED) != 0) {
+					projectNames.add(element.getElementName());
+					return;
+				}
+			}
+		} else if (element.getElementType() == IJavaElement.JAVA_MODEL) {
+			for (IJavaElementDelta child : delta.getAffectedChildren()) {
+				collectClasspathChanges(child, projectNames);
+			}
+		}
+	}
+
+	private static String projectName(String path) {
+		int end = path.indexOf('/', 1);
+		return end == -1 ? path.substring(1) : path.substring(1, end);
+	}
+
+	private static String topLevelName(ClassNode type) {
+		return topLevelName(type.getNameWithoutPackage());
+	}
+
+	/**
+	 * @return the simple name of the top level type enclosing the type with the given simple binary name
+	 */
+	private static String topLevelName(String simpleName) {
+		int dollar = simpleName.indexOf('$');
+		return dollar > 0 ? simpleName.substring(0, dollar) : simpleName;
+	}
+
+	private static File getIndexFile() {
+		return JavaCore.getPlugin().getStateLocation().append(INDEX_FILE_NAME).toFile();
+	}
+
+	private synchronized void load() {
+		File file = getIndexFile();
+		if (!file.exists()) {
+			return;
+		}
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				if (in.readInt() == INDEX_FILE_VERSION) {
+					read(in);
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			Util.log(e, "Could not load the inferred references from " + file); //$NON-NLS-1$
+			entries.clear();
+		}
+	}
+
+	private static void write(DataOutputStream out, Map<String, Entry> saved) throws IOException {
+		out.writeInt(INDEX_FILE_VERSION);
+		out.writeInt(saved.size());
+		for (Map.Entry<String, Entry> next : saved.entrySet()) {
+			Entry entry = next.getValue();
+			out.writeUTF(next.getKey());
+			out.writeLong(entry.modificationStamp);
+			writeNames(out, entry.referencedTypes);
+			writeNames(out, entry.declaredTypes);
+			out.writeInt(entry.declaringTypesByName.size());
+			for (Map.Entry<String, Set<String>> reference : entry.declaringTypesByName.entrySet()) {
+				out.writeUTF(reference.getKey());
+				writeNames(out, reference.getValue());
+			}
+		}
+	}
+
+	private static void writeNames(DataOutputStream out, Set<String> names) throws IOException {
+		out.writeInt(names.size());
+		for (String name : names) {
+			out.writeUTF(name);
+		}
+	}
+
+	private void read(DataInputStream in) throws IOException {
+		// most type names are shared by many files
+		Map<String, String> names = new HashMap<String, String>();
+		for (int count = in.readInt(); count > 0; count--) {
+			String path = in.readUTF();
+			long modificationStamp = in.readLong();
+			Set<String> referencedTypes = readNames(in, names);
+			Set<String> declaredTypes = readNames(in, names);
+			Map<String, Set<String>> declaringTypesByName = new HashMap<String, Set<String>>();
+			for (int references = in.readInt(); references > 0; references--) {
+				declaringTypesByName.put(readName(in, names), readNames(in, names));
+			}
+			entries.put(path, new Entry(modificationStamp, declaringTypesByName, referencedTypes, declaredTypes));
+		}
+	}
+
+	private static Set<String> readNames(DataInputStream in, Map<String, String> names) throws IOException {
+		Set<String> result = new HashSet<String>();
+		for (int count = in.readInt(); count > 0; count--) {
+			result.add(readName(in, names));
+		}
+		return result;
+	}
+
+	private static String readName(DataInputStream in, Map<String, String> names) throws IOException {
+		String name = in.readUTF();
+		String shared = names.get(name);
+		if (shared == null) {
+			names.put(name, name);
+			shared = name;
+		}
+		return shared;
+	}
+
+	private static IFile getIndexableFile(PossibleMatch possibleMatch) {
+		if (!(possibleMatch.resource instanceof IFile) || possibleMatch.openable == null) {
+			return null;
+		}
+		try {
+			// the index describes what is on disk, not what is in the editor
+			if (possibleMatch.openable.hasUnsavedChanges()) {
+				return null;
+			}
+		} catch (JavaModelException e) {
+			return null;
+		}
+		return (IFile) possibleMatch.resource;
+	}
+
+	private static boolean isIndexable(SearchPattern pattern) {
+		if (pattern instanceof MethodPattern || pattern instanceof FieldPattern) {
+			return true;
+		}
+		if (pattern instanceof OrPattern) {
+			for (SearchPattern orPattern : getPatterns((OrPattern) pattern)) {
+				if (orPattern != null && !isIndexable(orPattern)) {
+					return false;
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	@SuppressWarnings("nls")
+	private static boolean mayMatch(Entry entry, SearchPattern pattern) {
+		if (pattern instanceof MethodPattern) {
+			char[] name = (char[]) ReflectionUtils.getPrivateField(MethodPattern.class, "selector", pattern);
+			return name == null
+					|| entry.mayMatch(String.valueOf(name),
+							qualifiedName(ReflectionUtils.getPrivateField(MethodPattern.class, "declaringQualification", pattern),
+									ReflectionUtils.getPrivateField(MethodPattern.class, "declaringSimpleName", pattern)));
+		} else if (pattern instanceof FieldPattern) {
+			char[] name = (char[]) ReflectionUtils.getPrivateField(VariablePattern.class, "name", pattern);
+			return name == null
+					|| entry.mayMatch(String.valueOf(name),
+							qualifiedName(ReflectionUtils.getPrivateField(FieldPattern.class, "declaringQualification", pattern),
+									ReflectionUtils.getPrivateField(FieldPattern.class, "declaringSimpleName", pattern)));
+		} else if (pattern instanceof OrPattern) {
+			for (SearchPattern orPattern : getPatterns((OrPattern) pattern)) {
+				if (orPattern != null && mayMatch(entry, orPattern)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * builds the declaring type name the same way that the search requestors do
+	 */
+	private static String qualifiedName(Object qualification, Object simpleName) {
+		char[] qualificationArr = (char[]) qualification;
+		char[] simpleNameArr = (char[]) simpleName;
+		String declaringSimpleName = simpleNameArr == null ? "" : new String(simpleNameArr); //$NON-NLS-1$
+		String declaringQualification = ((qualificationArr == null || qualificationArr.length == 0) ? "" //$NON-NLS-1$
+				: (new String(qualificationArr) + ".")); //$NON-NLS-1$
+		return declaringQualification + declaringSimpleName;
+	}
+
+	/**
+	 * @return the name of a node that {@link MethodReferenceSearchRequestor} or {@link FieldReferenceSearchRequestor} may match,
+	 *         or null if neither would look at the node
+	 */
+	private static String findReferenceName(ASTNode node) {
+		if (node instanceof ConstantExpression) {
+			return ((ConstantExpression) node).getText();
+		} else if (node instanceof FieldExpression) {
+			return ((FieldExpression) node).getFieldName();
+		} else if (node instanceof VariableExpression) {
+			return ((VariableExpression) node).getName();
+		} else if (node instanceof StaticMethodCallExpression) {
+			return ((StaticMethodCallExpression) node).getMethod();
+		} else if (node instanceof MethodNode) {
+			return ((MethodNode) node).getName();
+		} else if (node instanceof FieldNode) {
+			return ((FieldNode) node).getName();
+		}
+		return null;
+	}
+
+	private static ClassNode removeArray(ClassNode declaration) {
+		return declaration.getComponentType() != null ? removeArray(declaration.getComponentType()) : declaration;
+	}
+
+	private static SearchPattern[] getPatterns(OrPattern pattern) {
+		return (SearchPattern[]) ReflectionUtils.getPrivateField(OrPattern.class, "patterns", pattern); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.jdt.groovy.search;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.GenericsType;
+
+/**
+ * Creates the parameterized types that are found during type inferencing, eg- <code>List&lt;String&gt;</code> for the type of
+ * <code>['a']</code>. There is only ever one node for a type declaration together with a list of type arguments, so a
+ * parameterization that is seen again does not create a new node, and the nodes created for the same parameterization are
+ * identical.
+ * <p>
+ * Type arguments are compared by identity, which means that nested parameterizations are only shared if they come from this
+ * factory as well. Nodes are weakly referenced and dropped once nothing else refers to them.
+ * <p>
+ * The nodes that are returned are shared and so <em>must not be changed</em>. Use {@link VariableScope#clone(ClassNode)} to get a
+ * copy that can be changed.
+ */
+public class ParameterizedTypeFactory {
+
+	private static class Key {
+		private final ClassNode declaration;
+		private final ClassNode[] typeArguments;
+		private final int hash;
+
+		Key(ClassNode declaration, ClassNode[] typeArguments) {
+			this.declaration = declaration;
+			this.typeArguments = typeArguments;
+			int h = System.identityHashCode(declaration);
+			for (ClassNode typeArgument : typeArguments) {
+				h = 31 * h + System.identityHashCode(typeArgument);
+			}
+			this.hash = h;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			if (declaration != other.declaration || typeArguments.length != other.typeArguments.length) {
+				return false;
+			}
+			for (int i = 0; i < typeArguments.length; i++) {
+				if (typeArguments[i] != other.typeArguments[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static class TypeReference extends WeakReference<ClassNode> {
+		final Key key;
+
+		TypeReference(ClassNode type, Key key, ReferenceQueue<ClassNode> queue) {
+			super(type, queue);
+			this.key = key;
+		}
+	}
+
+	private static final Map<Key, TypeReference> TYPES = new HashMap<Key, TypeReference>();
+
+	private static final ReferenceQueue<ClassNode> COLLECTED = new ReferenceQueue<ClassNode>();
+
+	private ParameterizedTypeFactory() {
+		// static methods only
+	}
+
+	/**
+	 * Parameterizes a generic type with resolved type arguments. Nested parameterized types among the type arguments should come
+	 * from this method as well, so that they can be shared.
+	 *
+	 * @param type the generic type, or any reference to it
+	 * @param typeArguments one type argument for each type parameter of the type
+	 * @return the shared node for the parameterization, or the type itself if it has no type parameters
+	 */
+	public static ClassNode parameterize(ClassNode type, ClassNode... typeArguments) {
+		if (typeArguments.length == 0) {
+			return type;
+		}
+		ClassNode declaration = type.redirect();
+		Key key = new Key(declaration, typeArguments.clone());
+		synchronized (TYPES) {
+			expungeCollected();
+			TypeReference ref = TYPES.get(key);
+			ClassNode parameterized = (ref == null ? null : ref.get());
+			if (parameterized == null) {
+				parameterized = create(declaration, key.typeArguments);
+				TYPES.put(key, new TypeReference(parameterized, key, COLLECTED));
+			}
+			return parameterized;
+		}
+	}
+
+	private static ClassNode create(ClassNode declaration, ClassNode[] typeArguments) {
+		ClassNode parameterized = declaration.getPlainNodeReference();
+		GenericsType[] generics = new GenericsType[typeArguments.length];
+		for (int i = 0; i < typeArguments.length; i++) {
+			GenericsType gt = new GenericsType();
+			gt.setType(typeArguments[i]);
+			gt.setName(typeArguments[i].getName());
+			gt.setResolved(true);
+			generics[i] = gt;
+		}
+		parameterized.setGenericsTypes(generics);
+		return parameterized;
+	}
+
+	private static void expungeCollected() {
+		TypeReference ref;
+		while ((ref = (TypeReference) COLLECTED.poll()) != null) {
+			// a newer node may have been added for the same key already
+			if (TYPES.get(ref.key) == ref) {
+				TYPES.remove(ref.key);
+			}
+		}
+	}
+}
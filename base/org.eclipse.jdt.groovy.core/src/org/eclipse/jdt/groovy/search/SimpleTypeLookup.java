@@ -17,8 +17,11 @@ import static org.eclipse.jdt.groovy.search.VariableScope.NO_GENERICS;
 import groovyjarjarasm.asm.Opcodes;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.codehaus.groovy.ast.ASTNode;
@@ -64,8 +67,23 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 
 	private GroovyCompilationUnit unit;
 
+	/**
+	 * Marks a cached declaration lookup that found nothing
+	 */
+	private static final ASTNode NO_DECLARATION = new ASTNode();
+
+	// Caches for a single inferencing pass. The same handful of receiver types are asked about over and over again
+	// and the AST does not change while it is being visited, so hierarchies and member lookups are computed once.
+	// Keyed by identity since parameterized types are separate ClassNode instances.
+	private final Map<ClassNode, LinkedHashSet<ClassNode>> typeHierarchyCache = new IdentityHashMap<ClassNode, LinkedHashSet<ClassNode>>();
+	private final Map<ClassNode, LinkedHashSet<ClassNode>> interfacesCache = new IdentityHashMap<ClassNode, LinkedHashSet<ClassNode>>();
+	private final Map<ClassNode, Map<String, ASTNode[]>> declarationCache = new IdentityHashMap<ClassNode, Map<String, ASTNode[]>>();
+
 	public void initialize(GroovyCompilationUnit unit, VariableScope topLevelScope) {
 		this.unit = unit;
+		typeHierarchyCache.clear();
+		interfacesCache.clear();
+		declarationCache.clear();
 	}
 
 	public TypeLookupResult lookupType(Expression node, VariableScope scope, ClassNode objectExpressionType) {
@@ -519,8 +537,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 		// travel up the hierarchy and look for more generics
 		// also look for generics on methods...(not doing this yet...)
 		GenericsMapper mapper = GenericsMapper.gatherGenerics(resolvedType, declaringType.redirect());
-		ClassNode resolvedTypeOfDeclaration = VariableScope.resolveTypeParameterization(mapper,
-				VariableScope.clone(typeOfDeclaration));
+		ClassNode resolvedTypeOfDeclaration = VariableScope.resolveTypeParameterization(mapper, typeOfDeclaration);
 		return resolvedTypeOfDeclaration;
 	}
 
@@ -551,6 +568,31 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 	 * @return
 	 */
 	private ASTNode findDeclaration(String name, ClassNode declaringType, int numOfArgs) {
+		Map<String, ASTNode[]> byName = declarationCache.get(declaringType);
+		if (byName == null) {
+			byName = new HashMap<String, ASTNode[]>();
+			declarationCache.put(declaringType, byName);
+		}
+		// slot 0 is for non-method call lookups, the rest are indexed by number of arguments
+		int slot = numOfArgs < 0 ? 0 : numOfArgs + 1;
+		ASTNode[] bySlot = byName.get(name);
+		if (bySlot == null || bySlot.length <= slot) {
+			ASTNode[] grown = new ASTNode[Math.max(slot + 1, 4)];
+			if (bySlot != null) {
+				System.arraycopy(bySlot, 0, grown, 0, bySlot.length);
+			}
+			bySlot = grown;
+			byName.put(name, bySlot);
+		}
+		ASTNode declaration = bySlot[slot];
+		if (declaration == null) {
+			declaration = computeDeclaration(name, declaringType, numOfArgs);
+			bySlot[slot] = declaration == null ? NO_DECLARATION : declaration;
+		}
+		return declaration == NO_DECLARATION ? null : declaration;
+	}
+
+	private ASTNode computeDeclaration(String name, ClassNode declaringType, int numOfArgs) {
 		if (declaringType.isArray()) {
 			// only length exists on array type
 			if (name.equals("length")) {
@@ -570,8 +612,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 			}
 		}
 
-		LinkedHashSet<ClassNode> allClasses = new LinkedHashSet<ClassNode>();
-		VariableScope.createTypeHierarchy(declaringType, allClasses, true);
+		Set<ClassNode> allClasses = getTypeHierarchy(declaringType);
 
 		maybe = findPropertyInClass(name, allClasses);
 		if (maybe != null) {
@@ -616,9 +657,7 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 		// do this piece first since findAllInterfaces will return the current interface as well and this will avoid running this
 		// method on the same interface twice.
 		if (checkSuperInterfaces && declaringType.isInterface()) {
-			LinkedHashSet<ClassNode> allInterfaces = new LinkedHashSet<ClassNode>();
-			VariableScope.findAllInterfaces(declaringType, allInterfaces, true);
-			for (ClassNode interf : allInterfaces) {
+			for (ClassNode interf : getAllInterfaces(declaringType)) {
 				AnnotatedNode candidate = findMethodDeclaration(name, interf, numOfArgs, false);
 				if (candidate != null) {
 					return candidate;
@@ -650,6 +689,34 @@ public class SimpleTypeLookup implements ITypeLookupExtension {
 
 	}
 
+	/**
+	 * @return the type hierarchy of the type as computed by {@link VariableScope#createTypeHierarchy(ClassNode, LinkedHashSet, boolean)}.
+	 *         Must not be modified.
+	 */
+	private Set<ClassNode> getTypeHierarchy(ClassNode declaringType) {
+		LinkedHashSet<ClassNode> allClasses = typeHierarchyCache.get(declaringType);
+		if (allClasses == null) {
+			allClasses = new LinkedHashSet<ClassNode>();
+			VariableScope.createTypeHierarchy(declaringType, allClasses, true);
+			typeHierarchyCache.put(declaringType, allClasses);
+		}
+		return allClasses;
+	}
+
+	/**
+	 * @return the interfaces of the type as computed by {@link VariableScope#findAllInterfaces(ClassNode, LinkedHashSet, boolean)}.
+	 *         Must not be modified.
+	 */
+	private Set<ClassNode> getAllInterfaces(ClassNode declaringType) {
+		LinkedHashSet<ClassNode> allInterfaces = interfacesCache.get(declaringType);
+		if (allInterfaces == null) {
+			allInterfaces = new LinkedHashSet<ClassNode>();
+			VariableScope.findAllInterfaces(declaringType, allInterfaces, true);
+			interfacesCache.put(declaringType, allInterfaces);
+		}
+		return allInterfaces;
+	}
+
 	private ASTNode createLengthField(ClassNode declaringType) {
 		FieldNode lengthField = new FieldNode("length", Opcodes.ACC_PUBLIC, VariableScope.INTEGER_CLASS_NODE, declaringType, null);
 		lengthField.setType(VariableScope.INTEGER_CLASS_NODE);
@@ -286,6 +286,9 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 
 	private final AssignmentStorer assignmentStorer = new AssignmentStorer();
 
+	// set when the visit ended early because of an exception
+	private boolean visitFailed;
+
 	/**
 	 * Use factory to instantiate
 	 */
@@ -338,6 +341,7 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 		} catch (VisitCompleted vc) {
 			// can ignore
 		} catch (Exception e) {
+			visitFailed = true;
 			Util.log(e, "Error in inferencing engine for " + unit.getElementName());
 			if (DEBUG) {
 				System.err.println("Excpetion thrown from inferencing engine");
@@ -349,6 +353,43 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 		}
 	}
 
+	/**
+	 * Visits the compilation unit like {@link #visitCompilationUnit(ITypeRequestor)} and records the results in the
+	 * {@link InferenceResultStore} of the module node, so that other requestors can use them without visiting again.
+	 */
+	public void visitCompilationUnitAndRecord(ITypeRequestor requestor) {
+		InferenceResultStore store = getResultStore();
+		if (store == null) {
+			visitCompilationUnit(requestor);
+			return;
+		}
+		InferenceResultStore.Recorder recorder = store.createRecorder(requestor);
+		visitCompilationUnit(recorder);
+		if (!visitFailed) {
+			recorder.visitFinished();
+		}
+	}
+
+	/**
+	 * @return true if the last visit stopped early because the inferencing engine failed
+	 */
+	public boolean isVisitFailed() {
+		return visitFailed;
+	}
+
+	/**
+	 * @return the store of inferencing results for the module node of this visitor, or null if the module node is not shared
+	 *         between visitors. Must be called before the visit.
+	 */
+	public InferenceResultStore getResultStore() {
+		// only primary working copies keep their module node until the next reconcile, see createModuleNode()
+		if (!(enclosingDeclarationNode instanceof ModuleNode) || !unit.isWorkingCopy()
+				|| (unit.getOwner() != null && unit.owner != DefaultWorkingCopyOwner.PRIMARY)) {
+			return null;
+		}
+		return InferenceResultStore.getStore((ModuleNode) enclosingDeclarationNode);
+	}
+
 	// @Override
 	public void visitPackage(PackageNode p) {
 		// do nothing for now
@@ -2122,10 +2163,7 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 	 * @return a list parameterized by propType
 	 */
 	private ClassNode createParameterizedList(ClassNode propType) {
-		ClassNode list = VariableScope.clonedList();
-		list.getGenericsTypes()[0].setType(propType);
-		list.getGenericsTypes()[0].setName(propType.getName());
-		return list;
+		return ParameterizedTypeFactory.parameterize(VariableScope.LIST_CLASS_NODE, propType);
 	}
 
 	/**
@@ -2133,10 +2171,7 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 	 * @return a list parameterized by propType
 	 */
 	private ClassNode createParameterizedRange(ClassNode propType) {
-		ClassNode range = VariableScope.clonedRange();
-		range.getGenericsTypes()[0].setType(propType);
-		range.getGenericsTypes()[0].setName(propType.getName());
-		return range;
+		return ParameterizedTypeFactory.parameterize(VariableScope.RANGE_CLASS_NODE, propType);
 	}
 
 	/**
@@ -2144,12 +2179,7 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 	 * @return a list parameterized by propType
 	 */
 	private ClassNode createParameterizedMap(ClassNode k, ClassNode v) {
-		ClassNode map = VariableScope.clonedMap();
-		map.getGenericsTypes()[0].setType(k);
-		map.getGenericsTypes()[0].setName(k.getName());
-		map.getGenericsTypes()[1].setType(v);
-		map.getGenericsTypes()[1].setName(v.getName());
-		return map;
+		return ParameterizedTypeFactory.parameterize(VariableScope.MAP_CLASS_NODE, k, v);
 	}
 
 	/**
@@ -2371,7 +2401,7 @@ public class TypeInferencingVisitorWithRequestor extends ClassCodeVisitorSupport
 			case '*':
 				if (operation.equals("*.") || operation.equals("*.@")) {
 					// can we do better and parameterize the list?
-					return VariableScope.clonedList();
+					return createParameterizedList(VariableScope.OBJECT_CLASS_NODE);
 				}
 			case '~':
 				// regex pattern
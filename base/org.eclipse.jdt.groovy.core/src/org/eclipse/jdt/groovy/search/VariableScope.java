@@ -60,7 +60,6 @@ import org.codehaus.groovy.runtime.EncodingGroovyMethods;
 import org.codehaus.groovy.runtime.ProcessGroovyMethods;
 import org.codehaus.groovy.runtime.SwingGroovyMethods;
 import org.codehaus.groovy.runtime.XmlGroovyMethods;
-import org.eclipse.core.runtime.Assert;
 import org.eclipse.jdt.core.Signature;
 
 /**
@@ -289,7 +288,17 @@ public class VariableScope {
 	 */
 	private ASTNode scopeNode;
 
-	private Map<String, VariableInfo> nameVariableMap = new HashMap<String, VariableInfo>();
+	/**
+	 * Variables declared in this scope, or null if there are none. Most scopes (eg- blocks) declare nothing
+	 */
+	private Map<String, VariableInfo> nameVariableMap;
+
+	/**
+	 * The values of 'this' and 'delegate' if they are declared in this scope. They are in {@link #nameVariableMap} as well, but
+	 * are kept here since they are looked up for almost every expression, see {@link #getDelegateOrThisInfo()}
+	 */
+	private VariableInfo thisInfo;
+	private VariableInfo delegateInfo;
 
 	private boolean isStaticScope;
 
@@ -420,33 +429,59 @@ public class VariableScope {
 			}
 		}
 
-		VariableInfo var = lookupNameInCurrentScope(name);
-		if (var == null && parent != null) {
-			var = parent.lookupName(name);
+		for (VariableScope scope = this; scope != null; scope = scope.parent) {
+			VariableInfo var = scope.lookupNameInCurrentScope(name);
+			if (var != null) {
+				return var;
+			}
 		}
-		return var;
+		return null;
 	}
 
 	public ClassNode getThis() {
-		VariableInfo thiz = lookupName("this");
+		VariableInfo thiz = lookupThisInfo();
 		return thiz != null ? thiz.type : null;
 	}
 
 	public ClassNode getDelegate() {
-		VariableInfo delegate = lookupName("delegate");
+		VariableInfo delegate = lookupDelegateInfo();
 		return delegate != null ? delegate.type : null;
 	}
 
+	/**
+	 * Same as <code>lookupName("this")</code>
+	 */
+	private VariableInfo lookupThisInfo() {
+		for (VariableScope scope = this; scope != null; scope = scope.parent) {
+			if (scope.thisInfo != null) {
+				return scope.thisInfo;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Same as <code>lookupName("delegate")</code>
+	 */
+	private VariableInfo lookupDelegateInfo() {
+		for (VariableScope scope = this; scope != null; scope = scope.parent) {
+			if (scope.delegateInfo != null) {
+				return scope.delegateInfo;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * @return the current delegate type if exists, or this type if exists, or Object. Returns null if in top level scope (ie- in
 	 *         import statement)
 	 */
 	public VariableInfo getDelegateOrThisInfo() {
-		VariableInfo info = lookupName("delegate");
+		VariableInfo info = lookupDelegateInfo();
 		if (info != null) {
 			return info;
 		}
-		info = lookupName("this");
+		info = lookupThisInfo();
 
 		// might be null if in imports
 		return info;
@@ -464,7 +499,7 @@ public class VariableScope {
 	 * @return
 	 */
 	public VariableInfo lookupNameInCurrentScope(String name) {
-		return nameVariableMap.get(name);
+		return nameVariableMap != null ? nameVariableMap.get(name) : null;
 	}
 
 	public boolean isThisOrSuper(Variable var) {
@@ -472,7 +507,19 @@ public class VariableScope {
 	}
 
 	public void addVariable(String name, ClassNode type, ClassNode declaringType) {
-		nameVariableMap.put(name, new VariableInfo(type, declaringType != null ? declaringType : OBJECT_CLASS_NODE));
+		putVariable(name, new VariableInfo(type, declaringType != null ? declaringType : OBJECT_CLASS_NODE));
+	}
+
+	private void putVariable(String name, VariableInfo info) {
+		if (nameVariableMap == null) {
+			nameVariableMap = new HashMap<String, VariableInfo>();
+		}
+		nameVariableMap.put(name, info);
+		if (name.equals("this")) { //$NON-NLS-1$
+			thisInfo = info;
+		} else if (name.equals("delegate")) { //$NON-NLS-1$
+			delegateInfo = info;
+		}
 	}
 
 	public void addVariable(Variable var) {
@@ -594,7 +641,7 @@ public class VariableScope {
 	private boolean internalUpdateVariable(String name, ClassNode type, ClassNode declaringType) {
 		VariableInfo info = lookupNameInCurrentScope(name);
 		if (info != null) {
-			nameVariableMap.put(name, new VariableInfo(type, declaringType == null ? info.declaringType : declaringType));
+			putVariable(name, new VariableInfo(type, declaringType == null ? info.declaringType : declaringType));
 			return true;
 		} else if (parent != null) {
 			return parent.internalUpdateVariable(name, type, declaringType);
@@ -603,49 +650,62 @@ public class VariableScope {
 		}
 	}
 
+	/**
+	 * Resolves the type parameters of a type, eg- <code>Iterator&lt;E&gt;</code> becomes <code>Iterator&lt;String&gt;</code>, and
+	 * <code>E</code> becomes <code>String</code>. The type is not changed. The parameterized types that are returned come from
+	 * {@link ParameterizedTypeFactory} and must not be changed either.
+	 *
+	 * @return the resolved type, or the type itself if there is nothing to resolve
+	 */
 	public static ClassNode resolveTypeParameterization(GenericsMapper mapper, ClassNode typeToParameterize) {
 		if (!mapper.hasGenerics()) {
 			return typeToParameterize;
 		}
+		return resolveTypeParameterization(mapper, typeToParameterize, 0);
+	}
+
+	/**
+	 * @param depth prevent infinite recursion on bad generics (see GRECLIPSE-1024)
+	 */
+	private static ClassNode resolveTypeParameterization(GenericsMapper mapper, ClassNode typeToParameterize, int depth) {
 		GenericsType[] typesToParameterize = typeToParameterize.getGenericsTypes();
-		if (typesToParameterize == null) {
+		if (typesToParameterize == null || typesToParameterize.length == 0) {
 			return typeToParameterize;
 		}
-		// try to match
+		// three possibilities, this type is the resolved type parameter of a generic type (eg- Iterator<E> --> Iterator<String>)
+		// or it is the resolution of a type parameter itself (eg- E --> String)
+		// or it is a substitution of one type parameter for another (eg- List<T> --> List<E>, where T comes from
+		// the declaring type)
+		// if this parameter exists in the redirect, then it is the former, if not, then check the redirect for type
+		// parameters
+		if (!typeParameterExistsInRedirected(typeToParameterize, typesToParameterize[0].getName())) {
+			// E --> String
+			// no need to recur since this is the resolution of a type parameter
+			GenericsType genericsToParameterize = typesToParameterize[0];
+			return mapper.findParameter(genericsToParameterize.getName(),
+					resolveTypeArgument(mapper, genericsToParameterize.getType(), depth));
+		}
+
+		// we have: Iterator<E> --> Iterator<String>
+		ClassNode[] typeArguments = new ClassNode[typesToParameterize.length];
 		for (int i = 0; i < typesToParameterize.length; i++) {
 			GenericsType genericsToParameterize = typesToParameterize[i];
+			typeArguments[i] = mapper.findParameter(genericsToParameterize.getName(),
+					resolveTypeArgument(mapper, genericsToParameterize.getType(), depth));
+		}
+		return ParameterizedTypeFactory.parameterize(typeToParameterize, typeArguments);
+	}
 
-			// recur down the type parameter
-			resolveTypeParameterization(mapper, genericsToParameterize.getType());
-
-			String toParameterizeName = genericsToParameterize.getName();
-			ClassNode resolved = mapper.findParameter(toParameterizeName, genericsToParameterize.getType());
-			// we have a match, three possibilities, this type is the resolved type parameter of a generic type (eg-
-			// Iterator<E> --> Iterator<String>)
-			// or it is the resolution of a type parameter itself (eg- E --> String)
-			// or it is a substitution of one type parameter for another (eg- List<T> --> List<E>, where T comes from
-			// the declaring type)
-			// if this parameter exists in the redirect, then it is the former, if not, then check the redirect for type
-			// parameters
-			if (typeParameterExistsInRedirected(typeToParameterize, toParameterizeName)) {
-				Assert.isLegal(typeToParameterize.redirect() != typeToParameterize,
-						"Error: trying to resolve type parameters of a type declaration: " + typeToParameterize);
-				// we have: Iterator<E> --> Iterator<String>
-				typeToParameterize.getGenericsTypes()[i].setType(resolved);
-				genericsToParameterize.setName(genericsToParameterize.getType().getName());
-				genericsToParameterize.setUpperBounds(null);
-				genericsToParameterize.setLowerBound(null);
-			} else {
-				// E --> String
-				// no need to recur since this is the resolution of a type parameter
-				typeToParameterize = resolved;
-
-				// I *think* this means we are done.
-				// I *think* this can only be reached when typesToParameterize.length == 1
-				break;
-			}
+	/**
+	 * Resolves the type parameters of a parameterized type argument, eg- the <code>List&lt;E&gt;</code> of
+	 * <code>Map&lt;K, List&lt;E&gt;&gt;</code>. A type argument that is a type parameter itself is resolved by its own name later.
+	 */
+	private static ClassNode resolveTypeArgument(GenericsMapper mapper, ClassNode typeArgument, int depth) {
+		if (depth > 10 || typeArgument == null || typeArgument.getGenericsTypes() == null
+				|| !typeParameterExistsInRedirected(typeArgument, null)) {
+			return typeArgument;
 		}
-		return typeToParameterize;
+		return resolveTypeParameterization(mapper, typeArgument, depth + 1);
 	}
 
 	static final public GenericsType[] NO_GENERICS = new GenericsType[0];
@@ -675,43 +735,6 @@ public class VariableScope {
 		return cloneInternal(type, 0);
 	}
 
-	public static ClassNode clonedMap() {
-		ClassNode clone = clone(MAP_CLASS_NODE);
-		cleanGenerics(clone.getGenericsTypes()[0]);
-		cleanGenerics(clone.getGenericsTypes()[1]);
-		return clone;
-	}
-
-	public static ClassNode clonedList() {
-		ClassNode clone = clone(LIST_CLASS_NODE);
-		cleanGenerics(clone.getGenericsTypes()[0]);
-		return clone;
-	}
-
-	public static ClassNode clonedRange() {
-		ClassNode clone = clone(RANGE_CLASS_NODE);
-		cleanGenerics(clone.getGenericsTypes()[0]);
-		return clone;
-	}
-
-	public static ClassNode clonedTuple() {
-		// ClassNode clone = clone(TUPLE_CLASS_NODE);
-		// cleanGenerics(clone.getGenericsTypes()[0]);
-		// return clone;
-		// the typle class is not parameterized in Groovy 1.7, so just return list.
-		return clonedList();
-	}
-
-	private static void cleanGenerics(GenericsType gt) {
-		gt.getType().setGenericsTypes(null);
-		gt.setName("java.lang.Object");
-		gt.setPlaceholder(false);
-		gt.setWildcard(false);
-		gt.setResolved(true);
-		gt.setUpperBounds(null);
-		gt.setLowerBound(null);
-	}
-
 	/**
 	 * Internal variant of clone that ensures stack recursion never gets too large
 	 * 
@@ -848,7 +871,7 @@ public class VariableScope {
 	 * @return true iff in the {@link #nameVariableMap}
 	 */
 	public boolean containsInThisScope(String name) {
-		return nameVariableMap.containsKey(name);
+		return nameVariableMap != null && nameVariableMap.containsKey(name);
 	}
 
 	/**
@@ -870,7 +893,7 @@ public class VariableScope {
 	public Iterator<Map.Entry<String, VariableInfo>> variablesIterator() {
 		return new Iterator<Map.Entry<String, VariableInfo>>() {
 			VariableScope currentScope = VariableScope.this;
-			Iterator<Map.Entry<String, VariableInfo>> currentIter = currentScope.nameVariableMap.entrySet().iterator();
+			Iterator<Map.Entry<String, VariableInfo>> currentIter = currentScope.variables();
 
 			public boolean hasNext() {
 				if (currentIter == null) {
@@ -878,7 +901,7 @@ public class VariableScope {
 				}
 				if (!currentIter.hasNext()) {
 					currentScope = currentScope.parent;
-					currentIter = currentScope == null ? null : currentScope.nameVariableMap.entrySet().iterator();
+					currentIter = currentScope == null ? null : currentScope.variables();
 				}
 				return currentIter != null && currentIter.hasNext();
 			}
@@ -896,6 +919,13 @@ public class VariableScope {
 		};
 	}
 
+	private Iterator<Map.Entry<String, VariableInfo>> variables() {
+		if (nameVariableMap == null) {
+			return Collections.<Map.Entry<String, VariableInfo>> emptyList().iterator();
+		}
+		return nameVariableMap.entrySet().iterator();
+	}
+
 	/**
 	 * Finds all interfaces transitively implemented by the type passed in (including <code>type</code> if it is an interface). The
 	 * ordering is that the interfaces closest to type are first (in declared order) and then interfaces declared on super
@@ -1009,7 +1039,6 @@ public class VariableScope {
 		}
 
 		if (typeToResolve != null) {
-			typeToResolve = clone(typeToResolve);
 			ClassNode unresolvedCollectionType = collectionType.redirect();
 			GenericsMapper mapper = GenericsMapper.gatherGenerics(collectionType, unresolvedCollectionType);
 			ClassNode resolved = resolveTypeParameterization(mapper, typeToResolve);
@@ -0,0 +1,5 @@
+class GroovyHello implements Helloable {
+	void sayHello() {
+		println("Hello World from Groovy!")
+	}
+}
\ No newline at end of file
@@ -0,0 +1,6 @@
+class GroovyMain {
+	static void main(String... args) {
+		new GroovyHello().sayHello()
+		new JavaHello().sayHello()
+	}
+}
\ No newline at end of file
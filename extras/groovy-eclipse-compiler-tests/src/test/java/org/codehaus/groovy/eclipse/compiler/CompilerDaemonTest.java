@@ -0,0 +1,175 @@
+/*
+ * Copyright 2011 SpringSource, a division of VMware, Inc
+ *
+ * andrew - Initial API and implementation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the protocol between {@link CompilerDaemonClient} and {@link CompilerDaemon},
+ * and for compiles that go through the daemon.
+ */
+public class CompilerDaemonTest extends TestCase {
+
+    private File tempDir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        tempDir = File.createTempFile("daemon", "");
+        tempDir.delete();
+        tempDir.mkdirs();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        delete(tempDir);
+        super.tearDown();
+    }
+
+    public void testRequestRoundTrip() throws Exception {
+        StringBuilder classpath = new StringBuilder();
+        while (classpath.length() < 70000) {
+            // longer than writeUTF allows
+            classpath.append("/some/where/lib.jar").append(File.pathSeparatorChar);
+        }
+        String[] args = { "-cp", classpath.toString(), "-encoding", "UTF-8", "\u00e9t\u00e9.groovy", "" };
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CompilerDaemonClient.writeRequest(new DataOutputStream(bytes), args);
+        String[] read = CompilerDaemonClient.readRequest(input(bytes));
+        assertEquals(Arrays.asList(args), Arrays.asList(read));
+    }
+
+    public void testExitRequest() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeInt(-1);
+        assertNull(CompilerDaemonClient.readRequest(input(bytes)));
+    }
+
+    public void testResponseRoundTrip() throws Exception {
+        List<CompilerDaemonClient.Problem> problems = new ArrayList<CompilerDaemonClient.Problem>();
+        problems.add(new CompilerDaemonClient.Problem(CompilerDaemonClient.KIND_ERROR, "/src/A.groovy", 3, 5, 9, "Groovy:unexpected token"));
+        problems.add(new CompilerDaemonClient.Problem(CompilerDaemonClient.KIND_WARNING, null, 0, 0, 0, "no file"));
+        CompilerDaemonClient.Response response = new CompilerDaemonClient.Response(false, 1, 1, problems, "output");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CompilerDaemonClient.writeResponse(new DataOutputStream(bytes), response);
+        CompilerDaemonClient.Response read = CompilerDaemonClient.readResponse(input(bytes));
+
+        assertFalse(read.success);
+        assertEquals(1, read.errorCount);
+        assertEquals(1, read.warningCount);
+        assertEquals("output", read.output);
+        assertEquals(2, read.problems.size());
+        assertProblem(read.problems.get(0), CompilerDaemonClient.KIND_ERROR, "/src/A.groovy", 3, 5, 9, "Groovy:unexpected token");
+        assertProblem(read.problems.get(1), CompilerDaemonClient.KIND_WARNING, null, 0, 0, 0, "no file");
+    }
+
+    public void testCompileRoundTrip() throws Exception {
+        File hello = write("Hello.groovy", "class Hello {\n  String greet() { new Greeter().greeting() }\n}\n");
+        File greeter = write("Greeter.java", "public class Greeter {\n  public String greeting() { return \"hi\"; }\n}\n");
+        File broken = write("Broken.java", "public class Broken {\n\tint x = \"a\";\n}\n");
+        File out = new File(tempDir, "out");
+
+        // both requests and the exit are answered by one daemon
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        DataOutputStream toDaemon = new DataOutputStream(requests);
+        CompilerDaemonClient.writeRequest(toDaemon, args(out, hello, greeter));
+        CompilerDaemonClient.writeRequest(toDaemon, args(out, broken));
+        toDaemon.writeInt(-1);
+        ByteArrayOutputStream responses = new ByteArrayOutputStream();
+        CompilerDaemon.serve(input(requests), new DataOutputStream(responses));
+
+        DataInputStream fromDaemon = input(responses);
+        CompilerDaemonClient.Response first = CompilerDaemonClient.readResponse(fromDaemon);
+        assertTrue(first.output, first.success);
+        assertEquals(0, first.errorCount);
+        assertTrue(new File(out, "Hello.class").isFile());
+        assertTrue(new File(out, "Greeter.class").isFile());
+
+        CompilerDaemonClient.Response second = CompilerDaemonClient.readResponse(fromDaemon);
+        assertFalse(second.success);
+        assertEquals(1, second.errorCount);
+        assertEquals(1, second.problems.size());
+        CompilerDaemonClient.Problem problem = second.problems.get(0);
+        assertTrue(problem.file, problem.file.endsWith(broken.getName()));
+        // 1-based and counted from the first non-blank character, like the console output
+        assertProblem(problem, CompilerDaemonClient.KIND_ERROR, problem.file, 2, 9, 11,
+                "Type mismatch: cannot convert from String to int");
+        assertEquals(-1, fromDaemon.read());
+    }
+
+    private String[] args(File out, File... sources) {
+        List<String> args = new ArrayList<String>();
+        args.add("-1.5");
+        args.add("-classpath");
+        args.add(System.getProperty("java.class.path"));
+        args.add("-d");
+        args.add(out.getPath());
+        for (File source : sources) {
+            args.add(source.getPath());
+        }
+        return args.toArray(new String[args.size()]);
+    }
+
+    private File write(String name, String contents) throws IOException {
+        File file = new File(tempDir, name);
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    private static DataInputStream input(ByteArrayOutputStream bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    private static void assertProblem(CompilerDaemonClient.Problem problem, byte kind, String file, int line, int startColumn,
+            int endColumn, String message) {
+        assertEquals(kind, problem.kind);
+        assertEquals(file, problem.file);
+        assertEquals(line, problem.line);
+        assertEquals(startColumn, problem.startColumn);
+        assertEquals(endColumn, problem.endColumn);
+        assertEquals(message, problem.message);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
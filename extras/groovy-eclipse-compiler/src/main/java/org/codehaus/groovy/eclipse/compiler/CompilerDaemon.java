@@ -0,0 +1,201 @@
+/*
+ * Copyright 2011 SpringSource, a division of VMware, Inc
+ *
+ * andrew - Initial API and implementation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.ICompilerRequestor;
+import org.eclipse.jdt.internal.compiler.batch.Main;
+
+/**
+ * A long lived compiler process that runs one batch compilation per request, so that
+ * the JVM, the compiler classes and Groovy's metadata stay warm between the modules
+ * of a build.  Started by {@link GroovyEclipseCompiler} when forking with the
+ * <code>daemon</code> compiler argument.
+ * <p>
+ * The protocol runs over stdin and stdout, so the daemon goes away with the build
+ * that started it.  A request is the compiler arguments, and the response is the
+ * result of the compilation with one entry for each problem found:
+ * <pre>
+ * request:  int argCount, string[argCount] args
+ * response: boolean success, int errorCount, int warningCount,
+ *           int problemCount, (byte kind, string file, int line, int startColumn, int endColumn, string message)[problemCount],
+ *           string output
+ * </pre>
+ * Strings are written as an int length followed by UTF-8 bytes, since classpaths
+ * can be longer than {@link DataOutputStream#writeUTF(String)} allows.  A
+ * negative argument count asks the daemon to exit.  The client side is
+ * {@link CompilerDaemonClient}.
+ * <p>
+ * Columns are 1-based and counted from the first non-blank character of the
+ * line, like the columns that {@link GroovyEclipseCompiler} reads from the
+ * console output of an in-process compile.  The static caches of the compiler
+ * are reset after each request, so that one module's transforms and class
+ * loaders are neither kept alive nor seen by the next one.
+ */
+public class CompilerDaemon {
+
+    public static void main(String[] args) throws IOException {
+        // the protocol owns stdout, so stray output from the compiler must go elsewhere
+        PrintStream protocolOut = System.out;
+        System.setOut(System.err);
+
+        serve(new DataInputStream(new BufferedInputStream(System.in)), new DataOutputStream(new BufferedOutputStream(protocolOut)));
+        System.exit(0);
+    }
+
+    /**
+     * Answers requests until asked to exit or until the input is closed
+     */
+    static void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        while (true) {
+            String[] compilerArgs;
+            try {
+                compilerArgs = CompilerDaemonClient.readRequest(in);
+            } catch (EOFException e) {
+                // the build that started us is gone
+                break;
+            }
+            if (compilerArgs == null) {
+                break;
+            }
+            CompilerDaemonClient.writeResponse(out, compile(compilerArgs));
+            out.flush();
+        }
+    }
+
+    static CompilerDaemonClient.Response compile(String[] args) {
+        StringWriter output = new StringWriter();
+        final List<CompilerDaemonClient.Problem> problems = new ArrayList<CompilerDaemonClient.Problem>();
+        boolean success;
+        int errorCount;
+        int warningCount;
+        try {
+            Main main = new Main(new PrintWriter(output), new PrintWriter(output), false/* systemExit */, null/* options */,
+                    null/* progress */) {
+                @Override
+                public ICompilerRequestor getBatchRequestor() {
+                    final ICompilerRequestor requestor = super.getBatchRequestor();
+                    return new ICompilerRequestor() {
+                        public void acceptResult(CompilationResult result) {
+                            recordProblems(result, problems);
+                            requestor.acceptResult(result);
+                        }
+                    };
+                }
+            };
+            success = main.compile(args);
+            errorCount = main.globalErrorsCount;
+            warningCount = main.globalWarningsCount;
+        } catch (Throwable t) {
+            // keep the daemon alive and report the failure as the result of this request
+            t.printStackTrace(new PrintWriter(output));
+            success = false;
+            errorCount = 1;
+            warningCount = 0;
+        } finally {
+            resetStaticCaches();
+        }
+        return new CompilerDaemonClient.Response(success, errorCount, warningCount, problems, output.toString());
+    }
+
+    /**
+     * Forgets what the compiler keeps in static fields between compilations.  An
+     * in-process compile starts from a fresh class loader each time, but the
+     * daemon reuses its classes for every request.  Done reflectively, since the
+     * fields and methods differ between the groovy-eclipse-batch versions that
+     * the daemon may run with.
+     */
+    static void resetStaticCaches() {
+        try {
+            // the transform loaders of the projects, which hold on to their jars
+            Class<?> parser = Class.forName("org.codehaus.jdt.groovy.internal.compiler.ast.GroovyParser");
+            Method tidyAllCaches = parser.getMethod("tidyAllCaches");
+            tidyAllCaches.invoke(null);
+        } catch (Exception e) {
+            // not in this version
+        }
+        try {
+            // the last compilation unit, and the global transforms that were already added to it
+            Class<?> visitor = Class.forName("org.codehaus.groovy.transform.ASTTransformationVisitor");
+            Field compUnit = visitor.getDeclaredField("compUnit");
+            compUnit.setAccessible(true);
+            compUnit.set(null, null);
+            Field globalTransformNames = visitor.getDeclaredField("globalTransformNames");
+            globalTransformNames.setAccessible(true);
+            ((Collection<?>) globalTransformNames.get(null)).clear();
+        } catch (Exception e) {
+            // not in this version
+        }
+    }
+
+    private static void recordProblems(CompilationResult result, List<CompilerDaemonClient.Problem> problems) {
+        if (!result.hasProblems()) {
+            return;
+        }
+        char[] source = result.compilationUnit == null ? null : result.compilationUnit.getContents();
+        for (CategorizedProblem problem : result.getAllProblems()) {
+            if (problem.getID() == IProblem.Task) {
+                continue;
+            }
+            byte kind;
+            if (problem.isError()) {
+                kind = CompilerDaemonClient.KIND_ERROR;
+            } else if (problem.isWarning()) {
+                kind = CompilerDaemonClient.KIND_WARNING;
+            } else {
+                continue;
+            }
+            int startColumn = 0;
+            int endColumn = 0;
+            int start = problem.getSourceStart();
+            int end = problem.getSourceEnd();
+            if (source != null && source.length > 0 && start >= 0 && start <= end) {
+                // the same columns as the ^^^ under the source line in the console output of the batch compiler
+                int begin = Math.min(start, source.length - 1);
+                while (begin > 0 && source[begin - 1] != '\n' && source[begin - 1] != '\r') {
+                    begin--;
+                }
+                while (begin < start && (source[begin] == ' ' || source[begin] == '\t')) {
+                    begin++;
+                }
+                startColumn = start - begin + 1;
+                endColumn = Math.min(end, source.length - 1) - begin + 1;
+            }
+            char[] fileName = problem.getOriginatingFileName();
+            problems.add(new CompilerDaemonClient.Problem(kind, fileName == null ? null : new String(fileName),
+                    problem.getSourceLineNumber(), startColumn, endColumn, problem.getMessage()));
+        }
+    }
+}
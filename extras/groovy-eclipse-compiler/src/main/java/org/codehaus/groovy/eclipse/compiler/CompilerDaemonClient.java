@@ -0,0 +1,252 @@
+/*
+ * Copyright 2011 SpringSource, a division of VMware, Inc
+ *
+ * andrew - Initial API and implementation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Talks to a {@link CompilerDaemon} process.  Daemons are kept for the life of the
+ * build, one for each distinct command line (java executable, agent, memory
+ * settings), and compile one request at a time.
+ * <p>
+ * Like {@link GroovyEclipseCompiler}, this class must not reference any JDT classes,
+ * and it must not reference any plexus classes either since it is also loaded by
+ * the daemon.
+ */
+class CompilerDaemonClient {
+
+    static final byte KIND_ERROR = 0;
+    static final byte KIND_WARNING = 1;
+
+    static class Problem {
+        final byte kind;
+        final String file;
+        final int line;
+        final int startColumn;
+        final int endColumn;
+        final String message;
+
+        Problem(byte kind, String file, int line, int startColumn, int endColumn, String message) {
+            this.kind = kind;
+            this.file = file;
+            this.line = line;
+            this.startColumn = startColumn;
+            this.endColumn = endColumn;
+            this.message = message;
+        }
+    }
+
+    static class Response {
+        final boolean success;
+        final int errorCount;
+        final int warningCount;
+        final List<Problem> problems;
+        final String output;
+
+        Response(boolean success, int errorCount, int warningCount, List<Problem> problems, String output) {
+            this.success = success;
+            this.errorCount = errorCount;
+            this.warningCount = warningCount;
+            this.problems = problems;
+            this.output = output;
+        }
+    }
+
+    private static final Map<List<String>, CompilerDaemonClient> daemons = new HashMap<List<String>, CompilerDaemonClient>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread("Groovy-Eclipse compiler daemon shutdown") {
+            @Override
+            public void run() {
+                synchronized (daemons) {
+                    for (CompilerDaemonClient daemon : daemons.values()) {
+                        daemon.shutdown();
+                    }
+                    daemons.clear();
+                }
+            }
+        });
+    }
+
+    /**
+     * @param command the command line that starts the daemon
+     * @return a running daemon for the command, started if necessary
+     */
+    static CompilerDaemonClient getDaemon(List<String> command) throws IOException {
+        synchronized (daemons) {
+            CompilerDaemonClient daemon = daemons.get(command);
+            if (daemon == null || !daemon.isAlive()) {
+                daemon = new CompilerDaemonClient(command);
+                daemons.put(command, daemon);
+            }
+            return daemon;
+        }
+    }
+
+    /**
+     * Stops and forgets the daemon for the command, eg- after it failed to answer
+     */
+    static void discardDaemon(List<String> command) {
+        synchronized (daemons) {
+            CompilerDaemonClient daemon = daemons.remove(command);
+            if (daemon != null) {
+                daemon.shutdown();
+            }
+        }
+    }
+
+    private final Process process;
+    private final DataOutputStream toDaemon;
+    private final DataInputStream fromDaemon;
+
+    private CompilerDaemonClient(List<String> command) throws IOException {
+        process = new ProcessBuilder(command).start();
+        toDaemon = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        fromDaemon = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+
+        // anything the compiler prints outside of the protocol ends up here and must be drained
+        final BufferedReader err = new BufferedReader(new InputStreamReader(process.getErrorStream()));
+        Thread errDrainer = new Thread("Groovy-Eclipse compiler daemon stderr") {
+            @Override
+            public void run() {
+                try {
+                    String line;
+                    while ((line = err.readLine()) != null) {
+                        System.err.println(line);
+                    }
+                } catch (IOException e) {
+                    // daemon is gone
+                }
+            }
+        };
+        errDrainer.setDaemon(true);
+        errDrainer.start();
+    }
+
+    synchronized Response compile(String[] args) throws IOException {
+        writeRequest(toDaemon, args);
+        return readResponse(fromDaemon);
+    }
+
+    private boolean isAlive() {
+        try {
+            process.exitValue();
+            return false;
+        } catch (IllegalThreadStateException e) {
+            return true;
+        }
+    }
+
+    private void shutdown() {
+        try {
+            toDaemon.writeInt(-1);
+            toDaemon.close();
+        } catch (IOException e) {
+            // already gone
+        }
+        process.destroy();
+    }
+
+    /**
+     * @return the arguments of the next request, or null if the daemon should exit
+     */
+    static String[] readRequest(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            return null;
+        }
+        String[] args = new String[count];
+        for (int i = 0; i < count; i++) {
+            args[i] = readString(in);
+        }
+        return args;
+    }
+
+    static void writeRequest(DataOutputStream out, String[] args) throws IOException {
+        out.writeInt(args.length);
+        for (String arg : args) {
+            writeString(out, arg);
+        }
+        out.flush();
+    }
+
+    static void writeResponse(DataOutputStream out, Response response) throws IOException {
+        out.writeBoolean(response.success);
+        out.writeInt(response.errorCount);
+        out.writeInt(response.warningCount);
+        out.writeInt(response.problems.size());
+        for (Problem problem : response.problems) {
+            out.writeByte(problem.kind);
+            writeString(out, problem.file);
+            out.writeInt(problem.line);
+            out.writeInt(problem.startColumn);
+            out.writeInt(problem.endColumn);
+            writeString(out, problem.message);
+        }
+        writeString(out, response.output);
+    }
+
+    static Response readResponse(DataInputStream in) throws IOException {
+        boolean success = in.readBoolean();
+        int errorCount = in.readInt();
+        int warningCount = in.readInt();
+        int problemCount = in.readInt();
+        List<Problem> problems = new ArrayList<Problem>(problemCount);
+        for (int i = 0; i < problemCount; i++) {
+            byte kind = in.readByte();
+            String file = readString(in);
+            int line = in.readInt();
+            int startColumn = in.readInt();
+            int endColumn = in.readInt();
+            String message = readString(in);
+            problems.add(new Problem(kind, file, line, startColumn, endColumn, message));
+        }
+        String output = readString(in);
+        return new Response(success, errorCount, warningCount, problems, output);
+    }
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = s.getBytes("UTF-8");
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+}
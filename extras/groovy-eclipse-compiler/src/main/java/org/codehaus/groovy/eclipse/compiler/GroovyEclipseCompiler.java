@@ -72,8 +72,15 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
 
     private static final String JAVA_AGENT_CLASS_PARAM_NAME = "-javaAgentClass";
 
+    private static final String DAEMON_PARAM_NAME = "-daemon";
+
+    // not a class literal, since the daemon references JDT
+    private static final String DAEMON_CLASS = "org.codehaus.groovy.eclipse.compiler.CompilerDaemon";
+
     private String javaAgentClass = "";
 
+    private boolean daemon;
+
     boolean verbose;
 
     public GroovyEclipseCompiler() {
@@ -126,7 +133,11 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
             }
 
             String groovyEclipseLocation = getGroovyEclipseBatchLocation();
-            success = compileOutOfProcess(config, executable, groovyEclipseLocation, args, messages);
+            if (daemon) {
+                success = compileInDaemon(config, executable, groovyEclipseLocation, args, messages);
+            } else {
+                success = compileOutOfProcess(config, executable, groovyEclipseLocation, args, messages);
+            }
         } else {
             StringWriter out = new StringWriter();
             Result result = InternalCompiler.doCompile(args, out, getLogger(), verbose);
@@ -307,9 +318,15 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
             args.put("-encoding", config.getSourceEncoding());
         }
 
+        daemon = false;
         for (Entry<String, String> entry : config.getCustomCompilerArgumentsAsMap().entrySet()) {
 
             String key = entry.getKey();
+            if (DAEMON_PARAM_NAME.equals(key) || DAEMON_PARAM_NAME.equals("-" + key)) {
+                // not a compiler option, only changes how a forked compiler is run
+                daemon = true;
+                continue;
+            }
             if (startsWithHyphen(key)) {
                 if (JAVA_AGENT_CLASS_PARAM_NAME.equals(key)) {
                     setJavaAgentClass(entry.getValue());
@@ -464,6 +481,56 @@ public class GroovyEclipseCompiler extends AbstractCompiler {
         return returnCode == 0;
     }
 
+    /**
+     * Compile in a long lived {@link CompilerDaemon} process that is shared by all
+     * modules of the build that fork with the same settings.  Falls back to a
+     * regular forked compile if the daemon cannot be reached.
+     */
+    private boolean compileInDaemon(CompilerConfiguration config, String executable, String groovyEclipseLocation,
+            String[] args, List<CompilerMessage> messages) throws CompilerException {
+        List<String> command = new ArrayList<String>();
+        command.add(executable);
+        if (!StringUtils.isEmpty(javaAgentClass)) {
+            command.add("-javaagent:" + getAdditionnalJavaAgentLocation());
+        }
+        if (!StringUtils.isEmpty(config.getMaxmem())) {
+            command.add("-Xmx" + config.getMaxmem());
+        }
+        if (!StringUtils.isEmpty(config.getMeminitial())) {
+            command.add("-Xms" + config.getMeminitial());
+        }
+        command.add("-cp");
+        // the daemon lives in this plugin's jar
+        command.add(groovyEclipseLocation + File.pathSeparator + getClassLocation(GroovyEclipseCompiler.class.getName()));
+        command.add(DAEMON_CLASS);
+
+        CompilerDaemonClient.Response response;
+        try {
+            getLogger().info("Compiling in a compiler daemon using " + groovyEclipseLocation);
+            response = CompilerDaemonClient.getDaemon(command).compile(args);
+        } catch (IOException e) {
+            getLogger().warn("Compiler daemon failed, compiling in a forked process instead", e);
+            CompilerDaemonClient.discardDaemon(command);
+            return compileOutOfProcess(config, executable, groovyEclipseLocation, args, messages);
+        }
+
+        boolean showWarnings = config.isShowWarnings();
+        for (CompilerDaemonClient.Problem problem : response.problems) {
+            Kind kind = problem.kind == CompilerDaemonClient.KIND_ERROR ? Kind.ERROR : Kind.WARNING;
+            if (showWarnings || kind == Kind.ERROR) {
+                messages.add(new CompilerMessage(problem.file, kind, problem.line, problem.startColumn, problem.line,
+                        problem.endColumn, problem.message));
+            }
+        }
+        if (!response.success) {
+            if (response.problems.isEmpty() && response.output.length() > 0) {
+                messages.add(new CompilerMessage("Failure executing groovy-eclipse compiler:" + EOL + response.output, Kind.ERROR));
+            }
+            messages.add(formatResult(response.success, response.errorCount, response.warningCount));
+        }
+        return response.success;
+    }
+
     /**
      * Parse the output from the compiler into a list of CompilerError objects
      *
@@ -20,6 +20,7 @@ import org.eclipse.jdt.core.groovy.tests.builder.FullProjectTests;
 import org.eclipse.jdt.core.groovy.tests.compiler.ScriptFolderTests;
 import org.eclipse.jdt.core.groovy.tests.locations.ASTConverterTests;
 import org.eclipse.jdt.core.groovy.tests.locations.ASTNodeSourceLocationsTests;
+import org.eclipse.jdt.core.groovy.tests.locations.IncrementalCSTParserTests;
 import org.eclipse.jdt.core.groovy.tests.locations.LocationSupportTests;
 import org.eclipse.jdt.core.groovy.tests.locations.SourceLocationsTests;
 import org.eclipse.jdt.core.groovy.tests.model.AnnotationsTests;
@@ -63,6 +64,7 @@ public class GroovyJDTTests {
 		suite.addTestSuite(SourceLocationsTests.class);
 		suite.addTestSuite(ASTNodeSourceLocationsTests.class);
 		suite.addTestSuite(ASTConverterTests.class);
+		suite.addTestSuite(IncrementalCSTParserTests.class);
 
         // Compiler tests
         suite.addTest(GroovySimpleTest.suite());
@@ -13,6 +13,7 @@ package org.codehaus.groovy.eclipse.codeassist.tests;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 
 import org.codehaus.groovy.eclipse.codeassist.GroovyContentAssistActivator;
 import org.codehaus.groovy.eclipse.codeassist.completions.GroovyJavaMethodCompletionProposal;
@@ -20,7 +21,12 @@ import org.codehaus.groovy.eclipse.codeassist.requestor.GroovyCompletionProposal
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.tests.util.GroovyUtils;
+import org.eclipse.jdt.internal.ui.javaeditor.EditorUtility;
+import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+import org.eclipse.jdt.internal.ui.javaeditor.JavaSourceViewer;
+import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.ui.ide.IDE;
 
 /**
  * @author Andrew Eisenberg
@@ -218,6 +224,46 @@ public class DefaultGroovyMethodCompletionTests extends CompletionTestCase {
         // should find 2, not 4.  dups removed
         proposalExists(proposals, "findAll", 2);
     }
+
+    public void testCamelCaseDGM() throws Exception {
+        String contents = "[].fiA";
+        ICompilationUnit unit = createGroovyWithContents("Script", contents);
+        ICompletionProposal[] proposals = performContentAssist(unit, getIndexOf(contents, "fiA"), GroovyCompletionProposalComputer.class);
+        proposalExists(proposals, "findAll", 2);
+        proposalExists(proposals, "each", 0);
+    }
+
+    // proposals of an earlier invocation in the same session are narrowed down while typing
+    public void testRefineWhileTyping() throws Exception {
+        String contents = "[].fi";
+        ICompilationUnit unit = createGroovyWithContents("Script", contents);
+        unit.getResource().setPersistentProperty(IDE.EDITOR_KEY, "org.codehaus.groovy.eclipse.editor.GroovyEditor");
+        JavaEditor editor = (JavaEditor) EditorUtility.openInEditor(unit);
+        JavaSourceViewer viewer = (JavaSourceViewer) editor.getViewer();
+        int offset = getIndexOf(contents, "fi");
+
+        GroovyCompletionProposalComputer computer = new GroovyCompletionProposalComputer();
+        computer.sessionStarted();
+        List<ICompletionProposal> first = computer.computeCompletionProposals(
+                new JavaContentAssistInvocationContext(viewer, offset, editor), null);
+        viewer.getDocument().replace(offset, 0, "ndA");
+        List<ICompletionProposal> second = computer.computeCompletionProposals(
+                new JavaContentAssistInvocationContext(viewer, offset + 3, editor), null);
+        computer.sessionEnded();
+
+        assertTrue("Should only narrow down the earlier proposals", first.containsAll(second));
+        assertTrue("Should have fewer proposals", second.size() < first.size());
+        ICompletionProposal[] proposals = second.toArray(new ICompletionProposal[second.size()]);
+        proposalExists(proposals, "findAll", 2);
+        proposalExists(proposals, "find", 0);
+    }
+
+    public void testDGMOnlyForMatchingType() throws Exception {
+        String contents = "new Object().startD";
+        ICompilationUnit unit = createGroovyWithContents("Script", contents);
+        ICompletionProposal[] proposals = performContentAssist(unit, getIndexOf(contents, "startD"), GroovyCompletionProposalComputer.class);
+        proposalExists(proposals, "startDaemon", 0);
+    }
     
     private void setDGMFilter(String... filter) {
         GroovyContentAssistActivator.getDefault().setFilteredDGMs(new HashSet<String>(Arrays.asList(filter)));
@@ -17,8 +17,10 @@ package org.codehaus.groovy.eclipse.core.search;
 
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.groovy.eclipse.core.model.GroovyRuntime;
@@ -226,6 +228,45 @@ public class SyntheticMemberSearchTests extends EclipseTestCase {
         assertNumMatch(0, matches);
     }
 
+    public void testMemberNames() throws Exception {
+        String contents =
+                "new p.G().setProp()\n" +
+                        "new p.G().isProp()\n" +
+                        "new p.G().getProp()\n";
+        testProject.createUnit("", "Script.groovy", contents);
+        final Map<Integer, String> names = new HashMap<Integer, String>();
+        new SyntheticAccessorSearchRequestor().findSyntheticMatches(findSearchTarget("prop"), new ISyntheticAccessorRequestor() {
+            public void acceptMatch(SearchMatch match) {
+                fail("Should have been told the member name of " + match);
+            }
+
+            public void acceptMatch(SearchMatch match, String memberName) {
+                names.put(match.getOffset(), memberName);
+            }
+        }, null);
+        assertEquals(3, names.size());
+        assertEquals("setProp", names.get(contents.indexOf("setProp")));
+        assertEquals("isProp", names.get(contents.indexOf("isProp")));
+        assertEquals("getProp", names.get(contents.indexOf("getProp")));
+    }
+
+    public void testMemberNamesOfProperty() throws Exception {
+        String contents = "new p.G().explicitGetter\n";
+        testProject.createUnit("", "Script.groovy", contents);
+        final List<String> names = new ArrayList<String>();
+        new SyntheticAccessorSearchRequestor().findSyntheticMatches(findSearchTarget("getExplicitGetter"),
+                new ISyntheticAccessorRequestor() {
+                    public void acceptMatch(SearchMatch match) {
+                        fail("Should have been told the member name of " + match);
+                    }
+
+                    public void acceptMatch(SearchMatch match, String memberName) {
+                        names.add(memberName);
+                    }
+                }, null);
+        assertEquals(1, names.size());
+        assertEquals("explicitGetter", names.get(0));
+    }
 
     private IJavaElement findSearchTarget(String name) throws JavaModelException {
         for (IJavaElement child : gType.getChildren()) {
@@ -30,8 +30,10 @@ public class AllDSLTests {
         suite.addTest(BuiltInDSLInferencingTests.suite());
         suite.addTest(DSLStoreTests.suite());
         suite.addTestSuite(StringObjectVectorTests.class);
+        suite.addTestSuite(PointcutDispatchIndexTests.class);
         suite.addTestSuite(DSLContentAssistTests.class);
         suite.addTestSuite(DSLNamedArgContentAssistTests.class);
+        suite.addTest(StaticCheckerTests.suite());
         return suite;
     }
 
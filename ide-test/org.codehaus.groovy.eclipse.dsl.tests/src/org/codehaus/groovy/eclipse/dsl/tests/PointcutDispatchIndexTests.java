@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.codehaus.groovy.eclipse.dsl.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.codehaus.groovy.ast.ClassHelper;
+import org.codehaus.groovy.eclipse.dsl.contributions.IContributionGroup;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.AbstractPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutDispatchIndex;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.AndPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.CurrentTypePointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.FileExtensionPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.OrPointcut;
+
+/**
+ * Tests that {@link PointcutDispatchIndex} only returns the pointcuts that can match
+ * the current type, in registration order
+ */
+public class PointcutDispatchIndexTests extends TestCase {
+
+    @SuppressWarnings("deprecation")
+    private final GroovyDSLDContext context = new GroovyDSLDContext(new String[0], "src/p/Foo.groovy", "src");
+
+    private final Map<IPointcut, List<IContributionGroup>> map = new LinkedHashMap<IPointcut, List<IContributionGroup>>();
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        add(currentType("java.lang.String"));
+        add(currentType("java.lang.Integer"));
+        add(and(currentType("java.lang.String"), fileExtension("groovy")));
+        add(fileExtension("groovy"));
+        add(or(currentType("java.lang.Integer"), currentType("java.lang.String")));
+        add(or(currentType("java.lang.Integer"), fileExtension("groovy")));
+    }
+
+    public void testCandidatesForString() throws Exception {
+        context.setTargetType(ClassHelper.STRING_TYPE);
+        assertCandidates(new PointcutDispatchIndex(map, Collections.<String>emptySet()).findCandidates(context, -1), 0, 2, 3, 4, 5);
+    }
+
+    public void testCandidatesForInteger() throws Exception {
+        context.setTargetType(ClassHelper.Integer_TYPE);
+        assertCandidates(new PointcutDispatchIndex(map, Collections.<String>emptySet()).findCandidates(context, -1), 1, 3, 4, 5);
+    }
+
+    public void testCandidatesForUnindexedType() throws Exception {
+        context.setTargetType(ClassHelper.OBJECT_TYPE);
+        assertCandidates(new PointcutDispatchIndex(map, Collections.<String>emptySet()).findCandidates(context, -1), 3, 5);
+    }
+
+    public void testCandidatesAfter() throws Exception {
+        context.setTargetType(ClassHelper.STRING_TYPE);
+        assertCandidates(new PointcutDispatchIndex(map, Collections.<String>emptySet()).findCandidates(context, 2), 3, 4, 5);
+    }
+
+    private void assertCandidates(int[] actual, int... expected) {
+        List<Integer> actualList = new ArrayList<Integer>();
+        for (int i : actual) {
+            actualList.add(i);
+        }
+        List<Integer> expectedList = new ArrayList<Integer>();
+        for (int i : expected) {
+            expectedList.add(i);
+        }
+        assertEquals(expectedList, actualList);
+    }
+
+    private void add(IPointcut pointcut) {
+        map.put(pointcut, new ArrayList<IContributionGroup>());
+    }
+
+    private IPointcut currentType(String name) {
+        AbstractPointcut pointcut = new CurrentTypePointcut(null, "currentType");
+        pointcut.addArgument(name);
+        return pointcut;
+    }
+
+    private IPointcut fileExtension(String extension) {
+        AbstractPointcut pointcut = new FileExtensionPointcut(null, "fileExtension");
+        pointcut.addArgument(extension);
+        return pointcut;
+    }
+
+    private IPointcut and(IPointcut left, IPointcut right) {
+        AbstractPointcut pointcut = new AndPointcut(null, "and");
+        pointcut.addArgument(left);
+        pointcut.addArgument(right);
+        return pointcut;
+    }
+
+    private IPointcut or(IPointcut left, IPointcut right) {
+        AbstractPointcut pointcut = new OrPointcut(null, "or");
+        pointcut.addArgument(left);
+        pointcut.addArgument(right);
+        return pointcut;
+    }
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *      Andrew Eisenberg - Initial implemenation
+ *******************************************************************************/
+package org.codehaus.groovy.eclipse.dsl.tests;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.codehaus.groovy.eclipse.dsl.checker.ResourceTypeChecker;
+import org.codehaus.groovy.eclipse.dsl.checker.TabSeparatedStaticCheckerHandler;
+
+/**
+ * Tests the output of the static checker, when checking one file at a time and when checking files in parallel
+ */
+public class StaticCheckerTests extends AbstractDSLInferencingTest {
+    public static Test suite() {
+        return new TestSuite(StaticCheckerTests.class);
+    }
+
+    public StaticCheckerTests(String name) {
+        super(name);
+    }
+
+    public void testTabSeparatedFormat() throws Exception {
+        String contents =
+            "class A {\n" +
+            "  def m() {\n" +
+            "    1 // TYPE:java.lang.String\n" +
+            "  }\n" +
+            "}\n";
+        createUnit("A", contents);
+        createUnit("B", "class B { }");
+
+        String[] lines = check(1);
+        assertEquals(4, lines.length);
+        assertEquals("INVALID\t/Project/src/A.groovy\t3\t" + contents.indexOf("1 //") + "\t1\t1\tjava.lang.String\tjava.lang.Integer",
+                lines[0]);
+        assertEquals("FILE\t/Project/src/A.groovy\t1\tMILLIS", lines[1]);
+        assertEquals("FILE\t/Project/src/B.groovy\t0\tMILLIS", lines[2]);
+        assertEquals("RESULT\tFAILURE\t1", lines[3]);
+    }
+
+    public void testSuccessRecord() throws Exception {
+        createUnit("A", "class A {\n  def m() {\n    1 // TYPE:java.lang.Integer\n  }\n}\n");
+
+        String[] lines = check(1);
+        assertEquals(2, lines.length);
+        assertEquals("FILE\t/Project/src/A.groovy\t0\tMILLIS", lines[0]);
+        assertEquals("RESULT\tSUCCESS\t0", lines[1]);
+    }
+
+    public void testParallelOutputIsSerialOutput() throws Exception {
+        // the first file takes longest to check, so the workers finish the others first
+        StringBuilder longContents = new StringBuilder("class F0 {\n  def m() {\n");
+        for (int i = 0; i < 500; i++) {
+            longContents.append("    def x" + i + " = [a: 'b'].get('a').length()\n");
+        }
+        longContents.append("    1 // TYPE:F0\n  }\n}\n");
+        createUnit("F0", longContents.toString());
+        for (int i = 1; i < 10; i++) {
+            createUnit("F" + i, "class F" + i + " {\n  def m() {\n    " + i + " // TYPE:F" + i + "\n  }\n}\n");
+        }
+
+        String[] serial = check(1);
+        assertEquals(21, serial.length);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(join(serial), join(check(4)));
+        }
+    }
+
+    public void testParallelOutputIsInFileOrder() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            createUnit("F" + i, "class F" + i + " {\n  def m() {\n    " + i + " // TYPE:F" + i + "\n  }\n}\n");
+        }
+
+        String[] lines = check(4);
+        assertEquals(21, lines.length);
+        for (int i = 0; i < 10; i++) {
+            // the problems of a file come right before the record of the file
+            assertTrue(lines[2 * i], lines[2 * i].startsWith("INVALID\t/Project/src/F" + i + ".groovy\t"));
+            assertEquals("FILE\t/Project/src/F" + i + ".groovy\t1\tMILLIS", lines[2 * i + 1]);
+        }
+        assertEquals("RESULT\tFAILURE\t10", lines[20]);
+    }
+
+    /**
+     * @return the records printed when checking the project with the given number of threads, with the time taken for each
+     *         file replaced by MILLIS
+     */
+    private String[] check(int threads) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TabSeparatedStaticCheckerHandler handler = new TabSeparatedStaticCheckerHandler(new PrintStream(bytes, true, "UTF-8"));
+        ResourceTypeChecker checker = new ResourceTypeChecker(handler, project.getName(), null, null, true);
+        checker.setThreads(threads);
+        checker.doCheck(null);
+
+        String[] lines = bytes.toString("UTF-8").split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = lines[i].replaceFirst("^(FILE\t[^\t]*\t\\d+)\t\\d+$", "$1\tMILLIS");
+        }
+        return lines;
+    }
+
+    private static String join(String[] lines) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2003-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codehaus.groovy.eclipse.refactoring.test.formatter;
+
+import java.util.HashMap;
+
+import junit.framework.TestCase;
+
+import org.codehaus.groovy.eclipse.refactoring.formatter.DefaultGroovyFormatter;
+import org.codehaus.groovy.eclipse.refactoring.formatter.FormatterPreferencesOnStore;
+import org.codehaus.groovy.eclipse.refactoring.test.TestPrefInitializer;
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.TextSelection;
+import org.eclipse.text.edits.TextEdit;
+
+/**
+ * Tests the edits that the formatter creates, also for a large script
+ */
+public class FormatterEditTests extends TestCase {
+
+    public void testNoChange() throws Exception {
+        TextEdit edit = DefaultGroovyFormatter.createMinimalEdit("def x = 1\n", "def x = 1\n");
+        assertEquals(0, edit.getChildrenSize());
+    }
+
+    public void testWhitespaceOnly() throws Exception {
+        String original = "class A {\ndef x =  1\n  def y = 2\n}\n";
+        String formatted = "class A {\n\tdef x = 1\n\tdef y = 2\n}\n";
+        TextEdit edit = DefaultGroovyFormatter.createMinimalEdit(original, formatted);
+        assertEquals(3, edit.getChildrenSize());
+        assertApplies(original, formatted, edit);
+    }
+
+    public void testWhitespaceAtStartAndEnd() throws Exception {
+        String original = "  def x = 1";
+        String formatted = "def x = 1\n";
+        TextEdit edit = DefaultGroovyFormatter.createMinimalEdit(original, formatted);
+        assertEquals(2, edit.getChildrenSize());
+        assertApplies(original, formatted, edit);
+    }
+
+    public void testOtherChanges() throws Exception {
+        String original = "def x = 1;\ndef y = 2;\n";
+        String formatted = "def x = 1\ndef y = 2\n";
+        TextEdit edit = DefaultGroovyFormatter.createMinimalEdit(original, formatted);
+        assertEquals(1, edit.getChildrenSize());
+        assertEquals(9, edit.getChildren()[0].getOffset());
+        assertEquals(12, edit.getChildren()[0].getLength());
+        assertApplies(original, formatted, edit);
+    }
+
+    public void testLargeScript() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            sb.append("task task").append(i).append(" {\n");
+            sb.append("dependsOn 'compile'\n");
+            sb.append("doLast {\n");
+            sb.append("def files = [1, 2, 3].collect { it * ").append(i).append(" }\n");
+            sb.append("if (files.size() > 2) {\n");
+            sb.append("println \"task ").append(i).append(" ${files}\"\n");
+            sb.append("} else {\n");
+            sb.append("files.each { f ->\n");
+            sb.append("println f\n");
+            sb.append("}\n");
+            sb.append("}\n");
+            sb.append("}\n");
+            sb.append("}\n");
+        }
+        String original = sb.toString();
+
+        IPreferenceStore pref = TestPrefInitializer.initializePreferences(new HashMap<String, String>(), null);
+        Document document = new Document(original);
+        DefaultGroovyFormatter formatter = new DefaultGroovyFormatter(new TextSelection(document, 0, document.getLength()),
+                document, new FormatterPreferencesOnStore(pref), false);
+
+        TextEdit edit = formatter.format();
+
+        // only indentation changes
+        assertEquals(original.replaceAll("\\s+", ""), applyEdit(original, edit).replaceAll("\\s+", ""));
+        assertTrue("Expected an edit for each indented line", edit.getChildrenSize() > 1000);
+    }
+
+    private void assertApplies(String original, String formatted, TextEdit edit) throws Exception {
+        assertEquals(formatted, applyEdit(original, edit));
+    }
+
+    private String applyEdit(String original, TextEdit edit) throws Exception {
+        Document document = new Document(original);
+        edit.apply(document);
+        return document.get();
+    }
+}
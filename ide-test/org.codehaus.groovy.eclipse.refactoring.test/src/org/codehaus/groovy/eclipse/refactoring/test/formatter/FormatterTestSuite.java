@@ -39,6 +39,7 @@ public class FormatterTestSuite extends BaseTestSuite {
         ts.addTestSuite(FindIndentsTests.class);
         ts.addTestSuite(TestFormatterPreferences.class);
         ts.addTestSuite(GroovyDocumentScannerTests.class);
+        ts.addTestSuite(FormatterEditTests.class);
         return ts;
     }
 }
@@ -119,6 +119,100 @@ public class GroovyDocumentScannerTests extends TestCase {
         scanner.dispose();
     }
 
+    public void testIncrementalEdits() throws Exception {
+        String text =
+            "class Foo {\n" +
+            "    def a = 1\n" +
+            "    def b = foo(1,\n" +
+            "        2) { x ->\n" +
+            "            x * 2\n" +
+            "        }\n" +
+            "    def c = \"${a\n" +
+            "      + b}\" / 2\n" +
+            "    def d = /regex/\n" +
+            "}\n";
+        makeEditor(text);
+
+        IDocument doc = getDocument();
+        GroovyDocumentScanner scanner = new GroovyDocumentScanner(doc);
+        assertSameTokens(scanner);
+
+        // typing at the end of a line
+        doc.replace(text.indexOf("1\n"), 1, "12");
+        assertSameTokens(scanner);
+
+        // new lines
+        doc.replace(doc.get().indexOf("def b"), 0, "def e = 3\n    ");
+        assertSameTokens(scanner);
+
+        // inside of parentheses and closures
+        doc.replace(doc.get().indexOf("2) {"), 1, "(3,\n 4)");
+        assertSameTokens(scanner);
+        doc.replace(doc.get().indexOf("x * 2"), 5, "x\n*\n2");
+        assertSameTokens(scanner);
+
+        // inside of a string constructor
+        doc.replace(doc.get().indexOf("+ b}"), 1, "\n-");
+        assertSameTokens(scanner);
+
+        // a change that makes the rest of the file a string
+        doc.replace(doc.get().indexOf("def a"), 0, "'''");
+        assertSameTokens(scanner);
+        doc.replace(doc.get().indexOf("'''"), 3, "");
+        assertSameTokens(scanner);
+
+        // removing lines
+        doc.replace(doc.get().indexOf("def e"), doc.get().indexOf("def c") - doc.get().indexOf("def e"), "");
+        assertSameTokens(scanner);
+
+        doc.set("a b c");
+        assertSameTokens(scanner);
+        scanner.dispose();
+    }
+
+    public void testEditsLeaveEarlierTokensAlone() throws Exception {
+        String text =
+            "def a = 1\n" +
+            "def b = 2\n";
+        makeEditor(text);
+
+        IDocument doc = getDocument();
+        GroovyDocumentScanner scanner = new GroovyDocumentScanner(doc);
+        List<Token> before = scanner.getLineTokens(1);
+        assertTokens(new String[] { "def", "b", "=", "2", "<newline>" }, before);
+        int line = before.get(1).getLine();
+        int column = before.get(1).getColumn();
+
+        // the tokens after the change are moved, the ones we got before must not be
+        doc.replace(text.indexOf("1\n"), 1, "1\n\n");
+        assertEquals(line, before.get(1).getLine());
+        assertEquals(column, before.get(1).getColumn());
+        assertTokens(new String[] { "def", "b", "=", "2", "<newline>" }, scanner.getLineTokens(2));
+        scanner.dispose();
+    }
+
+    /**
+     * Checks that the tokens of a scanner that has seen the changes to its
+     * document are the same as the tokens of a new scanner
+     */
+    private void assertSameTokens(GroovyDocumentScanner scanner) throws BadLocationException {
+        IDocument doc = scanner.getDocument();
+        GroovyDocumentScanner fresh = new GroovyDocumentScanner(doc);
+        List<Token> expected = fresh.getTokens(0, doc.getLength() + 1);
+        List<Token> actual = scanner.getTokens(0, doc.getLength() + 1);
+        assertEquals("Wrong tokens for:\n" + doc.get(), expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Token e = expected.get(i);
+            Token a = actual.get(i);
+            String message = "Wrong token " + i + " for:\n" + doc.get();
+            assertEquals(message, e.getType(), a.getType());
+            assertEquals(message, e.getText(), a.getText());
+            assertEquals(message, fresh.getOffset(e), scanner.getOffset(a));
+            assertEquals(message, fresh.getEnd(e), scanner.getEnd(a));
+        }
+        fresh.dispose();
+    }
+
     private IDocument getDocument() {
         return editDoc;
     }
@@ -25,6 +25,7 @@ import static org.codehaus.groovy.eclipse.editor.highlighting.HighlightedTypedPo
 import static org.codehaus.groovy.eclipse.editor.highlighting.HighlightedTypedPosition.HighlightKind.NUMBER;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 
 import org.codehaus.groovy.eclipse.GroovyPlugin;
@@ -36,7 +37,9 @@ import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jface.text.Region;
 import org.eclipse.ui.PartInitException;
 
 /**
@@ -203,6 +206,26 @@ public class SemanticHighlightingTests extends EclipseTestCase {
                 new HighlightedTypedPosition(third, "f".length(), STATIC_METHOD));
     }
     
+    public void testOnlyMembersInRegion() throws Exception {
+        String contents = "class X {\n static FOO\n def x() { \n FOO }\n def y() { \n FOO } }";
+        int start = contents.indexOf("def y");
+        GroovyCompilationUnit unit = openFile(contents);
+        Collection<HighlightedTypedPosition> positions = new GatherSemanticReferences(unit).findSemanticHighlightingReferences(
+                new Region(start, contents.length() - start), null);
+        assertEquals("Should have found only the references in y():\n" + positions, 2, positions.size());
+        for (HighlightedTypedPosition position : positions) {
+            assertTrue("Should be inside of y(): " + position, position.offset >= start);
+        }
+    }
+
+    public void testCanceled() throws Exception {
+        String contents = "class X { static FOO() { FOO() } }";
+        GroovyCompilationUnit unit = openFile(contents);
+        NullProgressMonitor monitor = new NullProgressMonitor();
+        monitor.setCanceled(true);
+        assertEquals(0, new GatherSemanticReferences(unit).findSemanticHighlightingReferences(null, monitor).size());
+    }
+
     private void assertHighlighting(String contents, HighlightedTypedPosition... expectedPositions) throws Exception {
         GroovyCompilationUnit unit = openFile(contents);
         checkStyles(unit, expectedPositions);
@@ -16,17 +16,13 @@
 
 package org.codehaus.groovy.eclipse.codeassist.creators;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.ast.MethodNode;
-import org.codehaus.groovy.ast.Parameter;
 import org.codehaus.groovy.eclipse.codeassist.ProposalUtils;
 import org.codehaus.groovy.eclipse.codeassist.preferences.DGMProposalFilter;
 import org.codehaus.groovy.eclipse.codeassist.proposals.GroovyCategoryMethodProposal;
@@ -56,11 +52,15 @@ public class CategoryProposalCreator extends AbstractProposalCreator {
         DGMProposalFilter filter = new DGMProposalFilter();
         List<IGroovyProposal> groovyProposals = new LinkedList<IGroovyProposal>();
         Set<String> existingFieldProposals = new HashSet<String>();
-        Map<String, List<MethodNode>> existingMethodProposals = new HashMap<String, List<MethodNode>>();
+        Set<String> existingMethodProposals = new HashSet<String>();
         for (ClassNode category : categories) {
-            List<MethodNode> allMethods = category.getAllDeclaredMethods();
+            // only the methods that match the prefix and the type
+            List<MethodNode> candidates = CategoryProposalIndex.getIndex(category).findCandidates(prefix, set);
+            if (candidates.isEmpty()) {
+                continue;
+            }
             boolean isDGMCategory = isDGMCategory(category);
-            for (MethodNode method : allMethods) {
+            for (MethodNode method : candidates) {
                 // Check for DGMs filtered from preferences
                 if (isDGMCategory && filter.isFiltered(method)) {
                     continue;
@@ -68,31 +68,18 @@ public class CategoryProposalCreator extends AbstractProposalCreator {
                 // need to check if the method is being accessed directly
                 // or as a property (eg- getText() --> text)
                 String methodName = method.getName();
-                if (method.isStatic() && method.isPublic()) {
-                    Parameter[] params = method.getParameters();
-                    if (ProposalUtils.looselyMatches(prefix, methodName)) {
-                        if (params != null && params.length > 0 && set.contains(params[0].getType().getName())
-                                && !dupMethod(method, existingMethodProposals)) {
-                            GroovyCategoryMethodProposal methodProposal = new GroovyCategoryMethodProposal(method);
-                            methodProposal.setRelevanceMultiplier(isInterestingType(method.getReturnType()) ? 101 : 1);
-                            groovyProposals.add(methodProposal);
-                            List<MethodNode> methodList = existingMethodProposals.get(methodName);
-                            if (methodList == null) {
-                                methodList = new ArrayList<MethodNode>(2);
-                                existingMethodProposals.put(methodName, methodList);
-                            }
-                            methodList.add(method);
-                        }
-                    } else if (params.length == 1
-                            && findLooselyMatchedAccessorKind(prefix, methodName, true).isAccessorKind(method, true)
-                            && !existingFieldProposals.contains(methodName) && hasNoField(declaringClass, methodName)) {
-                        // add property variant of accessor name
-                        GroovyFieldProposal fieldProposal = new GroovyFieldProposal(createMockField(method));
-                        fieldProposal.setRelevanceMultiplier(1);
-                        groovyProposals.add(fieldProposal);
-                        existingFieldProposals.add(methodName);
+                if (ProposalUtils.looselyMatches(prefix, methodName)) {
+                    if (existingMethodProposals.add(createMethodKey(method))) {
+                        GroovyCategoryMethodProposal methodProposal = new GroovyCategoryMethodProposal(method);
+                        methodProposal.setRelevanceMultiplier(isInterestingType(method.getReturnType()) ? 101 : 1);
+                        groovyProposals.add(methodProposal);
                     }
-
+                } else if (!existingFieldProposals.contains(methodName) && hasNoField(declaringClass, methodName)) {
+                    // add property variant of accessor name
+                    GroovyFieldProposal fieldProposal = new GroovyFieldProposal(createMockField(method));
+                    fieldProposal.setRelevanceMultiplier(1);
+                    groovyProposals.add(fieldProposal);
+                    existingFieldProposals.add(methodName);
                 }
             }
         }
@@ -100,37 +87,14 @@ public class CategoryProposalCreator extends AbstractProposalCreator {
     }
 
     /**
-     * Check thatthe new method hasn't already been added
-     * We SHOULD be checking if this new method is more specific than the old
-     * method
-     * and replacing if it is, but we are not doing that.
+     * Methods with the same name and number of parameters are only proposed
+     * once. We SHOULD be checking if a new method is more specific than the
+     * old method and replacing if it is, but we are not doing that.
      *
-     * @param method
-     * @param existingMethodProposals
-     * @return
+     * @return the key that a method is known by when checking for duplicates
      */
-    private boolean dupMethod(MethodNode newMethod, Map<String, List<MethodNode>> existingMethodProposals) {
-        List<MethodNode> otherMethods = existingMethodProposals.get(newMethod.getName());
-        if (otherMethods != null) {
-            Parameter[] newParameters = newMethod.getParameters();
-            for (MethodNode otherMethod : otherMethods) {
-                Parameter[] otherParameters = otherMethod.getParameters();
-                if (otherParameters.length == newParameters.length) {
-                    // already know that the first parameter has a matching
-                    // type, so
-                    // start with remaining parameters
-                    for (int i = 1; i < otherParameters.length; i++) {
-                        if (!otherParameters[i].getType().getName().equals(newParameters[i].getType().getName())) {
-                            // there is a mismatched parameter
-                            continue;
-                        }
-                    }
-                    // all parameters match
-                    return true;
-                }
-            }
-        }
-        return false;
+    private String createMethodKey(MethodNode method) {
+        return method.getName() + '/' + method.getParameters().length;
     }
 
     /**
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2003-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.codehaus.groovy.eclipse.codeassist.creators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.MethodNode;
+import org.codehaus.groovy.ast.Parameter;
+import org.codehaus.groovy.eclipse.codeassist.ProposalUtils;
+import org.eclipse.jdt.groovy.search.AccessorSupport;
+import org.eclipse.jdt.groovy.search.VariableScope;
+
+/**
+ * The methods of a category class that can be proposed in content assist.
+ * Methods are kept by the type of their first parameter and sorted by name.
+ * The accessors that can also be proposed as properties are sorted by their
+ * property name. A prefix can only match names that start with the same
+ * character (see {@link ProposalUtils#looselyMatches(String, String)}), so a
+ * lookup only looks at the names starting with that character.
+ * <p>
+ * Indexes of the default categories are built once and shared.
+ */
+class CategoryProposalIndex {
+
+    private static final Map<ClassNode, CategoryProposalIndex> DEFAULT_INDEXES = new IdentityHashMap<ClassNode, CategoryProposalIndex>();
+
+    /**
+     * @return the index for the category, which is shared if the category is
+     *         one of the default categories
+     */
+    static CategoryProposalIndex getIndex(ClassNode category) {
+        if (!VariableScope.ALL_DEFAULT_CATEGORIES.contains(category)) {
+            return new CategoryProposalIndex(category);
+        }
+        synchronized (DEFAULT_INDEXES) {
+            CategoryProposalIndex index = DEFAULT_INDEXES.get(category);
+            if (index == null) {
+                index = new CategoryProposalIndex(category);
+                DEFAULT_INDEXES.put(category, index);
+            }
+            return index;
+        }
+    }
+
+    private static class Entry {
+        /** the name that is matched against the prefix */
+        final String name;
+        final MethodNode method;
+        /** position of the method in the category */
+        final int order;
+
+        Entry(String name, MethodNode method, int order) {
+            this.name = name;
+            this.method = method;
+            this.order = order;
+        }
+    }
+
+    private static final Comparator<Entry> BY_NAME = new Comparator<Entry>() {
+        public int compare(Entry e1, Entry e2) {
+            return e1.name.compareTo(e2.name);
+        }
+    };
+
+    private static final Comparator<Entry> BY_ORDER = new Comparator<Entry>() {
+        public int compare(Entry e1, Entry e2) {
+            return e1.order - e2.order;
+        }
+    };
+
+    /** public static methods with at least one parameter, by the name of the first parameter's type */
+    private final Map<String, Entry[]> methodsByFirstParameter = new HashMap<String, Entry[]>();
+
+    /** public static accessors with one parameter, by property name */
+    private final Entry[] accessors;
+
+    private CategoryProposalIndex(ClassNode category) {
+        Map<String, List<Entry>> methods = new HashMap<String, List<Entry>>();
+        List<Entry> accessorList = new ArrayList<Entry>();
+        int order = 0;
+        for (MethodNode method : category.getAllDeclaredMethods()) {
+            order++;
+            if (!method.isStatic() || !method.isPublic()) {
+                continue;
+            }
+            Parameter[] params = method.getParameters();
+            if (params == null || params.length == 0) {
+                continue;
+            }
+            String methodName = method.getName();
+            String firstParameter = params[0].getType().getName();
+            List<Entry> list = methods.get(firstParameter);
+            if (list == null) {
+                list = new ArrayList<Entry>();
+                methods.put(firstParameter, list);
+            }
+            list.add(new Entry(methodName, method, order));
+
+            if (params.length == 1 && AccessorSupport.create(methodName, true).isAccessorKind(method, true)) {
+                accessorList.add(new Entry(ProposalUtils.createMockFieldName(methodName), method, order));
+            }
+        }
+
+        for (Map.Entry<String, List<Entry>> entry : methods.entrySet()) {
+            methodsByFirstParameter.put(entry.getKey(), sortByName(entry.getValue()));
+        }
+        accessors = sortByName(accessorList);
+    }
+
+    /**
+     * Finds the methods to propose for the prefix on a receiver with the given
+     * types. These are the methods whose name matches the prefix and whose
+     * first parameter is one of the types, and the accessors whose property
+     * name matches the prefix while their method name does not.
+     *
+     * @param prefix the prefix to match
+     * @param types names of the receiver type and all of its super types
+     * @return the methods in the order that they are declared in the category
+     */
+    List<MethodNode> findCandidates(String prefix, Set<String> types) {
+        List<Entry> found = new ArrayList<Entry>();
+        for (String type : types) {
+            Entry[] entries = methodsByFirstParameter.get(type);
+            if (entries != null) {
+                int end = endOfRange(entries, prefix);
+                for (int i = startOfRange(entries, prefix); i < end; i++) {
+                    if (ProposalUtils.looselyMatches(prefix, entries[i].name)) {
+                        found.add(entries[i]);
+                    }
+                }
+            }
+        }
+        int end = endOfRange(accessors, prefix);
+        for (int i = startOfRange(accessors, prefix); i < end; i++) {
+            Entry entry = accessors[i];
+            if (ProposalUtils.looselyMatches(prefix, entry.name)
+                    && !ProposalUtils.looselyMatches(prefix, entry.method.getName())) {
+                found.add(entry);
+            }
+        }
+
+        Collections.sort(found, BY_ORDER);
+        List<MethodNode> candidates = new ArrayList<MethodNode>(found.size());
+        for (Entry entry : found) {
+            candidates.add(entry.method);
+        }
+        return candidates;
+    }
+
+    private static Entry[] sortByName(List<Entry> list) {
+        Entry[] entries = list.toArray(new Entry[list.size()]);
+        Arrays.sort(entries, BY_NAME);
+        return entries;
+    }
+
+    private static int startOfRange(Entry[] entries, String prefix) {
+        return prefix.length() == 0 ? 0 : firstStartingAtOrAfter(entries, prefix.charAt(0));
+    }
+
+    private static int endOfRange(Entry[] entries, String prefix) {
+        return prefix.length() == 0 ? entries.length : firstStartingAtOrAfter(entries, (char) (prefix.charAt(0) + 1));
+    }
+
+    /**
+     * @return index of the first entry whose name starts with a character that
+     *         is not less than c
+     */
+    private static int firstStartingAtOrAfter(Entry[] entries, char c) {
+        int start = 0;
+        int end = entries.length;
+        while (start < end) {
+            int mid = (start + end) >>> 1;
+            String name = entries[mid].name;
+            if (name.length() == 0 || name.charAt(0) < c) {
+                start = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        return start;
+    }
+}
@@ -172,7 +172,7 @@ public class NewMethodCompletionProcessor extends AbstractGroovyCompletionProces
         for (int i = 0; i < paramTypeNames.length; i++) {
             ClassNode paramType = parameters[i].getType();
             if (mapper != null && paramType.getGenericsTypes() != null && paramType.getGenericsTypes().length > 0) {
-                paramType = VariableScope.resolveTypeParameterization(mapper, VariableScope.clone(paramType));
+                paramType = VariableScope.resolveTypeParameterization(mapper, paramType);
             }
             paramTypeNames[i] = paramType.getName();
             if (paramTypeNames[i].startsWith("[")) {
@@ -39,8 +39,10 @@ import org.eclipse.jdt.internal.core.SearchableEnvironment;
 import org.eclipse.jdt.ui.text.java.ContentAssistInvocationContext;
 import org.eclipse.jdt.ui.text.java.IJavaCompletionProposalComputer;
 import org.eclipse.jdt.ui.text.java.JavaContentAssistInvocationContext;
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
+import org.eclipse.jface.text.contentassist.ICompletionProposalExtension2;
 import org.eclipse.jface.text.contentassist.IContextInformation;
 
 public class GroovyCompletionProposalComputer implements
@@ -108,6 +110,67 @@ public class GroovyCompletionProposalComputer implements
     }
 
 
+    /**
+     * The proposals of the last invocation in the current content assist
+     * session. If the user only types more of the same name, the next
+     * invocation narrows these down rather than finding the completion node,
+     * inferring types and running the processors again.
+     */
+    private static class CachedProposals {
+        final ICompilationUnit unit;
+        final IDocument document;
+        /** start of the name that is being completed */
+        final int prefixStart;
+        final int invocationOffset;
+        final int documentLength;
+        final List<ICompletionProposal> proposals;
+
+        CachedProposals(ICompilationUnit unit, IDocument document, int prefixStart, int invocationOffset,
+                List<ICompletionProposal> proposals) {
+            this.unit = unit;
+            this.document = document;
+            this.prefixStart = prefixStart;
+            this.invocationOffset = invocationOffset;
+            this.documentLength = document.getLength();
+            this.proposals = proposals;
+        }
+
+        /**
+         * The proposals can be narrowed down if the only change to the
+         * document is that characters of a name were typed at the previous
+         * invocation offset
+         */
+        boolean canRefine(ICompilationUnit otherUnit, IDocument otherDocument, int offset) {
+            if (otherUnit != unit || otherDocument != document || offset < invocationOffset
+                    || document.getLength() - documentLength != offset - invocationOffset) {
+                return false;
+            }
+            try {
+                return isNamePart(document.get(prefixStart, offset - prefixStart));
+            } catch (BadLocationException e) {
+                return false;
+            }
+        }
+
+        /**
+         * @return the proposals that are still valid at the offset
+         */
+        List<ICompletionProposal> refine(int offset) {
+            List<ICompletionProposal> refined = new ArrayList<ICompletionProposal>(proposals.size());
+            for (ICompletionProposal proposal : proposals) {
+                if (((ICompletionProposalExtension2) proposal).validate(document, offset, null)) {
+                    refined.add(proposal);
+                }
+            }
+            return refined;
+        }
+    }
+
+    private CachedProposals cached;
+
+    /** proposals are only kept between the start and end of a session */
+    private boolean inSession;
+
     public GroovyCompletionProposalComputer() {
     }
 
@@ -131,6 +194,22 @@ public class GroovyCompletionProposalComputer implements
             GroovyLogManager.manager.logStart(event);
         }
 
+        IDocument document = context.getDocument();
+        int invocationOffset = context.getInvocationOffset();
+        if (cached != null && cached.canRefine(unit, document, invocationOffset)) {
+            List<ICompletionProposal> proposals = cached.refine(invocationOffset);
+            if (GroovyLogManager.manager.hasLoggers()) {
+                GroovyLogManager.manager.log(TraceCategory.CONTENT_ASSIST, "Refined " + cached.proposals.size()
+                        + " proposals from the previous invocation to " + proposals.size());
+            }
+            cached = new CachedProposals(unit, document, cached.prefixStart, invocationOffset, proposals);
+            if (event != null) {
+                GroovyLogManager.manager.logEnd(event, TraceCategory.CONTENT_ASSIST);
+            }
+            return proposals;
+        }
+        cached = null;
+
         GroovyCompilationUnit gunit = (GroovyCompilationUnit) unit;
 
         ModuleNodeInfo moduleInfo = gunit.getModuleInfo(true);
@@ -142,8 +221,7 @@ public class GroovyCompletionProposalComputer implements
             return Collections.EMPTY_LIST;
         }
 
-        IDocument document = context.getDocument();
-        ContentAssistContext assistContext = createContentAssistContext(gunit, context.getInvocationOffset(), document);
+        ContentAssistContext assistContext = createContentAssistContext(gunit, invocationOffset, document);
         List<ICompletionProposal> proposals = new ArrayList<ICompletionProposal>();
         if (assistContext != null) {
             List<IGroovyCompletionProcessorFactory> factories = locationFactoryMap.get(assistContext.location);
@@ -187,6 +265,11 @@ public class GroovyCompletionProposalComputer implements
             } catch (CoreException e) {
                 GroovyCore.logException("Exception accessing proposal provider registry", e);
             }
+
+            if (inSession && canBeRefined(assistContext, proposals)) {
+                cached = new CachedProposals(unit, document, invocationOffset - assistContext.completionExpression.length(),
+                        invocationOffset, proposals);
+            }
         }
 
         if (event != null) {
@@ -222,6 +305,31 @@ public class GroovyCompletionProposalComputer implements
         return assistContext;
     }
 
+    /**
+     * Proposals can only be narrowed down later if what is being completed is
+     * a name and every proposal can check whether it is still valid
+     */
+    private boolean canBeRefined(ContentAssistContext assistContext, List<ICompletionProposal> proposals) {
+        if (!isNamePart(assistContext.completionExpression)) {
+            return false;
+        }
+        for (ICompletionProposal proposal : proposals) {
+            if (!(proposal instanceof ICompletionProposalExtension2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNamePart(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isJavaIdentifierPart(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private int findSupportingNodeEnd(int invocationOffset,
             String fullCompletionText) {
         String[] completionExpressions = new ExpressionFinder().splitForCompletionNoTrim(fullCompletionText);
@@ -290,11 +398,13 @@ public class GroovyCompletionProposalComputer implements
     }
 
     public void sessionEnded() {
-
+        inSession = false;
+        cached = null;
     }
 
     public void sessionStarted() {
-
+        inSession = true;
+        cached = null;
     }
 
 }
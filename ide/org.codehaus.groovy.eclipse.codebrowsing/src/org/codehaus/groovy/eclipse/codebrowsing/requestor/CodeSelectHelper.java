@@ -27,6 +27,8 @@ import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.ICodeSelectHelper;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.groovy.search.ITypeRequestor.VisitStatus;
+import org.eclipse.jdt.groovy.search.InferenceResultStore;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
 
@@ -62,7 +64,7 @@ public class CodeSelectHelper implements ICodeSelectHelper {
                     
                     CodeSelectRequestor requestor = createRequestor(unit, nodeToLookFor);
                     TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
-                    visitor.visitCompilationUnit(requestor);
+                    inferRequested(visitor, nodeToLookFor, requestor);
                     return requestor.getRequestedElement() != null ? new IJavaElement[] { requestor.getRequestedElement() } : new IJavaElement[0];
                 }
             } finally {
@@ -85,6 +87,17 @@ public class CodeSelectHelper implements ICodeSelectHelper {
         return new CodeSelectRequestor(nodeToLookFor, unit);
     }
     
+    /**
+     * Uses the stored inferencing result for the node if an earlier visit of the
+     * same module node (eg- for semantic highlighting) has one, and visits otherwise
+     */
+    private void inferRequested(TypeInferencingVisitorWithRequestor visitor, ASTNode nodeToLookFor, CodeSelectRequestor requestor) {
+        InferenceResultStore store = visitor.getResultStore();
+        if (store == null || store.replay(nodeToLookFor, requestor) != VisitStatus.STOP_VISIT) {
+            visitor.visitCompilationUnitAndRecord(requestor);
+        }
+    }
+
     public ASTNode selectASTNode(GroovyCompilationUnit unit, int start, int length) {
         ModuleNode module = unit.getModuleNode();
         if (module != null) {
@@ -104,7 +117,7 @@ public class CodeSelectHelper implements ICodeSelectHelper {
                     
                     CodeSelectRequestor requestor = createRequestor(unit, nodeToLookFor);
                     TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
-                    visitor.visitCompilationUnit(requestor);
+                    inferRequested(visitor, nodeToLookFor, requestor);
                     return requestor.getRequestedNode();
                 }
             } finally {
@@ -473,7 +473,7 @@ public class CodeSelectRequestor implements ITypeRequestor {
      */
     private StringBuilder createUniqueKeyForClass(ClassNode unresolvedType, ClassNode resolvedDeclaringType) {
     	GenericsMapper mapper = GenericsMapper.gatherGenerics(resolvedDeclaringType, resolvedDeclaringType.redirect());
-    	ClassNode resolvedType = VariableScope.resolveTypeParameterization(mapper, VariableScope.clone(unresolvedType));
+    	ClassNode resolvedType = VariableScope.resolveTypeParameterization(mapper, unresolvedType);
     	return createUniqueKeyForResolvedClass(resolvedType);
     }
     	
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2003-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.core.search;
+
+import org.eclipse.jdt.core.search.SearchMatch;
+
+/**
+ * A requestor for {@link SyntheticAccessorSearchRequestor} that is also told
+ * which of the synthetic accessors or properties a match refers to. Matches
+ * are passed to {@link #acceptMatch(SearchMatch, String)} only.
+ */
+public interface ISyntheticAccessorRequestor extends ISearchRequestor {
+
+    /**
+     * @param match a reference to a synthetic member
+     * @param memberName the name of the synthetic accessor or property that
+     *        is referenced, eg- <code>getProp</code> or <code>prop</code>, or
+     *        null if it could not be determined
+     */
+    void acceptMatch(SearchMatch match, String memberName);
+}
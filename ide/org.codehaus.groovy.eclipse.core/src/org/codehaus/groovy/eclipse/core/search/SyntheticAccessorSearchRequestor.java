@@ -27,6 +27,7 @@ import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IAnnotatable;
 import org.eclipse.jdt.core.IAnnotation;
+import org.eclipse.jdt.core.IBuffer;
 import org.eclipse.jdt.core.IClassFile;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IField;
@@ -325,13 +326,56 @@ public class SyntheticAccessorSearchRequestor {
     private class Requestor extends SearchRequestor {
         private final ISearchRequestor uiRequestor;
 
-        public Requestor(ISearchRequestor uiRequestor) {
+        /** names of the synthetic members that are searched for */
+        private final List<String> memberNames;
+
+        private IOpenable lastOpenable;
+
+        private IBuffer lastBuffer;
+
+        public Requestor(ISearchRequestor uiRequestor, List<String> memberNames) {
             this.uiRequestor = uiRequestor;
+            this.memberNames = memberNames;
         }
 
         @Override
         public void acceptSearchMatch(SearchMatch match) throws CoreException {
-            uiRequestor.acceptMatch(match);
+            if (uiRequestor instanceof ISyntheticAccessorRequestor) {
+                ((ISyntheticAccessorRequestor) uiRequestor).acceptMatch(match, findMemberName(match));
+            } else {
+                uiRequestor.acceptMatch(match);
+            }
+        }
+
+        /**
+         * All synthetic members are found in a single search, so work out which
+         * one a match refers to. A match starts with the name of the member and
+         * the is, get and set accessors start with different characters, so the
+         * first character of the match is enough.
+         */
+        private String findMemberName(SearchMatch match) throws JavaModelException {
+            if (memberNames.size() == 1) {
+                return memberNames.get(0);
+            }
+            if (!(match.getElement() instanceof IJavaElement)) {
+                return null;
+            }
+            // matches arrive one file at a time
+            IOpenable openable = ((IJavaElement) match.getElement()).getOpenable();
+            if (openable != lastOpenable) {
+                lastOpenable = openable;
+                lastBuffer = openable == null ? null : openable.getBuffer();
+            }
+            if (lastBuffer == null || match.getOffset() < 0 || match.getOffset() >= lastBuffer.getLength()) {
+                return null;
+            }
+            char first = lastBuffer.getChar(match.getOffset());
+            for (String memberName : memberNames) {
+                if (memberName.charAt(0) == first) {
+                    return memberName;
+                }
+            }
+            return null;
         }
     }
 
@@ -356,32 +400,46 @@ public class SyntheticAccessorSearchRequestor {
             return;
         }
 
-        SearchPattern pattern = createPattern(element);
-        if (pattern == null) {
+        List<IJavaElement> toSearch = findSyntheticMembers(element);
+        if (toSearch.isEmpty()) {
             return;
         }
 
-        Requestor requestor = new Requestor(uiRequestor);
+        // one search for all of the synthetic members
+        SearchPattern pattern = createPattern(toSearch);
+        if (pattern == null) {
+            return;
+        }
+        List<String> memberNames = new ArrayList<String>(toSearch.size());
+        for (IJavaElement searchElt : toSearch) {
+            memberNames.add(searchElt.getElementName());
+        }
+        Requestor requestor = new Requestor(uiRequestor, memberNames);
         SearchEngine engine = new SearchEngine();
         engine.search(pattern, participants, scope, requestor, monitor);
     }
 
-    private SearchPattern createPattern(IJavaElement element) throws JavaModelException {
+    private List<IJavaElement> findSyntheticMembers(IJavaElement element) throws JavaModelException {
         List<IJavaElement> toSearch = new ArrayList<IJavaElement>(4);
-        toSearch.add(findSyntheticMember(element, "is"));
-        toSearch.add(findSyntheticMember(element, "get"));
-        toSearch.add(findSyntheticMember(element, "set"));
-        toSearch.add(findSyntheticProperty(element));
+        IJavaElement[] candidates = new IJavaElement[] { findSyntheticMember(element, "is"), findSyntheticMember(element, "get"),
+                findSyntheticMember(element, "set"), findSyntheticProperty(element) };
+        for (IJavaElement candidate : candidates) {
+            if (candidate != null) {
+                toSearch.add(candidate);
+            }
+        }
+        return toSearch;
+    }
+
+    private SearchPattern createPattern(List<IJavaElement> toSearch) {
         SearchPattern pattern = null;
         for (IJavaElement searchElt : toSearch) {
-            if (searchElt != null) {
-                SearchPattern newPattern = SearchPattern.createPattern(searchElt, IJavaSearchConstants.ALL_OCCURRENCES
-                        | IJavaSearchConstants.IGNORE_RETURN_TYPE);
-                if (pattern == null) {
-                    pattern = newPattern;
-                } else {
-                    pattern = SearchPattern.createOrPattern(pattern, newPattern);
-                }
+            SearchPattern newPattern = SearchPattern.createPattern(searchElt, IJavaSearchConstants.ALL_OCCURRENCES
+                    | IJavaSearchConstants.IGNORE_RETURN_TYPE);
+            if (pattern == null) {
+                pattern = newPattern;
+            } else {
+                pattern = SearchPattern.createOrPattern(pattern, newPattern);
             }
         }
         return pattern;
@@ -18,8 +18,11 @@ package org.codehaus.groovy.eclipse.dsl;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.codehaus.groovy.eclipse.dsl.script.DSLDScriptCache;
 import org.codehaus.jdt.groovy.model.GroovyNature;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IStorage;
 import org.eclipse.jdt.core.ElementChangedEvent;
 import org.eclipse.jdt.core.IElementChangedListener;
 import org.eclipse.jdt.core.IJavaElementDelta;
@@ -46,7 +49,23 @@ public class DSLDElementListener implements IElementChangedListener {
                 }
             }
             if (!projectsToRefresh.isEmpty()) {
-                GroovyDSLCoreActivator.getDefault().getContextStoreManager().initialize(projectsToRefresh, false);
+                DSLDStoreManager manager = GroovyDSLCoreActivator.getDefault().getContextStoreManager();
+                for (IProject project : projectsToRefresh) {
+                    invalidateCachedLibraryScripts(manager, project);
+                }
+                manager.initialize(projectsToRefresh, false);
+            }
+        }
+    }
+
+    // the DSLDs in the libraries of the project may have changed or gone away, so drop their compiled classes
+    // workspace DSLDs are taken care of by the DSLDResourceListener
+    private void invalidateCachedLibraryScripts(DSLDStoreManager manager, IProject project) {
+        if (manager.hasDSLDStoreFor(project)) {
+            for (IStorage script : manager.getDSLDStore(project).getAllContextKeys()) {
+                if (!(script instanceof IFile)) {
+                    DSLDScriptCache.getInstance().invalidate(script);
+                }
             }
         }
     }
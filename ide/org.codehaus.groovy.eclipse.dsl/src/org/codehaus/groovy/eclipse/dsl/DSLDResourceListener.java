@@ -14,6 +14,7 @@ import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.groovy.eclipse.dsl.inferencing.suggestions.SuggestionsLoader;
 import org.codehaus.groovy.eclipse.dsl.inferencing.suggestions.writer.SuggestionsFileProperties;
+import org.codehaus.groovy.eclipse.dsl.script.DSLDScriptCache;
 import org.codehaus.groovy.eclipse.dsl.script.DSLDScriptExecutor;
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.core.resources.IFile;
@@ -102,6 +103,9 @@ public class DSLDResourceListener implements IResourceChangeListener {
                     // if this file diden't exist in the past, then this is a
                     // no-op
                     store.purgeIdentifier(file);
+                    if (isDSLDFile(file)) {
+                        DSLDScriptCache.getInstance().invalidate(file);
+                    }
 
                     if (file.isAccessible() && eventType == IResourceChangeEvent.POST_CHANGE) {
                         // also refresh the file
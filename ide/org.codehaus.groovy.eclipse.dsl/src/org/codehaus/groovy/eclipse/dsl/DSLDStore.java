@@ -20,12 +20,14 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.groovy.eclipse.dsl.contributions.IContributionElement;
 import org.codehaus.groovy.eclipse.dsl.contributions.IContributionGroup;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.GroovyDSLDContext;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.PointcutDispatchIndex;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IStorage;
 import org.eclipse.jdt.internal.core.NonJavaResource;
@@ -39,6 +41,8 @@ public class DSLDStore {
 
     private final Map<IPointcut, List<IContributionGroup>> pointcutContributionMap;  // maps pointcuts to their contributors
     private final Map<IStorage, Set<IPointcut>> keyContextMap;  // maps unique keys (such as script names) to all the pointcuts that they produce
+    private volatile PointcutDispatchIndex index;  // lazily built from pointcutContributionMap, discarded on any change
+    private volatile Set<String> indexedDisabledScripts;  // the disabled scripts that were excluded from the index
     public DSLDStore() {
         // use linked hash map because order matters
         pointcutContributionMap = new LinkedHashMap<IPointcut, List<IContributionGroup>>();
@@ -52,6 +56,7 @@ public class DSLDStore {
             pointcutContributionMap.put(pointcut, contributions);
         }
         contributions.add(contribution);
+        index = null;
         
         IStorage identifier = pointcut.getContainerIdentifier();
         Set<IPointcut> pointcuts = keyContextMap.get(identifier);
@@ -68,6 +73,7 @@ public class DSLDStore {
             GroovyLogManager.manager.log(TraceCategory.DSL, "Purging pointcut for DSL file " + identifier);
         }
         Set<IPointcut> pointcuts = keyContextMap.remove(identifier);
+        index = null;
         if (pointcuts != null) {
             for (IPointcut pointcut : pointcuts) {
                 pointcutContributionMap.remove(pointcut);
@@ -78,6 +84,7 @@ public class DSLDStore {
     public void purgeAll() {
         keyContextMap.clear();
         pointcutContributionMap.clear();
+        index = null;
     }
 
     /**
@@ -106,6 +113,7 @@ public class DSLDStore {
         } else {
             existing.addAll(contributions);
         }
+        index = null;
     }
     public void addAllContexts(List<IPointcut> pointcuts, IContributionGroup contribution) {
         for (IPointcut pointcut : pointcuts) {
@@ -122,20 +130,43 @@ public class DSLDStore {
      */
     public List<IContributionElement> findContributions(GroovyDSLDContext pattern, Set<String> disabledScripts) {
         List<IContributionElement> elts = new ArrayList<IContributionElement>();
-        for (Entry<IPointcut, List<IContributionGroup>> entry : pointcutContributionMap.entrySet()) {
-            IPointcut pointcut = entry.getKey();
-            if (! disabledScripts.contains(DSLDStore.toUniqueString(pointcut.getContainerIdentifier()))) {
-                pattern.resetBinding();
-                Collection<?> results = pointcut.matches(pattern, pattern.getCurrentType());
-                if (results != null) {
-                    for (IContributionGroup group : entry.getValue()) {
-                        elts.addAll(group.getContributions(pattern, pattern.getCurrentBinding()));
-                    }
+        PointcutDispatchIndex index = getIndex(disabledScripts);
+        int[] candidates = index.findCandidates(pattern, -1);
+        for (int i = 0; i < candidates.length; i++) {
+            int candidate = candidates[i];
+            IPointcut pointcut = index.getPointcut(candidate);
+            pattern.resetBinding();
+            Collection<?> results = pointcut.matches(pattern, pattern.getCurrentType());
+            if (results != null) {
+                ClassNode currentType = pattern.getCurrentType();
+                for (IContributionGroup group : index.getContributionGroups(candidate)) {
+                    elts.addAll(group.getContributions(pattern, pattern.getCurrentBinding()));
+                }
+                if (currentType != pattern.getCurrentType()) {
+                    // a contribution changed the delegate type, so the remaining candidates are different
+                    candidates = index.findCandidates(pattern, candidate);
+                    i = -1;
                 }
             }
         }
         return elts;
     }
+
+    /**
+     * Gets the pointcut index for this store, rebuilding it if the store or the set of
+     * disabled scripts has changed since it was last built.
+     */
+    private PointcutDispatchIndex getIndex(Set<String> disabledScripts) {
+        PointcutDispatchIndex current = index;
+        if (current == null || (indexedDisabledScripts != disabledScripts && !disabledScripts.equals(indexedDisabledScripts))) {
+            synchronized (this) {
+                current = new PointcutDispatchIndex(pointcutContributionMap, disabledScripts);
+                indexedDisabledScripts = disabledScripts;
+                index = current;
+            }
+        }
+        return current;
+    }
     
     public IStorage[] getAllContextKeys() {
         return keyContextMap.keySet().toArray(new IStorage[0]);
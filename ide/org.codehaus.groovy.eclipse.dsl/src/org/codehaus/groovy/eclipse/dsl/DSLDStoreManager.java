@@ -24,6 +24,8 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.groovy.search.InferenceResultStore;
+import org.eclipse.jdt.groovy.search.InferredReferenceIndex;
 
 /**
  * Singleton class that holds the {@link DSLDStore}s for all Groovy projects
@@ -58,14 +60,25 @@ public class DSLDStoreManager {
     
     public void clearDSLDStore(IProject project) {
         projectDSLDMap.remove(project.getName());
+        clearInferenceResults();
     }
     
     public void clearDSLDStore(IJavaProject project) {
         projectDSLDMap.remove(project.getElementName());
+        clearInferenceResults();
     }
     
     public void reset() {
         projectDSLDMap.clear();
+        clearInferenceResults();
+    }
+
+    /**
+     * Drops what was remembered from earlier inferencing, which may no longer hold when the DSLD contributions change
+     */
+    public static void clearInferenceResults() {
+        InferenceResultStore.clearAll();
+        InferredReferenceIndex.clearAll();
     }
 
     public boolean hasDSLDStoreFor(IProject project) {
@@ -147,6 +160,8 @@ public class DSLDStoreManager {
     }
     synchronized void removeInProgress(IProject project) {
         inProgress.remove(project.getName());
+        // the contributions have changed, so earlier inferencing results may be wrong
+        clearInferenceResults();
         notifyAll();
     }
 }
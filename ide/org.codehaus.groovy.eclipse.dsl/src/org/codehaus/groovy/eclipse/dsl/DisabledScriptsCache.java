@@ -39,6 +39,8 @@ public class DisabledScriptsCache {
     public void setDisabled(Set<String> disabled) {
         this.disabled = disabled;
         DSLPreferences.setDisabledScripts(disabled.toArray(new String[0]));
+        // the contributions of the disabled scripts are gone
+        DSLDStoreManager.clearInferenceResults();
     }
     
     private void ensureInitialized() {
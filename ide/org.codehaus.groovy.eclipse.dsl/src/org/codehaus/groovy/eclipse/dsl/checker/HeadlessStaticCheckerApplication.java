@@ -0,0 +1,35 @@
+/*
+ * Copyright 2003-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.checker;
+
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+
+/**
+ * Performs the same static checking as {@link StaticCheckerApplication}, but
+ * without creating a display or starting the workbench. The check runs on the
+ * application thread and the result is returned as the exit code.
+ */
+public class HeadlessStaticCheckerApplication extends StaticCheckerApplication {
+
+    @Override
+    public Object start(IApplicationContext context) throws Exception {
+        if (!processCommandLine((String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS))) {
+            return getNoCheckExitCode();
+        }
+        return runCheck() ? IApplication.EXIT_OK : Integer.valueOf(-1);
+    }
+}
@@ -33,6 +33,13 @@ public interface IStaticCheckerHandler {
     void setResource(IFile resource);
     int numProblemsFound();
     void handleResourceStart(IResource resource) throws CoreException;
+
+    /**
+     * Called after all problems of a file have been handled
+     * @param resource the file that was checked
+     * @param millis how long it took to check the file
+     */
+    void handleResourceEnd(IFile resource, long millis);
     
     /**
      * Finish the type checking and display any messages to user
@@ -15,12 +15,20 @@
  */
 package org.codehaus.groovy.eclipse.dsl.checker;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
+import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.groovy.ast.Comment;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.codehaus.jdt.groovy.model.GroovyNature;
@@ -38,19 +46,30 @@ import org.eclipse.jdt.groovy.core.util.ContentTypeUtils;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
 import org.eclipse.jdt.internal.core.util.Util;
+import org.eclipse.jface.text.Position;
+import org.eclipse.swt.widgets.Shell;
 
 /**
- * Performs static checking on all groovy files contained in the resource passed in
+ * Performs static checking on all groovy files contained in the resource passed in.
+ * <p>
+ * Files can be checked in parallel (see {@link #setThreads(int)}). Each file is inferred with its own visitor, so the workers
+ * share no inferencing state, and the problems found in a file are handed to the {@link IStaticCheckerHandler} on the calling
+ * thread, in the same order as when checking one file at a time. The results of a file are passed on as soon as it and all the
+ * files before it have been checked.
+ *
  * @author andrew
  * @created Aug 29, 2011
  */
 public class ResourceTypeChecker {
     
-    class CheckerVisitor implements IResourceVisitor {
-        private IProgressMonitor monitor;
+    /**
+     * Finds the groovy files to check, in the order that they are visited
+     */
+    class CollectingVisitor implements IResourceVisitor {
+        private final List<GroovyCompilationUnit> units;
 
-        CheckerVisitor(IProgressMonitor monitor) {
-            this.monitor = monitor;
+        CollectingVisitor(List<GroovyCompilationUnit> units) {
+            this.units = units;
         }
 
         public boolean visit(IResource resource) throws CoreException {
@@ -67,68 +86,91 @@ public class ResourceTypeChecker {
                 
                 GroovyCompilationUnit unit = (GroovyCompilationUnit) JavaCore.create((IFile) resource);
                 if (unit != null && unit.isOnBuildPath()) {
-                    if (monitor.isCanceled()) {
-                        throw new OperationCanceledException();
-                    }
-                    monitor.subTask(resource.getName());
-                    handler.setResource((IFile) resource);
-                    Map<Integer, String> commentsMap = findComments(unit);
-                    StaticTypeCheckerRequestor requestor = new StaticTypeCheckerRequestor(handler, commentsMap, onlyAssertions);
-                    TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
-                    try {
-                        unit.becomeWorkingCopy(monitor);
-                        visitor.visitCompilationUnit(requestor);
-                    } finally {
-                        unit.discardWorkingCopy();
-                    }
+                    units.add(unit);
                 }
             }
             return true;
         }
+    }
 
-        private Map<Integer, String> findComments(GroovyCompilationUnit unit) {
-            List<Comment> comments = unit.getModuleNode().getContext().getComments();
-            Map<Integer, String> allComments = new HashMap<Integer, String>(comments.size());
-            for (Comment comment : comments) {
-                StringTokenizer stok = new StringTokenizer(comment.toString());
-                String type = null;
-                if (stok.hasMoreTokens()) {
-                    // consume the comment start
-                    String val = stok.nextToken();
-                    int typeIndex = val.indexOf("TYPE:");
-                    if (typeIndex > 0) {
-                        type = val.substring(typeIndex + "TYPE:".length());
-                        if (type.length() == 0) {
-                            type = null;
-                        }
-                    }
-                }
-                String candidate;
-                if (stok.hasMoreTokens() && (candidate = stok.nextToken()).startsWith("TYPE:")) {
-                    // may or may not have a space after the colon
-                    if (candidate.equals("TYPE:")) {
-                        if (stok.hasMoreTokens()) {
-                            type = stok.nextToken();
-                        }
-                    } else {
-                        String[] split = candidate.split("\\:");
-                        type = split[1];
-                    }
-                }
-                if (type != null) {
-                    allComments.put(comment.sline, type);
+    private static class Problem {
+        final ASTNode node;
+        final Position position;
+        final int line;
+        /** null for an unknown reference */
+        final String expectedType;
+        final String actualType;
+
+        Problem(ASTNode node, Position position, int line, String expectedType, String actualType) {
+            this.node = node;
+            this.position = position;
+            this.line = line;
+            this.expectedType = expectedType;
+            this.actualType = actualType;
+        }
+    }
+
+    /**
+     * Keeps the problems that are found in a single file until they can be passed on to the real handler
+     */
+    static class FileResult implements IStaticCheckerHandler {
+        private final IFile file;
+        private final List<Problem> problems = new ArrayList<Problem>();
+        long checkTime;
+
+        FileResult(IFile file) {
+            this.file = file;
+        }
+
+        public void handleUnknownReference(ASTNode node, Position position, int line) {
+            problems.add(new Problem(node, position, line, null, null));
+        }
+
+        public void handleTypeAssertionFailed(ASTNode node, String expectedType, String actualType, Position position, int line) {
+            problems.add(new Problem(node, position, line, expectedType, actualType));
+        }
+
+        public void setResource(IFile resource) {
+            // always the same file
+        }
+
+        public void handleResourceStart(IResource resource) {
+            // only a single file
+        }
+
+        public void handleResourceEnd(IFile resource, long millis) {
+            // only a single file
+        }
+
+        public int numProblemsFound() {
+            return problems.size();
+        }
+
+        public boolean finish(Shell shell) {
+            return problems.isEmpty();
+        }
+
+        void passOn(IStaticCheckerHandler handler) {
+            handler.setResource(file);
+            for (Problem problem : problems) {
+                if (problem.expectedType == null) {
+                    handler.handleUnknownReference(problem.node, problem.position, problem.line);
+                } else {
+                    handler.handleTypeAssertionFailed(problem.node, problem.expectedType, problem.actualType, problem.position,
+                            problem.line);
                 }
             }
-            return allComments;
+            handler.handleResourceEnd(file, checkTime);
         }
     }
-    
+
     private final IStaticCheckerHandler handler;
     private final List<IResource> resources;
 
     protected boolean onlyAssertions;
     protected final char[][] includes;
     protected final char[][] excludes;
+    private int threads = 1;
     
     public ResourceTypeChecker(IStaticCheckerHandler handler, String projectName, char[][] includes, char[][] excludes, boolean onlyAssertions) {
         this(handler, createProject(projectName), includes, excludes, onlyAssertions);
@@ -150,6 +192,13 @@ public class ResourceTypeChecker {
         return Collections.<IResource>singletonList(project);
     }
 
+    /**
+     * @param threads the number of files to check at the same time. Default is 1.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
     /**
      * Performs the tpe checking on the selected resources.
      * @param monitor progress monitor, can be null
@@ -160,15 +209,132 @@ public class ResourceTypeChecker {
         if (monitor == null) {
             monitor = new NullProgressMonitor();
         }
-        monitor.beginTask("Static type analysis", resources.size());
+        List<GroovyCompilationUnit> units = new ArrayList<GroovyCompilationUnit>();
+        CollectingVisitor visitor = new CollectingVisitor(units);
         for (IResource resource : resources) {
             if (monitor.isCanceled()) {
                 throw new OperationCanceledException();
             }
-            CheckerVisitor visitor = new CheckerVisitor(monitor);
             resource.accept(visitor);
-            monitor.worked(1);
+        }
+
+        monitor.beginTask("Static type analysis", units.size());
+        if (threads <= 1 || units.size() < 2) {
+            for (GroovyCompilationUnit unit : units) {
+                if (monitor.isCanceled()) {
+                    throw new OperationCanceledException();
+                }
+                monitor.subTask(unit.getElementName());
+                check(unit).passOn(handler);
+                monitor.worked(1);
+            }
+        } else {
+            checkInParallel(units, monitor);
         }
         return handler.finish(null);
     }
+
+    private void checkInParallel(List<GroovyCompilationUnit> units, IProgressMonitor monitor) throws CoreException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, units.size()), new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Groovy static type checker");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            List<Future<FileResult>> results = new ArrayList<Future<FileResult>>(units.size());
+            for (final GroovyCompilationUnit unit : units) {
+                results.add(executor.submit(new Callable<FileResult>() {
+                    public FileResult call() throws CoreException {
+                        return check(unit);
+                    }
+                }));
+            }
+            // lets the worker threads finish once the queue is drained
+            executor.shutdown();
+
+            for (int i = 0; i < units.size(); i++) {
+                if (monitor.isCanceled()) {
+                    throw new OperationCanceledException();
+                }
+                monitor.subTask(units.get(i).getElementName());
+                waitFor(results.get(i)).passOn(handler);
+                monitor.worked(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private FileResult waitFor(Future<FileResult> result) throws CoreException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CoreException) {
+                throw (CoreException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private FileResult check(GroovyCompilationUnit unit) throws CoreException {
+        long start = System.currentTimeMillis();
+        FileResult result = new FileResult((IFile) unit.getResource());
+        Map<Integer, String> commentsMap = findComments(unit);
+        StaticTypeCheckerRequestor requestor = new StaticTypeCheckerRequestor(result, commentsMap, onlyAssertions);
+        TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
+        try {
+            unit.becomeWorkingCopy(null);
+            visitor.visitCompilationUnit(requestor);
+        } finally {
+            unit.discardWorkingCopy();
+        }
+        result.checkTime = System.currentTimeMillis() - start;
+        return result;
+    }
+
+    private Map<Integer, String> findComments(GroovyCompilationUnit unit) {
+        List<Comment> comments = unit.getModuleNode().getContext().getComments();
+        Map<Integer, String> allComments = new HashMap<Integer, String>(comments.size());
+        for (Comment comment : comments) {
+            StringTokenizer stok = new StringTokenizer(comment.toString());
+            String type = null;
+            if (stok.hasMoreTokens()) {
+                // consume the comment start
+                String val = stok.nextToken();
+                int typeIndex = val.indexOf("TYPE:");
+                if (typeIndex > 0) {
+                    type = val.substring(typeIndex + "TYPE:".length());
+                    if (type.length() == 0) {
+                        type = null;
+                    }
+                }
+            }
+            String candidate;
+            if (stok.hasMoreTokens() && (candidate = stok.nextToken()).startsWith("TYPE:")) {
+                // may or may not have a space after the colon
+                if (candidate.equals("TYPE:")) {
+                    if (stok.hasMoreTokens()) {
+                        type = stok.nextToken();
+                    }
+                } else {
+                    String[] split = candidate.split("\\:");
+                    type = split[1];
+                }
+            }
+            if (type != null) {
+                allComments.put(comment.sline, type);
+            }
+        }
+        return allComments;
+    }
 }
@@ -36,50 +36,7 @@ public class StaticCheckerApplication implements IApplication {
 
         @Override
         protected IStatus run(IProgressMonitor monitor) {
-            // now ensure that the classpath containers and variables are initialized
-            try {
-                JavaCore.initializeAfterLoad(new NullProgressMonitor());
-            } catch (CoreException e) {
-                e.printStackTrace();
-            }
-
-            
-            // create the project if required
-            try {
-                createProject();
-            } catch (CoreException e) {
-                System.err.println("Failed to create project " + projectName + " at location " + projectFolderPath);
-                e.printStackTrace();
-                return e.getStatus();
-            }
-            
-            // ensure project is open
-            IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(projectName);
-            try {
-                project.open(null);
-            } catch (CoreException e) {
-                System.err.println("Failed to open project " + projectName);
-                e.printStackTrace();
-                return e.getStatus();
-            }
-            
-            // Add the extra dslds to the workspace inside of the target project
-            addExtraDslds();
-            
-            // Ensure that dslds are all available
-            GroovyDSLCoreActivator.getDefault().getContextStoreManager().initialize(project, true);
-            
-            System.out.println("Performing static type checking on project " + projectName);
-            boolean success = false;
-            try {
-                IStaticCheckerHandler handler = new SysoutStaticCheckerHandler(resultFile == null ? System.out : createOutStream(resultFile));
-                ResourceTypeChecker checker = new ResourceTypeChecker(handler, projectName, inclusionFilters, exclusionFilters, assertionsOnly);
-                success = checker.doCheck(null);
-            } catch (Exception e) {
-                e.printStackTrace();
-            } finally {
-                removeExtraDslds();
-            }
+            boolean success = runCheck();
             display.asyncExec(new Runnable() {
                 public void run() {
                     Workbench.getInstance().close();
@@ -118,6 +75,60 @@ public class StaticCheckerApplication implements IApplication {
         }
     }
 
+    /**
+     * Creates the project, if required, and performs the static checking on it
+     * @return true iff the check could be done and no problems were found
+     */
+    protected boolean runCheck() {
+        // now ensure that the classpath containers and variables are initialized
+        try {
+            JavaCore.initializeAfterLoad(new NullProgressMonitor());
+        } catch (CoreException e) {
+            e.printStackTrace();
+        }
+
+        
+        // create the project if required
+        try {
+            createProject();
+        } catch (CoreException e) {
+            System.err.println("Failed to create project " + projectName + " at location " + projectFolderPath);
+            e.printStackTrace();
+            return false;
+        }
+        
+        // ensure project is open
+        IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(projectName);
+        try {
+            project.open(null);
+        } catch (CoreException e) {
+            System.err.println("Failed to open project " + projectName);
+            e.printStackTrace();
+            return false;
+        }
+        
+        // Add the extra dslds to the workspace inside of the target project
+        addExtraDslds();
+        
+        // Ensure that dslds are all available
+        GroovyDSLCoreActivator.getDefault().getContextStoreManager().initialize(project, true);
+        
+        System.out.println("Performing static type checking on project " + projectName);
+        boolean success = false;
+        try {
+            PrintStream out = resultFile == null ? System.out : createOutStream(resultFile);
+            IStaticCheckerHandler handler = tabSeparated ? new TabSeparatedStaticCheckerHandler(out) : new SysoutStaticCheckerHandler(out);
+            ResourceTypeChecker checker = new ResourceTypeChecker(handler, projectName, inclusionFilters, exclusionFilters, assertionsOnly);
+            checker.setThreads(threads);
+            success = checker.doCheck(null);
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            removeExtraDslds();
+        }
+        return success;
+    }
+
     private String projectName;
     private char[][] inclusionFilters;
     private char[][] exclusionFilters;
@@ -127,9 +138,14 @@ public class StaticCheckerApplication implements IApplication {
     private String projectFolderPath;
     Display display;
     private String resultFile;
+    private boolean tabSeparated;
+    private int threads = 1;
+    private boolean helpRequested;
     
     public Object start(IApplicationContext context) throws Exception {
-        processCommandLine((String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS));
+        if (!processCommandLine((String[]) context.getArguments().get(IApplicationContext.APPLICATION_ARGS))) {
+            return getNoCheckExitCode();
+        }
         try {
             display = createDisplay();
         } catch (Exception e) {
@@ -202,20 +218,31 @@ public class StaticCheckerApplication implements IApplication {
         project.create(description, null);
     }
 
-    private void processCommandLine(String[] args) {
+    /**
+     * @return the exit code when {@link #processCommandLine(String[])} says not to check:
+     * 0 if help was asked for, or -1 if the command line is invalid
+     */
+    protected Object getNoCheckExitCode() {
+        return helpRequested ? IApplication.EXIT_OK : Integer.valueOf(-1);
+    }
+
+    /**
+     * @return true iff the static checking should be performed
+     */
+    protected boolean processCommandLine(String[] args) {
         boolean doHelp = false;
         String excludes = null;
         String includes = null;
         if (args.length < 1) {
             printUsage(true);
-            Workbench.getInstance().close();
-            return;
+            return false;
         }
         projectName = args[args.length - 1];
 
         for (int i = 0; i < args.length; i++) {
             String arg = args[i];
             if (arg.equals("-h") || arg.equals("--help")) {
+                helpRequested = true;
                 doHelp = true;
                 break;
             } else if (arg.equals("--assertions_only")) {
@@ -255,6 +282,33 @@ public class StaticCheckerApplication implements IApplication {
                     break;
                 }
                 resultFile = args[++i];
+            } else if (arg.equals("--result_format")) {
+                if (i == args.length-1) {
+                    System.err.println("Missing --result_format argument");
+                    doHelp = true;
+                    break;
+                }
+                String format = args[++i];
+                if (format.equals("tab")) {
+                    tabSeparated = true;
+                } else if (!format.equals("text")) {
+                    System.err.println("Unknown --result_format " + format);
+                    doHelp = true;
+                    break;
+                }
+            } else if (arg.equals("--threads")) {
+                if (i == args.length-1) {
+                    System.err.println("Missing --threads argument");
+                    doHelp = true;
+                    break;
+                }
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.err.println("Invalid --threads argument " + args[i]);
+                    doHelp = true;
+                    break;
+                }
             }
         }
         
@@ -262,9 +316,10 @@ public class StaticCheckerApplication implements IApplication {
         exclusionFilters = convertToCharChar(excludes);
         
         if (doHelp) {
-            printUsage(false);
-            Workbench.getInstance().close();
+            printUsage(!helpRequested);
+            return false;
         }
+        return true;
     }
     
     private char[][] convertToCharChar(String str) {
@@ -285,7 +340,7 @@ public class StaticCheckerApplication implements IApplication {
         }
         
         System.out.println("Usage:");
-        System.out.println("eclipse -application org.codehause.groovy.eclipse.staticCheck [--help] [-h] [--extra_dslds <FILES>] [--assertions_only] [--excludes <PATH>] [--includes <PATH>] [--project_path <PATH>] <PROJECT_NAME>");
+        System.out.println("eclipse -application org.codehause.groovy.eclipse.staticCheck [--help] [-h] [--extra_dslds <FILES>] [--assertions_only] [--excludes <PATH>] [--includes <PATH>] [--project_path <PATH>] [--result_file <FILE>] [--result_format text|tab] [--threads <N>] <PROJECT_NAME>");
         System.out.println("where:");
         System.out.println("\t--help OR -h  Print this message and exit.");
         System.out.println("\t--extra_dslds  list of extra dsld files to be included in this check.  Use '|' as a file separator.");
@@ -294,8 +349,11 @@ public class StaticCheckerApplication implements IApplication {
         System.out.println("\t--includes  Project-relative inclusion filters.");
         System.out.println("\t--project_path  File system path to the project to check (only required if project is not already in workspace).");
         System.out.println("\t--result_file  File to send static checking results to.  If not specified, then results sent to sysout.");
+        System.out.println("\t--result_format  'text' (the default) for readable results, or 'tab' for one tab separated record per line.");
+        System.out.println("\t--threads  Number of files to check at the same time.  Defaults to 1.");
         System.out.println("\t<PROJECT_NAME>  Name of a project to type check.  If not already in workspace, then must also use '--project_path'.");
         System.out.println();
+        System.out.println("Use -application org.codehaus.groovy.eclipse.dsl.staticCheckHeadless to check without starting the workbench.");
         System.out.println("Ant style filters are allowed.  Eg, src/org/codehaus/groovy/**/*.groovy means all files with groovy extensions in the org.codehaus.groovy package or below will be ex/included   Filters can be concentenated using '|'.");
     }
 
@@ -68,6 +68,10 @@ public class SysoutStaticCheckerHandler implements IStaticCheckerHandler {
     public void handleResourceStart(IResource resource) throws CoreException {
         // do nothing
     }
+
+    public void handleResourceEnd(IFile resource, long millis) {
+        out.println("\tChecked in " + millis + " ms");
+    }
     
     public boolean finish(Shell shell) {
         String message = createMessage();
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2003-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.dsl.checker;
+
+import java.io.PrintStream;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.text.Position;
+import org.eclipse.swt.widgets.Shell;
+
+/**
+ * Prints the results of static checking in a form that is easy to read by other tools. There is one line per record and the
+ * fields of a record are separated by tabs:
+ * <pre>
+ * UNKNOWN  &lt;file&gt;  &lt;line&gt;  &lt;offset&gt;  &lt;length&gt;  &lt;text&gt;
+ * INVALID  &lt;file&gt;  &lt;line&gt;  &lt;offset&gt;  &lt;length&gt;  &lt;text&gt;  &lt;expected type&gt;  &lt;actual type&gt;
+ * FILE     &lt;file&gt;  &lt;problems in file&gt;  &lt;milliseconds&gt;
+ * RESULT   SUCCESS|FAILURE  &lt;problems&gt;
+ * </pre>
+ * Tabs and line breaks inside of a field are replaced by spaces.
+ */
+public class TabSeparatedStaticCheckerHandler implements IStaticCheckerHandler {
+
+    private int numProblems = 0;
+
+    private int numProblemsInFile = 0;
+
+    private String fileName;
+
+    private final PrintStream out;
+
+    public TabSeparatedStaticCheckerHandler(PrintStream out) {
+        this.out = out;
+    }
+
+    public void handleUnknownReference(ASTNode node, Position position, int line) {
+        print("UNKNOWN", fileName, line, position.offset, position.length, node.getText());
+        numProblems++;
+        numProblemsInFile++;
+    }
+
+    public void handleTypeAssertionFailed(ASTNode node, String expectedType, String actualType, Position position, int line) {
+        print("INVALID", fileName, line, position.offset, position.length, node.getText(), expectedType, actualType);
+        numProblems++;
+        numProblemsInFile++;
+    }
+
+    public void setResource(IFile resource) {
+        fileName = resource.getFullPath().toString();
+        numProblemsInFile = 0;
+    }
+
+    public void handleResourceStart(IResource resource) throws CoreException {
+        // do nothing
+    }
+
+    public void handleResourceEnd(IFile resource, long millis) {
+        print("FILE", resource.getFullPath().toString(), numProblemsInFile, millis);
+    }
+
+    public int numProblemsFound() {
+        return numProblems;
+    }
+
+    public boolean finish(Shell shell) {
+        print("RESULT", numProblems == 0 ? "SUCCESS" : "FAILURE", numProblems);
+        if (out != System.out) {
+            out.close();
+        }
+        return numProblems == 0;
+    }
+
+    private void print(Object... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                sb.append('\t');
+            }
+            sb.append(String.valueOf(fields[i]).replace('\t', ' ').replace('\r', ' ').replace('\n', ' '));
+        }
+        out.println(sb);
+    }
+}
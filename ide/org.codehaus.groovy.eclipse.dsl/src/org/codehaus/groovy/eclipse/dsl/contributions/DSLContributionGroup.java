@@ -393,7 +393,7 @@ public class DSLContributionGroup extends ContributionGroup {
             List<IContributionElement> accessorContribs = new ArrayList<IContributionElement>(1);
             for (MethodNode method : type.getMethods()) {
                 if ((exceptions == null || !exceptions.contains(method.getName())) && !(method instanceof ConstructorNode) && ! method.getName().contains("$")) {
-                    ClassNode resolvedReturnType = VariableScope.resolveTypeParameterization(mapper, VariableScope.clone(method.getReturnType()));
+                    ClassNode resolvedReturnType = VariableScope.resolveTypeParameterization(mapper, method.getReturnType());
                     if (asCategory) {
                         delegateToCategoryMethod(useNamedArgs, isStatic, type, method, resolvedReturnType, isDeprecated, accessorContribs, noParens);
                     } else {
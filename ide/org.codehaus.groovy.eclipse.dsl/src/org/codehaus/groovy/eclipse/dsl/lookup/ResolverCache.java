@@ -18,6 +18,7 @@ import org.codehaus.groovy.ast.ClassNode;
 import org.codehaus.groovy.ast.GenericsType;
 import org.codehaus.groovy.ast.ModuleNode;
 import org.codehaus.jdt.groovy.internal.compiler.ast.JDTResolver;
+import org.eclipse.jdt.groovy.search.ParameterizedTypeFactory;
 import org.eclipse.jdt.groovy.search.VariableScope;
 
 /**
@@ -80,22 +81,20 @@ public class ResolverCache {
             
             // now recur down through the type parameters
             if (typeParamStart > 0) {
-                // only need to clone if generics are involved
-                clazz = VariableScope.clone(clazz);
-                
                 String[] typeParameterNames = componentName.substring(typeParamStart+1, componentName.length()-1).split(",");
                 ClassNode[] typeParameters = new ClassNode[typeParameterNames.length];
                 for (int i = 0; i < typeParameterNames.length; i++) {
                     typeParameters[i] = resolve(typeParameterNames[i]);
                 }
-                clazz = VariableScope.clone(clazz);
                 GenericsType[] genericsTypes = clazz.getGenericsTypes();
                 if (genericsTypes != null) {
                     // need to be careful here...there may be too many or too few type parameters
-                    for (int i = 0; i < genericsTypes.length && i < typeParameters.length; i++) {
-                        genericsTypes[i].setType(typeParameters[i]);
-                        genericsTypes[i].setName(typeParameters[i].getName());
+                    ClassNode[] typeArguments = new ClassNode[genericsTypes.length];
+                    for (int i = 0; i < genericsTypes.length; i++) {
+                        typeArguments[i] = i < typeParameters.length ? typeParameters[i] : genericsTypes[i].getType();
                     }
+                    // shared with the types that are inferred for groovy code
+                    clazz = ParameterizedTypeFactory.parameterize(clazz, typeArguments);
                     nameTypeCache.put(componentName, clazz);
                 }
             }
@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.codehaus.groovy.eclipse.dsl.pointcuts;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.codehaus.groovy.eclipse.dsl.DSLDStore;
+import org.codehaus.groovy.eclipse.dsl.contributions.IContributionGroup;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.AndPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.BindPointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.CurrentTypePointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.EnclosingCallNamePointcut;
+import org.codehaus.groovy.eclipse.dsl.pointcuts.impl.OrPointcut;
+import org.eclipse.core.resources.IStorage;
+import org.eclipse.jdt.groovy.search.VariableScope.CallAndType;
+
+/**
+ * An immutable index over the pointcuts of a DSLD store.  Each pointcut is
+ * filed under the discriminator that it statically requires (if any):
+ * <ol>
+ * <li>the name of the current type, for pointcuts that must contain a
+ *     <code>currentType("...")</code></li>
+ * <li>the name of an enclosing call, for pointcuts that must contain an
+ *     <code>enclosingCallName("...")</code></li>
+ * </ol>
+ * Everything else is unconstrained and is always a candidate.  The candidates
+ * for a given context are returned in the original registration order.
+ */
+public class PointcutDispatchIndex {
+
+    private static final int[] NO_CANDIDATES = new int[0];
+
+    private final IPointcut[] pointcuts;
+    private final List<IContributionGroup>[] groups;
+
+    private final int[] unconstrained;
+    private final Map<String, int[]> byCurrentType;
+    private final Map<String, int[]> byEnclosingCall;
+
+    /**
+     * @param pointcutContributionMap ordered map of pointcuts to their contribution groups
+     * @param disabledScripts unique names of scripts whose pointcuts are left out of the index
+     */
+    @SuppressWarnings("unchecked")
+    public PointcutDispatchIndex(Map<IPointcut, List<IContributionGroup>> pointcutContributionMap, Set<String> disabledScripts) {
+        List<IPointcut> enabled = new ArrayList<IPointcut>(pointcutContributionMap.size());
+        List<List<IContributionGroup>> enabledGroups = new ArrayList<List<IContributionGroup>>(pointcutContributionMap.size());
+        // scripts usually contribute many pointcuts each, so only compute their names once
+        Map<IStorage, Boolean> disabledContainers = new HashMap<IStorage, Boolean>();
+        for (Entry<IPointcut, List<IContributionGroup>> entry : pointcutContributionMap.entrySet()) {
+            IStorage container = entry.getKey().getContainerIdentifier();
+            Boolean disabled = disabledContainers.get(container);
+            if (disabled == null) {
+                disabled = Boolean.valueOf(!disabledScripts.isEmpty() && disabledScripts.contains(DSLDStore.toUniqueString(container)));
+                disabledContainers.put(container, disabled);
+            }
+            if (!disabled.booleanValue()) {
+                enabled.add(entry.getKey());
+                enabledGroups.add(entry.getValue());
+            }
+        }
+        pointcuts = enabled.toArray(new IPointcut[enabled.size()]);
+        groups = enabledGroups.toArray(new List[enabledGroups.size()]);
+
+        List<Integer> unconstrainedList = new ArrayList<Integer>();
+        Map<String, List<Integer>> typeLists = new HashMap<String, List<Integer>>();
+        Map<String, List<Integer>> callLists = new HashMap<String, List<Integer>>();
+        for (int i = 0; i < pointcuts.length; i++) {
+            Set<String> typeNames = requiredCurrentTypeNames(pointcuts[i]);
+            if (typeNames != null) {
+                file(typeLists, typeNames, i);
+                continue;
+            }
+            Set<String> callNames = requiredEnclosingCallNames(pointcuts[i]);
+            if (callNames != null) {
+                file(callLists, callNames, i);
+                continue;
+            }
+            unconstrainedList.add(i);
+        }
+        unconstrained = toArray(unconstrainedList);
+        byCurrentType = toArrays(typeLists);
+        byEnclosingCall = toArrays(callLists);
+    }
+
+    public int size() {
+        return pointcuts.length;
+    }
+
+    public IPointcut getPointcut(int i) {
+        return pointcuts[i];
+    }
+
+    public List<IContributionGroup> getContributionGroups(int i) {
+        return groups[i];
+    }
+
+    /**
+     * Finds the indices of all pointcuts that may match in the given context and come after
+     * <code>after</code> in registration order.
+     *
+     * @param pattern the context to find candidates for
+     * @param after only return candidates whose index is greater than this one.  Use -1 for all candidates
+     * @return sorted indices of candidate pointcuts
+     */
+    public int[] findCandidates(GroovyDSLDContext pattern, int after) {
+        List<int[]> buckets = new ArrayList<int[]>(3);
+        if (unconstrained.length > 0) {
+            buckets.add(unconstrained);
+        }
+        if (!byCurrentType.isEmpty() && pattern.getCurrentType() != null) {
+            int[] bucket = byCurrentType.get(pattern.getCurrentType().getName());
+            if (bucket != null) {
+                buckets.add(bucket);
+            }
+        }
+        if (!byEnclosingCall.isEmpty() && pattern.getCurrentScope() != null) {
+            List<CallAndType> enclosing = pattern.getCurrentScope().getAllEnclosingMethodCallExpressions();
+            if (enclosing != null) {
+                for (CallAndType callAndType : enclosing) {
+                    int[] bucket = byEnclosingCall.get(callAndType.call.getMethodAsString());
+                    if (bucket != null) {
+                        buckets.add(bucket);
+                    }
+                }
+            }
+        }
+        return merge(buckets, after);
+    }
+
+    /**
+     * merges sorted buckets, dropping duplicates and anything not after <code>after</code>
+     */
+    private static int[] merge(List<int[]> buckets, int after) {
+        if (buckets.isEmpty()) {
+            return NO_CANDIDATES;
+        }
+        if (buckets.size() == 1 && after < 0) {
+            return buckets.get(0);
+        }
+        int total = 0;
+        for (int[] bucket : buckets) {
+            total += bucket.length;
+        }
+        int[] result = new int[total];
+        int[] cursors = new int[buckets.size()];
+        int count = 0;
+        int last = after;
+        while (true) {
+            int min = Integer.MAX_VALUE;
+            for (int b = 0; b < cursors.length; b++) {
+                int[] bucket = buckets.get(b);
+                while (cursors[b] < bucket.length && bucket[cursors[b]] <= last) {
+                    cursors[b]++;
+                }
+                if (cursors[b] < bucket.length && bucket[cursors[b]] < min) {
+                    min = bucket[cursors[b]];
+                }
+            }
+            if (min == Integer.MAX_VALUE) {
+                break;
+            }
+            result[count++] = min;
+            last = min;
+        }
+        if (count == total) {
+            return result;
+        }
+        int[] trimmed = new int[count];
+        System.arraycopy(result, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     * @return the names of the types that the current type must have for this pointcut to match,
+     * or null if the pointcut does not constrain the current type by name
+     */
+    static Set<String> requiredCurrentTypeNames(IPointcut pointcut) {
+        if (pointcut instanceof CurrentTypePointcut) {
+            Object arg = pointcut.getFirstArgument();
+            if (arg instanceof String) {
+                return singleton((String) arg);
+            } else if (arg instanceof Class<?>) {
+                return singleton(((Class<?>) arg).getName());
+            }
+            return null;
+        }
+        return requiredInChildren(pointcut, true);
+    }
+
+    /**
+     * @return the names of the calls that must enclose the current expression for this pointcut to match,
+     * or null if the pointcut does not constrain the enclosing calls by name
+     */
+    static Set<String> requiredEnclosingCallNames(IPointcut pointcut) {
+        if (pointcut instanceof EnclosingCallNamePointcut) {
+            Object arg = pointcut.getFirstArgument();
+            if (arg instanceof String) {
+                return singleton((String) arg);
+            }
+            return null;
+        }
+        return requiredInChildren(pointcut, false);
+    }
+
+    private static Set<String> requiredInChildren(IPointcut pointcut, boolean currentType) {
+        if (pointcut instanceof AndPointcut || pointcut instanceof BindPointcut) {
+            // every argument must match, so the narrowest requirement of any of them applies
+            Set<String> narrowest = null;
+            for (Object arg : pointcut.getArgumentValues()) {
+                if (arg instanceof IPointcut) {
+                    Set<String> required = currentType ? requiredCurrentTypeNames((IPointcut) arg)
+                            : requiredEnclosingCallNames((IPointcut) arg);
+                    if (required != null && (narrowest == null || required.size() < narrowest.size())) {
+                        narrowest = required;
+                    }
+                }
+            }
+            return narrowest;
+        } else if (pointcut instanceof OrPointcut) {
+            // any argument may match, so all of them must be constrained
+            Set<String> all = new HashSet<String>();
+            for (Object arg : pointcut.getArgumentValues()) {
+                if (!(arg instanceof IPointcut)) {
+                    return null;
+                }
+                Set<String> required = currentType ? requiredCurrentTypeNames((IPointcut) arg)
+                        : requiredEnclosingCallNames((IPointcut) arg);
+                if (required == null) {
+                    return null;
+                }
+                all.addAll(required);
+            }
+            return all.isEmpty() ? null : all;
+        }
+        return null;
+    }
+
+    private static Set<String> singleton(String name) {
+        Set<String> set = new HashSet<String>(2);
+        set.add(name);
+        return set;
+    }
+
+    private static void file(Map<String, List<Integer>> lists, Set<String> names, int i) {
+        for (String name : names) {
+            List<Integer> list = lists.get(name);
+            if (list == null) {
+                list = new ArrayList<Integer>();
+                lists.put(name, list);
+            }
+            list.add(i);
+        }
+    }
+
+    private static Map<String, int[]> toArrays(Map<String, List<Integer>> lists) {
+        Map<String, int[]> arrays = new HashMap<String, int[]>(lists.size() * 2);
+        for (Entry<String, List<Integer>> entry : lists.entrySet()) {
+            arrays.put(entry.getKey(), toArray(entry.getValue()));
+        }
+        return arrays;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+}
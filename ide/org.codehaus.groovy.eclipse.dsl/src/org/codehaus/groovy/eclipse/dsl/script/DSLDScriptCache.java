@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Codehaus.org, SpringSource, and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.codehaus.groovy.eclipse.dsl.script;
+
+import groovy.lang.GroovySystem;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.codehaus.groovy.eclipse.GroovyLogManager;
+import org.codehaus.groovy.eclipse.TraceCategory;
+import org.codehaus.groovy.eclipse.dsl.DSLDStore;
+import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
+import org.eclipse.core.resources.IStorage;
+
+/**
+ * Caches the compiled classes of DSLD scripts on disk, so that unchanged scripts
+ * do not need to be recompiled on every workspace start or refresh.
+ * <p>
+ * Entries are keyed by a hash of the script name, the script contents, and the
+ * Groovy and Groovy-Eclipse versions, so a changed script or a new Groovy runtime
+ * is never served stale classes.  Entries for scripts that change or go away are
+ * removed through {@link #invalidate(IStorage)}.
+ * <p>
+ * Which entry belongs to which script is kept in an index file next to the entries,
+ * so that the entry of a script can be removed in a later session.  When the index is
+ * first read, entries that are not in the index and entries that have not been used
+ * for {@link #MAX_UNUSED_DAYS} days (eg- of scripts that went away while the workspace
+ * was closed) are deleted.
+ */
+public class DSLDScriptCache {
+
+    private static final String CACHE_FOLDER = "dsldCache";
+    private static final String CACHE_EXTENSION = ".classes";
+    private static final String INDEX_FILE = "index.properties";
+    private static final int MAX_UNUSED_DAYS = 30;
+
+    private static DSLDScriptCache instance;
+
+    public static synchronized DSLDScriptCache getInstance() {
+        if (instance == null) {
+            instance = new DSLDScriptCache(GroovyDSLCoreActivator.getDefault().getStateLocation().append(CACHE_FOLDER).toFile());
+        }
+        return instance;
+    }
+
+    private final File cacheDir;
+
+    // unique script name to the key it was last cached under, read from the index file when first needed
+    private Properties keysByScript;
+
+    public DSLDScriptCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * @return the key under which the compiled classes of this script are cached
+     */
+    public String createKey(String scriptName, String scriptContents) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(GroovySystem.getVersion().getBytes("UTF-8"));
+            digest.update((byte) 0);
+            digest.update(GroovyDSLCoreActivator.getDefault().getBundle().getVersion().toString().getBytes("UTF-8"));
+            digest.update((byte) 0);
+            digest.update(scriptName.getBytes("UTF-8"));
+            digest.update((byte) 0);
+            digest.update(scriptContents.getBytes("UTF-8"));
+            byte[] hash = digest.digest();
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the compiled classes (class name to bytes, in compilation order) cached for
+     * the given key, or null if there are none
+     */
+    public synchronized Map<String, byte[]> load(IStorage script, String key) {
+        File file = new File(cacheDir, key + CACHE_EXTENSION);
+        if (!file.isFile()) {
+            return null;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            int count = in.readInt();
+            Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                classes.put(name, bytes);
+            }
+            // remember the use, so that the entry is not pruned
+            file.setLastModified(System.currentTimeMillis());
+            putKey(script, key);
+            return classes;
+        } catch (IOException e) {
+            // corrupt or partially written entry, so ignore it and let it be recompiled
+            if (GroovyLogManager.manager.hasLoggers()) {
+                GroovyLogManager.manager.log(TraceCategory.DSL, "Ignoring unreadable DSLD cache entry " + file);
+            }
+            close(in);
+            in = null;
+            file.delete();
+            return null;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Stores the compiled classes of the script under the given key
+     */
+    public synchronized void store(IStorage script, String key, Map<String, byte[]> classes) {
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            return;
+        }
+        File file = new File(cacheDir, key + CACHE_EXTENSION);
+        File temp = new File(cacheDir, key + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(classes.size());
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+            out.close();
+            out = null;
+            // only a complete entry is ever visible under its real name
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                return;
+            }
+            putKey(script, key);
+        } catch (IOException e) {
+            GroovyDSLCoreActivator.logException(e);
+            close(out);
+            out = null;
+            temp.delete();
+        } finally {
+            close(out);
+        }
+    }
+
+    /**
+     * Removes the cached classes of the script, if any.  Called when the script
+     * changes or is removed.
+     */
+    public synchronized void invalidate(IStorage script) {
+        String key = (String) getKeysByScript().remove(DSLDStore.toUniqueString(script));
+        if (key != null) {
+            new File(cacheDir, key + CACHE_EXTENSION).delete();
+            saveIndex();
+        }
+    }
+
+    private void putKey(IStorage script, String key) {
+        String previous = (String) getKeysByScript().setProperty(DSLDStore.toUniqueString(script), key);
+        if (!key.equals(previous)) {
+            if (previous != null) {
+                new File(cacheDir, previous + CACHE_EXTENSION).delete();
+            }
+            saveIndex();
+        }
+    }
+
+    private Properties getKeysByScript() {
+        if (keysByScript == null) {
+            keysByScript = new Properties();
+            loadIndex();
+            prune();
+        }
+        return keysByScript;
+    }
+
+    private void loadIndex() {
+        File file = new File(cacheDir, INDEX_FILE);
+        if (!file.isFile()) {
+            return;
+        }
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            keysByScript.load(in);
+        } catch (IOException e) {
+            // without the index the entries cannot be told apart, so start again
+            keysByScript.clear();
+            GroovyDSLCoreActivator.logException(e);
+        } finally {
+            close(in);
+        }
+    }
+
+    private void saveIndex() {
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            return;
+        }
+        File file = new File(cacheDir, INDEX_FILE);
+        File temp = new File(cacheDir, INDEX_FILE + ".tmp");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(temp);
+            keysByScript.store(out, null);
+            out.close();
+            out = null;
+            file.delete();
+            if (!temp.renameTo(file)) {
+                temp.delete();
+            }
+        } catch (IOException e) {
+            GroovyDSLCoreActivator.logException(e);
+            close(out);
+            out = null;
+            temp.delete();
+        } finally {
+            close(out);
+        }
+    }
+
+    /**
+     * Deletes the entries that are not in the index or have not been used for a while,
+     * and the leftovers of interrupted writes
+     */
+    private void prune() {
+        File[] files = cacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long oldest = System.currentTimeMillis() - MAX_UNUSED_DAYS * 24L * 60 * 60 * 1000;
+        boolean indexChanged = false;
+        for (Iterator<Map.Entry<Object, Object>> iter = keysByScript.entrySet().iterator(); iter.hasNext();) {
+            File entry = new File(cacheDir, iter.next().getValue() + CACHE_EXTENSION);
+            if (!entry.isFile() || entry.lastModified() < oldest) {
+                iter.remove();
+                indexChanged = true;
+            }
+        }
+        Set<String> inUse = new HashSet<String>();
+        for (Object key : keysByScript.values()) {
+            inUse.add(key + CACHE_EXTENSION);
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(".tmp") || (name.endsWith(CACHE_EXTENSION) && !inUse.contains(name))) {
+                file.delete();
+            }
+        }
+        if (indexChanged) {
+            saveIndex();
+        }
+    }
+
+    private static void close(java.io.Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
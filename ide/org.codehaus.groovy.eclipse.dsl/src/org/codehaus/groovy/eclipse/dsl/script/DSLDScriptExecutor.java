@@ -24,13 +24,18 @@ import java.io.StringWriter;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
 import org.codehaus.groovy.eclipse.GroovyLogManager;
 import org.codehaus.groovy.eclipse.TraceCategory;
 import org.codehaus.groovy.eclipse.dsl.GroovyDSLCoreActivator;
 import org.codehaus.groovy.eclipse.dsl.pointcuts.IPointcut;
+import org.codehaus.groovy.tools.GroovyClass;
 import org.eclipse.core.internal.resources.ResourceException;
 import org.eclipse.core.resources.IResourceStatus;
 import org.eclipse.core.resources.IStorage;
@@ -231,9 +236,9 @@ public class DSLDScriptExecutor {
             Object result = null;
             try {
                 String scriptContents = getContents(scriptFile);
-                Class<Script> clazz = null;
+                Class<? extends Script> clazz = null;
                 try {
-                    clazz = gcl.parseClass(scriptContents, scriptFile.getName());
+                    clazz = loadScriptClass(scriptContents);
                 } catch (Exception e) {
                     if (GroovyLogManager.manager.hasLoggers()) {
                         StringWriter writer = new StringWriter();
@@ -245,7 +250,7 @@ public class DSLDScriptExecutor {
                 }
                 
                 
-                if (!Script.class.isAssignableFrom(clazz)) {
+                if (clazz == null) {
                     // might be some strange compile error
                     // or a class is accidentally defined
                     if (GroovyLogManager.manager.hasLoggers()) {
@@ -272,6 +277,70 @@ public class DSLDScriptExecutor {
         }
     }
 
+    /**
+     * Loads the script class from the compiled classes in the {@link DSLDScriptCache},
+     * compiling and caching them first if the script has not been seen before.
+     * @return the script class, or null if the script did not compile to a subclass of {@link Script}
+     */
+    private Class<? extends Script> loadScriptClass(String scriptContents) {
+        DSLDScriptCache cache = DSLDScriptCache.getInstance();
+        String key = cache.createKey(scriptFile.getName(), scriptContents);
+        Map<String, byte[]> classes = cache.load(scriptFile, key);
+        if (classes == null) {
+            classes = compile(scriptContents);
+            cache.store(scriptFile, key, classes);
+        }
+        CompiledScriptLoader loader = new CompiledScriptLoader(gcl, classes);
+        for (String name : classes.keySet()) {
+            try {
+                Class<?> clazz = loader.loadClass(name);
+                if (Script.class.isAssignableFrom(clazz)) {
+                    return clazz.asSubclass(Script.class);
+                }
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        // not a script, let the caller report that
+        return null;
+    }
+
+    /**
+     * @return the bytes of all classes generated from the script, keyed by name, main class first
+     */
+    private Map<String, byte[]> compile(String scriptContents) {
+        CompilationUnit unit = new CompilationUnit(CompilerConfiguration.DEFAULT, null, gcl);
+        unit.addSource(scriptFile.getName(), scriptContents);
+        unit.compile(Phases.CLASS_GENERATION);
+        Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        for (Object generated : unit.getClasses()) {
+            GroovyClass groovyClass = (GroovyClass) generated;
+            classes.put(groovyClass.getName(), groovyClass.getBytes());
+        }
+        return classes;
+    }
+
+    /**
+     * Defines the classes of one compiled script on demand
+     */
+    private static final class CompiledScriptLoader extends ClassLoader {
+        private final Map<String, byte[]> classes;
+
+        CompiledScriptLoader(ClassLoader parent, Map<String, byte[]> classes) {
+            super(parent);
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
     public String getContents(IStorage file) throws IOException, CoreException {
         BufferedReader br;
         try {
@@ -453,6 +453,7 @@ public class DSLPreferencesPage extends PreferencePage implements IWorkbenchPref
         boolean origDisabled = store.getBoolean(DSLPreferencesInitializer.DSLD_DISABLED);
         if (origDisabled != disableDSLDs.getSelection()) {
             store.setValue(DSLPreferencesInitializer.DSLD_DISABLED, disableDSLDs.getSelection());
+            DSLDStoreManager.clearInferenceResults();
             String newValue = disableDSLDs.getSelection() ? "enabled" : "disabled";
         
             boolean res = MessageDialog.openQuestion(getShell(), "Restart now?", "You have " + newValue + 
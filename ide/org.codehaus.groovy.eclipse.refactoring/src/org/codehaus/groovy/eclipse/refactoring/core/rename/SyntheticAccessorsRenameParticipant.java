@@ -3,6 +3,7 @@ package org.codehaus.groovy.eclipse.refactoring.core.rename;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -10,7 +11,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.codehaus.groovy.eclipse.core.GroovyCore;
-import org.codehaus.groovy.eclipse.core.search.ISearchRequestor;
+import org.codehaus.groovy.eclipse.core.search.ISyntheticAccessorRequestor;
 import org.codehaus.groovy.eclipse.core.search.SyntheticAccessorSearchRequestor;
 import org.codehaus.jdt.groovy.model.GroovyNature;
 import org.eclipse.core.resources.IFile;
@@ -73,6 +74,9 @@ public class SyntheticAccessorsRenameParticipant extends RenameParticipant {
 
     private List<SearchMatch> matches;
 
+    /** the synthetic accessor or property that each match refers to */
+    private final Map<SearchMatch, String> matchNames = new IdentityHashMap<SearchMatch, String>();
+
     @Override
     public RefactoringStatus checkConditions(IProgressMonitor pm, CheckConditionsContext context) throws OperationCanceledException {
         RefactoringStatus status = new RefactoringStatus();
@@ -262,7 +266,10 @@ public class SyntheticAccessorsRenameParticipant extends RenameParticipant {
         for (SearchMatch searchMatch : references) {
             Object elt = searchMatch.getElement();
             if (elt instanceof IMember) {
-                String oldName = findMatchName(searchMatch, nameMap.keySet());
+                String oldName = matchNames.get(searchMatch);
+                if (oldName == null || !nameMap.containsKey(oldName)) {
+                    oldName = findMatchName(searchMatch, nameMap.keySet());
+                }
                 if (oldName != null) {
                     String newName = nameMap.get(oldName);
                     addChange(finalChange, (IMember) elt, searchMatch.getOffset(), oldName.length(), newName);
@@ -275,9 +282,17 @@ public class SyntheticAccessorsRenameParticipant extends RenameParticipant {
         SyntheticAccessorSearchRequestor synthRequestor = new SyntheticAccessorSearchRequestor();
 
         final List<SearchMatch> matches = new ArrayList<SearchMatch>();
-        synthRequestor.findSyntheticMatches(renameTarget, new ISearchRequestor() {
+        matchNames.clear();
+        synthRequestor.findSyntheticMatches(renameTarget, new ISyntheticAccessorRequestor() {
             public void acceptMatch(SearchMatch match) {
+                acceptMatch(match, null);
+            }
+
+            public void acceptMatch(SearchMatch match, String memberName) {
                 matches.add(match);
+                if (memberName != null) {
+                    matchNames.put(match, memberName);
+                }
             }
         }, SubMonitor.convert(pm, "Find synthetic accessors", 10));
         return matches;
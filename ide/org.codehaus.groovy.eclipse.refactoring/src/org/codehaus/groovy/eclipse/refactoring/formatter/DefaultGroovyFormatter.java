@@ -36,9 +36,7 @@ import org.codehaus.groovy.ast.stmt.Statement;
 import org.codehaus.groovy.eclipse.core.GroovyCore;
 import org.codehaus.groovy.eclipse.refactoring.core.utils.ASTTools;
 import org.codehaus.groovy.eclipse.refactoring.core.utils.astScanner.ASTNodeInfo;
-import org.codehaus.groovy.eclipse.refactoring.core.utils.astScanner.ASTScanner;
 import org.codehaus.groovy.eclipse.refactoring.core.utils.astScanner.predicates.IncludesClosureOrListPredicate;
-import org.codehaus.groovy.eclipse.refactoring.core.utils.astScanner.predicates.SourceCodePredicate;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.IDocument;
@@ -67,6 +65,9 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
     private KlenkDocumentScanner tokens;
     private int indentationLevel = 0;
 
+    /** Nodes of {@link #rootNode} by position, created when first needed */
+    private NodeStartIndex nodeIndex;
+
     /**
      * Default Formatter for the Groovy-Eclipse Plugin
      *
@@ -114,6 +115,7 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
         GroovyCore.trace(formattedDocument.get());
         tokens = new KlenkDocumentScanner(formattedDocument);
         rootNode = ASTTools.getASTNodeFromSource(formattedDocument.get());
+        nodeIndex = null;
         if (rootNode == null) {
             // caused by unparseable file
             throw new Exception("Could not format.  Problem parsing Compilation unit.  Fix all syntax errors and try again.");
@@ -148,11 +150,75 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
             GroovyCore.logWarning("Cannot format, probably due to compilation errors.  Please fix and try again.", e);
         }
 
-        if (formattedDocument.get().equals(document.get())) {
-            return new MultiTextEdit();
+        return createMinimalEdit(document.get(), formattedDocument.get());
+    }
+
+    /**
+     * Creates the edits that turn the original text into the formatted text.
+     * Most formatting only changes whitespace, and then there is an edit for
+     * each stretch of whitespace that has changed. Otherwise there is a single
+     * edit for the part between the unchanged start and end of the text.
+     *
+     * @return a {@link MultiTextEdit} with the changes as children, which has
+     *         no children if nothing has changed
+     */
+    public static TextEdit createMinimalEdit(String original, String formatted) {
+        MultiTextEdit edits = new MultiTextEdit();
+        if (original.equals(formatted)) {
+            return edits;
         }
 
-        return new ReplaceEdit(0, document.getLength(), formattedDocument.get());
+        // walk through both texts, one stretch of whitespace and one of other characters at a time
+        int i = 0, j = 0;
+        int n = original.length(), m = formatted.length();
+        while (i < n || j < m) {
+            int iEnd = i, jEnd = j;
+            while (iEnd < n && Character.isWhitespace(original.charAt(iEnd))) {
+                iEnd++;
+            }
+            while (jEnd < m && Character.isWhitespace(formatted.charAt(jEnd))) {
+                jEnd++;
+            }
+            if (iEnd - i != jEnd - j || !original.regionMatches(i, formatted, j, iEnd - i)) {
+                edits.addChild(new ReplaceEdit(i, iEnd - i, formatted.substring(j, jEnd)));
+            }
+            i = iEnd;
+            j = jEnd;
+
+            while (iEnd < n && !Character.isWhitespace(original.charAt(iEnd))) {
+                iEnd++;
+            }
+            while (jEnd < m && !Character.isWhitespace(formatted.charAt(jEnd))) {
+                jEnd++;
+            }
+            if (iEnd - i != jEnd - j || !original.regionMatches(i, formatted, j, iEnd - i)) {
+                // more than whitespace has changed
+                return createReplaceEdit(original, formatted);
+            }
+            i = iEnd;
+            j = jEnd;
+        }
+        return edits;
+    }
+
+    /**
+     * @return a single edit that replaces the part of the original text that
+     *         differs from the formatted text
+     */
+    private static TextEdit createReplaceEdit(String original, String formatted) {
+        int n = original.length(), m = formatted.length();
+        int prefix = 0;
+        while (prefix < n && prefix < m && original.charAt(prefix) == formatted.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < n - prefix && suffix < m - prefix
+                && original.charAt(n - 1 - suffix) == formatted.charAt(m - 1 - suffix)) {
+            suffix++;
+        }
+        MultiTextEdit edits = new MultiTextEdit();
+        edits.addChild(new ReplaceEdit(prefix, n - prefix - suffix, formatted.substring(prefix, m - suffix)));
+        return edits;
     }
 
     /**
@@ -246,17 +312,10 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
      *         length
      */
     public ASTNode findCorrespondingNode(Token t) {
-
-        ASTScanner scanner = new ASTScanner(rootNode,
-                                            new SourceCodePredicate(t.getLine(), t.getColumn()),
-                                            formattedDocument);
-        scanner.startASTscan();
         Entry<ASTNode, ASTNodeInfo> found = null;
-        if (scanner.hasMatches()) {
-            for (Entry<ASTNode, ASTNodeInfo> e : scanner.getMatchedNodes().entrySet()) {
-                if (found == null || (found.getValue().getLength() < e.getValue().getLength()))
-                    found = e;
-            }
+        for (Entry<ASTNode, ASTNodeInfo> e : getNodeIndex().getNodesStartingAt(t.getLine(), t.getColumn())) {
+            if (found == null || (found.getValue().getLength() < e.getValue().getLength()))
+                found = e;
         }
 
         if (found != null) {
@@ -274,18 +333,21 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
      * @return
      */
     public ClosureExpression findCorrespondingClosure(Token t) {
-        ASTScanner scanner = new ASTScanner(rootNode, new SourceCodePredicate(t.getLine(), t.getColumn()), formattedDocument);
-        scanner.startASTscan();
         ClosureExpression found = null;
-        if (scanner.hasMatches()) {
-            for (Entry<ASTNode, ASTNodeInfo> e : scanner.getMatchedNodes().entrySet()) {
-                if (e.getKey() instanceof ClosureExpression) {
-                    found = (ClosureExpression) e.getKey();
-                }
+        for (Entry<ASTNode, ASTNodeInfo> e : getNodeIndex().getNodesStartingAt(t.getLine(), t.getColumn())) {
+            if (e.getKey() instanceof ClosureExpression) {
+                found = (ClosureExpression) e.getKey();
             }
         }
         return found;
     }
+
+    private NodeStartIndex getNodeIndex() {
+        if (nodeIndex == null) {
+            nodeIndex = new NodeStartIndex(rootNode, formattedDocument);
+        }
+        return nodeIndex;
+    }
     /**
      * Return a token after many () if there is no opening {
      *
@@ -439,11 +501,11 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
     }
 
     public int getPosOfToken(int tokenType, int line, int column, String tokenText) {
-        for (int p = 0; p < tokens.size(); p++) {
+        for (int p = findFirstTokenAt(line, column); p < tokens.size(); p++) {
             Token a = tokens.get(p);
+            if (a.getColumn() != column || a.getLine() != line)
+                break;
             if (a.getType() == tokenType &&
-                a.getColumn() == column &&
-                a.getLine() == line &&
                 a.getText().equals(tokenText))
                 return p;
         }
@@ -451,7 +513,8 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
     }
 
     public int getPosOfToken(int lineNumber, int columnNumber) {
-        for (int p = 0; p < tokens.size(); p++) {
+        int p = findFirstTokenAt(lineNumber, columnNumber);
+        if (p < tokens.size()) {
             Token a = tokens.get(p);
             if (a.getColumn() == columnNumber && a.getLine() == lineNumber)
                 return p;
@@ -459,6 +522,27 @@ public class DefaultGroovyFormatter extends GroovyFormatter {
         return -1;
     }
 
+    /**
+     * Binary search over the tokens, which are sorted by position
+     *
+     * @return the position of the first token that starts at or after the
+     *         given line and column, or the number of tokens if there is none
+     */
+    private int findFirstTokenAt(int line, int column) {
+        int start = 0;
+        int end = tokens.size();
+        while (start < end) {
+            int mid = (start + end) >>> 1;
+            Token a = tokens.get(mid);
+            if (a.getLine() < line || (a.getLine() == line && a.getColumn() < column)) {
+                start = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        return start;
+    }
+
     /**
      * Get the active state of the document
      * @return
@@ -18,6 +18,8 @@ package org.codehaus.groovy.eclipse.refactoring.formatter;
 import groovyjarjarantlr.Token;
 import groovyjarjarantlr.TokenStreamException;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -37,9 +39,11 @@ import org.eclipse.jface.text.ITextSelection;
  * This class provides methods to retrieve tokens for a given IDocument
  * presumed to contain Groovy source code.
  * <p>
- * A sophisticated implementation could try to work incrementally and invalidate
- * only some tokens when the document is changed. This implementation is rather
- * naive and clears the whole cache on every document change.
+ * The tokens are kept when the document changes. Only the changed part of the
+ * document is scanned again, starting from the last place before the change
+ * where the lexer is known to be in its initial state, until the new tokens
+ * line up with the old ones again. The positions of the old tokens after that
+ * are shifted to their new lines and columns.
  *
  * @author kdvolder
  * @created 2010-05-26
@@ -61,8 +65,32 @@ public class GroovyDocumentScanner implements IDocumentListener {
      */
     protected List<Token> tokens;
 
+    /**
+     * For each token in {@link #tokens}, whether the lexer is back in its
+     * initial state after the token, so that scanning can start over right
+     * after it. This is null when the tokens did not reach the end of the
+     * document, or when a subclass scans the tokens itself, and then all
+     * tokens are discarded on every change.
+     */
+    private List<Boolean> restartPoints;
+
     private GroovyScanner tokenScanner;
 
+    /**
+     * The changed range of the document, as antlr line/column positions in
+     * the document before the change. Only valid while a change is being
+     * made.
+     */
+    private int changeStartLine, changeStartColumn, changeEndLine, changeEndColumn;
+
+    /** The end of the changed range in the document after the change */
+    private int newEndLine, newEndColumn;
+
+    private boolean changeKnown;
+
+    /** Set when the scanner had to skip over a character it could not scan */
+    private boolean recovered;
+
     /** At most this number of scanner errors will be reported */
     private static int logLimit = 4;
 
@@ -76,10 +104,29 @@ public class GroovyDocumentScanner implements IDocumentListener {
     }
 
     public void documentChanged(DocumentEvent event) {
-        reset();
+        if (!changeKnown || !rescan(event)) {
+            reset();
+        }
+        changeKnown = false;
     }
 
-    public void documentAboutToBeChanged(DocumentEvent event) {}
+    public void documentAboutToBeChanged(DocumentEvent event) {
+        changeKnown = false;
+        if (restartPoints != null) {
+            try {
+                int startLine = document.getLineOfOffset(event.getOffset());
+                changeStartLine = startLine + 1;
+                changeStartColumn = event.getOffset() - document.getLineOffset(startLine) + 1;
+                int end = event.getOffset() + event.getLength();
+                int endLine = document.getLineOfOffset(end);
+                changeEndLine = endLine + 1;
+                changeEndColumn = end - document.getLineOffset(endLine) + 1;
+                changeKnown = true;
+            } catch (BadLocationException e) {
+                // scan everything again
+            }
+        }
+    }
 
     /**
      * This method must be called internally before operating on the list of
@@ -94,25 +141,280 @@ public class GroovyDocumentScanner implements IDocumentListener {
     protected void ensureScanned(int end) {
         if (tokens == null) {
             // We haven't started scanning yet. Initialise the scanner and token list.
-            tokenScanner = new GroovyScanner(document.get());
-            tokens = getTokensIncludingEOF();
+            tokenScanner = new GroovyScanner(new DocumentReader(document, 0));
+            List<Token> result = new ArrayList<Token>();
+            List<Boolean> restarts = new ArrayList<Boolean>();
+            Token token;
+            try {
+                LexerState state = new LexerState();
+                do {
+                    token = nextToken();
+                    if (recovered) {
+                        state = new LexerState();
+                        recovered = false;
+                    }
+                    result.add(token);
+                    restarts.add(state.accept(token));
+                } while (token.getType() != GroovyTokenTypeBridge.EOF);
+            } catch (Exception e) {
+                if (logLimit-- > 0) {
+                    Util.log(e);
+                }
+                // the tokens don't reach the end of the document
+                restarts = null;
+            }
+            tokens = result;
+            restartPoints = restarts;
         }
     }
 
-    private List<Token> getTokensIncludingEOF() {
-        List<Token> result = new ArrayList<Token>();
-        Token token;
+    /**
+     * Scans the changed part of the document again and splices the new tokens
+     * into the list of tokens.
+     *
+     * @return false if the changed part could not be scanned, and all tokens
+     *         must be discarded
+     */
+    private boolean rescan(DocumentEvent event) {
         try {
+            int end = event.getOffset() + (event.getText() == null ? 0 : event.getText().length());
+            int endLine = document.getLineOfOffset(end);
+            newEndLine = endLine + 1;
+            newEndColumn = end - document.getLineOffset(endLine) + 1;
+
+            // tokens from here on start at or after the change, and only have to be shifted
+            int firstAfter = findTokenAt(changeEndLine, changeEndColumn);
+
+            // step back to the last token that ends before the change and after which the lexer is in its initial state
+            int restart = findTokenAt(changeStartLine, changeStartColumn);
+            while (restart > 0 && !(restartPoints.get(restart - 1)
+                    && compare(getLineLast(tokens.get(restart - 1)), getColumnLast(tokens.get(restart - 1)), changeStartLine, changeStartColumn) < 0)) {
+                restart--;
+            }
+            int line = restart > 0 ? getLineLast(tokens.get(restart - 1)) : 1;
+            int column = restart > 0 ? getColumnLast(tokens.get(restart - 1)) : 1;
+
+            tokenScanner = new GroovyScanner(new DocumentReader(document, GroovyScanner.getOffset(document, line, column)), line, column);
+            recovered = false;
+            LexerState state = new LexerState();
+            List<Token> newTokens = new ArrayList<Token>();
+            List<Boolean> newRestartPoints = new ArrayList<Boolean>();
+            int candidate = firstAfter;
+            int resync = NOT_FOUND;
+            Token token;
             do {
                 token = nextToken();
-                result.add(token);
+                if (recovered) {
+                    state = new LexerState();
+                    recovered = false;
+                }
+                boolean restartable = state.accept(token);
+                newTokens.add(token);
+                newRestartPoints.add(restartable);
+
+                // past the change, the old tokens can be used again as soon as
+                // one of them ends in the same place and state as a new one
+                if (restartable && compare(token.getLine(), token.getColumn(), newEndLine, newEndColumn) >= 0) {
+                    while (candidate < tokens.size() && compare(shiftLine(tokens.get(candidate).getLine()),
+                            shiftColumn(tokens.get(candidate).getLine(), tokens.get(candidate).getColumn()),
+                            token.getLine(), token.getColumn()) < 0) {
+                        candidate++;
+                    }
+                    if (candidate < tokens.size() && restartPoints.get(candidate) && isShiftedCopy(tokens.get(candidate), token)) {
+                        resync = candidate;
+                        break;
+                    }
+                }
             } while (token.getType() != GroovyTokenTypeBridge.EOF);
+
+            // build new lists rather than changing the old ones, since callers may still hold on to sublists of them
+            int tailStart = resync == NOT_FOUND ? tokens.size() : resync + 1;
+            int size = restart + newTokens.size() + tokens.size() - tailStart;
+            List<Token> result = new ArrayList<Token>(size);
+            List<Boolean> restarts = new ArrayList<Boolean>(size);
+            result.addAll(tokens.subList(0, restart));
+            restarts.addAll(restartPoints.subList(0, restart));
+            result.addAll(newTokens);
+            restarts.addAll(newRestartPoints);
+            for (int i = tailStart; i < tokens.size(); i++) {
+                result.add(shift(tokens.get(i)));
+                restarts.add(restartPoints.get(i));
+            }
+            tokens = result;
+            restartPoints = restarts;
+            return true;
         } catch (Exception e) {
-            if (logLimit-- > 0) {
-                Util.log(e);
+            // could be anything from a bad location to a lexer that can't recover
+            return false;
+        }
+    }
+
+    /**
+     * @return the index of the first token that starts at or after the given
+     *         antlr position, or the number of tokens if there is none
+     */
+    private int findTokenAt(int line, int column) {
+        int start = 0;
+        int end = tokens.size();
+        while (start < end) {
+            int mid = (start + end) >>> 1;
+            Token token = tokens.get(mid);
+            if (compare(token.getLine(), token.getColumn(), line, column) < 0) {
+                start = mid + 1;
+            } else {
+                end = mid;
             }
         }
-        return result;
+        return start;
+    }
+
+    private static int compare(int line1, int column1, int line2, int column2) {
+        if (line1 != line2) {
+            return line1 < line2 ? -1 : 1;
+        }
+        return column1 < column2 ? -1 : (column1 == column2 ? 0 : 1);
+    }
+
+    /**
+     * @return the line after the change of a line after the changed range
+     */
+    private int shiftLine(int line) {
+        return line + newEndLine - changeEndLine;
+    }
+
+    /**
+     * @return the column after the change of a position after the changed range
+     */
+    private int shiftColumn(int line, int column) {
+        return line == changeEndLine ? column + newEndColumn - changeEndColumn : column;
+    }
+
+    private boolean isShiftedCopy(Token old, Token token) {
+        return old.getType() == token.getType()
+                && shiftLine(old.getLine()) == token.getLine()
+                && shiftColumn(old.getLine(), old.getColumn()) == token.getColumn()
+                && shiftLine(getLineLast(old)) == getLineLast(token)
+                && shiftColumn(getLineLast(old), getColumnLast(old)) == getColumnLast(token);
+    }
+
+    /**
+     * @return a copy of a token that comes after the changed range, moved to its
+     *         position in the changed document. The token itself is left alone,
+     *         since callers may still hold on to it.
+     */
+    private Token shift(Token token) {
+        GroovySourceToken gToken = (GroovySourceToken) token;
+        GroovySourceToken shifted = new GroovySourceToken(gToken.getType());
+        shifted.setText(gToken.getText());
+        shifted.setColumn(shiftColumn(gToken.getLine(), gToken.getColumn()));
+        shifted.setLine(shiftLine(gToken.getLine()));
+        shifted.setColumnLast(shiftColumn(gToken.getLineLast(), gToken.getColumnLast()));
+        shifted.setLineLast(shiftLine(gToken.getLineLast()));
+        return shifted;
+    }
+
+    private static int getLineLast(Token token) {
+        return ((GroovySourceToken) token).getLineLast();
+    }
+
+    private static int getColumnLast(Token token) {
+        return ((GroovySourceToken) token).getColumnLast();
+    }
+
+    /**
+     * Follows the nesting that the Groovy lexer keeps track of, so that we know
+     * where it is in its initial state: outside of parentheses, brackets and
+     * string constructors, also in all enclosing curly braces. Newlines are only
+     * tokens outside of parentheses, so the lexer can start over after them.
+     */
+    private static class LexerState {
+        private int parenLevel;
+        private boolean inStringConstructor;
+        // the parenLevel and inStringConstructor values saved by each open curly brace
+        private final List<Integer> saved = new ArrayList<Integer>();
+        // how many of the saved values are not the initial ones
+        private int savedNonInitial;
+
+        /**
+         * @return true if the lexer can start over right after the token
+         */
+        boolean accept(Token token) {
+            int type = token.getType();
+            if (type == GroovyTokenTypeBridge.LPAREN || type == GroovyTokenTypeBridge.LBRACK) {
+                parenLevel++;
+            } else if (type == GroovyTokenTypeBridge.RPAREN || type == GroovyTokenTypeBridge.RBRACK) {
+                parenLevel--;
+            } else if (type == GroovyTokenTypeBridge.LCURLY) {
+                int value = parenLevel * 2 + (inStringConstructor ? 1 : 0);
+                saved.add(value);
+                if (value != 0) {
+                    savedNonInitial++;
+                }
+                parenLevel = 0;
+                inStringConstructor = false;
+            } else if (type == GroovyTokenTypeBridge.RCURLY) {
+                if (!saved.isEmpty()) {
+                    int value = saved.remove(saved.size() - 1);
+                    if (value != 0) {
+                        savedNonInitial--;
+                    }
+                    parenLevel = value >> 1;
+                    inStringConstructor = (value & 1) != 0;
+                }
+            } else if (type == GroovyTokenTypeBridge.STRING_CTOR_START) {
+                inStringConstructor = true;
+            } else if (type == GroovyTokenTypeBridge.STRING_CTOR_END) {
+                inStringConstructor = false;
+            } else if (type == GroovyTokenTypeBridge.NLS) {
+                return parenLevel == 0 && !inStringConstructor && savedNonInitial == 0;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Reads the document from an offset onward, without copying all of its text
+     */
+    private static class DocumentReader extends Reader {
+        private final IDocument document;
+        private int offset;
+
+        DocumentReader(IDocument document, int offset) {
+            this.document = document;
+            this.offset = offset;
+        }
+
+        @Override
+        public int read() throws IOException {
+            // the lexer reads one character at a time
+            if (offset >= document.getLength()) {
+                return -1;
+            }
+            try {
+                return document.getChar(offset++);
+            } catch (BadLocationException e) {
+                throw new IOException(e.getMessage());
+            }
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            int length = Math.min(len, document.getLength() - offset);
+            if (length <= 0) {
+                return -1;
+            }
+            try {
+                document.get(offset, length).getChars(0, length, cbuf, off);
+            } catch (BadLocationException e) {
+                throw new IOException(e.getMessage());
+            }
+            offset += length;
+            return length;
+        }
+
+        @Override
+        public void close() {
+        }
     }
 
     private Token nextToken() throws TokenStreamException, BadLocationException {
@@ -122,6 +424,7 @@ public class GroovyDocumentScanner implements IDocumentListener {
         } catch (TokenStreamException e) {
             // Try to recover
             tokenScanner.recover(document);
+            recovered = true;
             // If it fails again we give up.
             token = tokenScanner.nextToken();
         }
@@ -134,6 +437,7 @@ public class GroovyDocumentScanner implements IDocumentListener {
      */
     private void reset() {
         tokens = null;
+        restartPoints = null;
     }
 
     /**
@@ -41,6 +41,9 @@ import org.eclipse.jface.text.IDocument;
  * This allows us to make use of the nice operations of GroovyDocumentScanner, without
  * storing two copies of all the tokens, and without having to port all Mike's
  * code all at once.
+ * <p>
+ * Since the lines vector is built from all of the tokens, this scanner does not
+ * scan incrementally, and scans the whole document again after every change.
  *
  * @author kdvolder
  * @created 2010-06-06
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2003-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.codehaus.groovy.eclipse.refactoring.formatter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.codehaus.groovy.ast.ASTNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.eclipse.refactoring.core.utils.astScanner.ASTNodeInfo;
+import org.codehaus.groovy.eclipse.refactoring.core.utils.astScanner.ASTScanner;
+import org.codehaus.groovy.eclipse.refactoring.core.utils.astScanner.predicates.IASTNodePredicate;
+import org.eclipse.jface.text.IDocument;
+
+/**
+ * Finds the AST nodes that start at a given line and column.
+ * <p>
+ * The formatter asks this for many of the tokens in a document. Rather than
+ * scanning the entire module node with a
+ * {@link org.codehaus.groovy.eclipse.refactoring.core.utils.astScanner.predicates.SourceCodePredicate}
+ * for every token, the module node is scanned once and the nodes are stored
+ * by their start position. The nodes for a position are kept in the order of
+ * the scan, so that the results are the same as those of a scan.
+ */
+public class NodeStartIndex {
+
+    private final Map<Long, List<Entry<ASTNode, ASTNodeInfo>>> nodesByStart = new HashMap<Long, List<Entry<ASTNode, ASTNodeInfo>>>();
+
+    public NodeStartIndex(ModuleNode rootNode, IDocument document) {
+        ASTScanner scanner = new ASTScanner(rootNode, new IASTNodePredicate() {
+            public ASTNode evaluate(ASTNode input) {
+                // nodes without a line number can never be found by position
+                return input.getLineNumber() > 0 ? input : null;
+            }
+        }, document);
+        scanner.startASTscan();
+        for (Entry<ASTNode, ASTNodeInfo> entry : scanner.getMatchedNodes().entrySet()) {
+            Long key = key(entry.getKey().getLineNumber(), entry.getKey().getColumnNumber());
+            List<Entry<ASTNode, ASTNodeInfo>> nodes = nodesByStart.get(key);
+            if (nodes == null) {
+                nodes = new ArrayList<Entry<ASTNode, ASTNodeInfo>>(2);
+                nodesByStart.put(key, nodes);
+            }
+            nodes.add(entry);
+        }
+    }
+
+    /**
+     * @param line antlr style line number (starts at 1)
+     * @param column antlr style column number (starts at 1)
+     * @return the nodes that start at the position, in the order of a scan
+     *         over the module node
+     */
+    public List<Entry<ASTNode, ASTNodeInfo>> getNodesStartingAt(int line, int column) {
+        List<Entry<ASTNode, ASTNodeInfo>> nodes = nodesByStart.get(key(line, column));
+        if (nodes == null) {
+            return Collections.emptyList();
+        }
+        return nodes;
+    }
+
+    private static Long key(int line, int column) {
+        return Long.valueOf(((long) line << 32) | (column & 0xFFFFFFFFL));
+    }
+}
@@ -22,10 +22,19 @@ import java.util.Collections;
 import org.codehaus.groovy.eclipse.GroovyPlugin;
 import org.codehaus.groovy.eclipse.core.GroovyCore;
 import org.codehaus.groovy.eclipse.core.preferences.PreferenceConstants;
+import org.codehaus.groovy.ast.ASTNode;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.ISourceRange;
+import org.eclipse.jdt.core.ISourceReference;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.groovy.search.ITypeRequestor;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
+import org.eclipse.jdt.groovy.search.TypeLookupResult;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.text.IRegion;
 
 public class GatherSemanticReferences {
 
@@ -37,6 +46,20 @@ public class GatherSemanticReferences {
     }
 
     public Collection<HighlightedTypedPosition> findSemanticHighlightingReferences() {
+        return findSemanticHighlightingReferences(null, null);
+    }
+
+    /**
+     * Finds the references to highlight, but only inside of the members that
+     * overlap the region.  Members outside of the region are not inferred at all,
+     * so this is a fast way to get the references that are currently visible.
+     * The results of a restricted search are not shared with other editor features.
+     *
+     * @param region the region to look in, or null to look at the entire unit
+     * @param monitor stops the search as soon as it is canceled, may be null.
+     *        The results of a canceled search are incomplete.
+     */
+    public Collection<HighlightedTypedPosition> findSemanticHighlightingReferences(IRegion region, IProgressMonitor monitor) {
         if (preferences.getBoolean(PreferenceConstants.GROOVY_SEMANTIC_HIGHLIGHTING) /*
                                                                                       * &&
                                                                                       * unit
@@ -49,7 +72,13 @@ public class GatherSemanticReferences {
             try {
                 SemanticHighlightingReferenceRequestor typeRequestor = new SemanticHighlightingReferenceRequestor(unit.getContents());
                 TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(unit);
-                visitor.visitCompilationUnit(typeRequestor);
+                ITypeRequestor requestor = new RegionRequestor(typeRequestor, region, monitor);
+                if (region != null) {
+                    visitor.visitCompilationUnit(requestor);
+                } else {
+                    // other editor features can use these results until the next reconcile
+                    visitor.visitCompilationUnitAndRecord(requestor);
+                }
                 return typeRequestor.typedPosition;
             } catch (Exception e) {
                 GroovyCore.logException("Exception with semantic highlighting", e);
@@ -57,4 +86,52 @@ public class GatherSemanticReferences {
         }
         return Collections.emptyList();
     }
+
+    /**
+     * Skips the members that do not overlap the region and stops the visit when
+     * the monitor is canceled
+     */
+    private static class RegionRequestor implements ITypeRequestor {
+        private final ITypeRequestor delegate;
+        private final IRegion region;
+        private final IProgressMonitor monitor;
+
+        private IJavaElement lastElement;
+        private boolean lastOverlaps;
+
+        RegionRequestor(ITypeRequestor delegate, IRegion region, IProgressMonitor monitor) {
+            this.delegate = delegate;
+            this.region = region;
+            this.monitor = monitor;
+        }
+
+        public VisitStatus acceptASTNode(ASTNode node, TypeLookupResult result, IJavaElement enclosingElement) {
+            if (monitor != null && monitor.isCanceled()) {
+                return VisitStatus.STOP_VISIT;
+            }
+            if (region != null && !overlaps(enclosingElement)) {
+                return VisitStatus.CANCEL_MEMBER;
+            }
+            return delegate.acceptASTNode(node, result, enclosingElement);
+        }
+
+        private boolean overlaps(IJavaElement element) {
+            if (element != lastElement) {
+                lastElement = element;
+                lastOverlaps = true;
+                if (element instanceof ISourceReference) {
+                    try {
+                        ISourceRange range = ((ISourceReference) element).getSourceRange();
+                        if (range != null && range.getOffset() >= 0) {
+                            lastOverlaps = range.getOffset() < region.getOffset() + region.getLength()
+                                    && range.getOffset() + range.getLength() > region.getOffset();
+                        }
+                    } catch (JavaModelException e) {
+                        // assume that it does
+                    }
+                }
+            }
+            return lastOverlaps;
+        }
+    }
 }
\ No newline at end of file
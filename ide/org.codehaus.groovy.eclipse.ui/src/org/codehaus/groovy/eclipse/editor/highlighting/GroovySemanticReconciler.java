@@ -23,9 +23,8 @@ import greclipse.org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightingPres
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.codehaus.groovy.eclipse.GroovyPlugin;
 import org.codehaus.groovy.eclipse.core.preferences.PreferenceConstants;
@@ -33,6 +32,7 @@ import org.codehaus.groovy.eclipse.editor.GroovyColorManager;
 import org.codehaus.groovy.eclipse.editor.GroovyEditor;
 import org.codehaus.jdt.groovy.model.GroovyCompilationUnit;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.ProgressMonitorWrapper;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
@@ -40,6 +40,9 @@ import org.eclipse.jdt.internal.ui.javaeditor.JavaSourceViewer;
 import org.eclipse.jdt.internal.ui.text.JavaPresentationReconciler;
 import org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener;
 import org.eclipse.jface.preference.PreferenceConverter;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.IViewportListener;
+import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.TextAttribute;
 import org.eclipse.jface.text.TextPresentation;
 import org.eclipse.swt.SWT;
@@ -51,6 +54,10 @@ import org.eclipse.ui.IWorkbenchPartSite;
 
 /**
  * Simplest reconciling that we can do
+ * <p>
+ * References in the visible part of the editor are found and painted first, and
+ * the rest of the unit afterwards.  A pass stops as soon as the document changes
+ * or a newer reconcile comes along, since its results would be thrown away anyway.
  *
  * @author Andrew Eisenberg
  * @created Oct 13, 2009
@@ -80,10 +87,20 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
     private SemanticHighlightingPresenter presenter;
 
     /**
-     * <code>true</code> if any thread is executing
-     * <code>reconcile</code>, <code>false</code> otherwise.
+     * Incremented by each call to <code>reconcile</code>, so that a running
+     * reconcile can tell that it has been superseded.
      */
-    private boolean fIsReconciling= false;
+    private final AtomicInteger fReconcileGeneration= new AtomicInteger();
+
+    private JavaSourceViewer viewer;
+
+    private IViewportListener viewportListener;
+
+    /**
+     * The part of the document that is currently shown in the editor, only
+     * ever updated from the UI thread.
+     */
+    private volatile IRegion visibleRegion;
 
 
     public GroovySemanticReconciler() {
@@ -115,74 +132,173 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
 
     public void install(GroovyEditor editor, JavaSourceViewer viewer) {
         this.editor = editor;
+        this.viewer = viewer;
         this.presenter = new SemanticHighlightingPresenter();
         presenter.install(viewer, (JavaPresentationReconciler) editor.getGroovyConfiguration().getPresentationReconciler(viewer));
+        viewportListener = new IViewportListener() {
+            public void viewportChanged(int verticalOffset) {
+                updateVisibleRegion();
+            }
+        };
+        viewer.addViewportListener(viewportListener);
+        updateVisibleRegion();
     }
 
     public void uninstall() {
+        if (viewer != null) {
+            viewer.removeViewportListener(viewportListener);
+            viewer = null;
+        }
         presenter.uninstall();
         presenter = null;
         editor = null;
     }
 
+    private void updateVisibleRegion() {
+        JavaSourceViewer thisViewer = viewer;
+        if (thisViewer == null || thisViewer.getTextWidget() == null || thisViewer.getTextWidget().isDisposed()) {
+            return;
+        }
+        int start = thisViewer.getTopIndexStartOffset();
+        int end = thisViewer.getBottomIndexEndOffset();
+        visibleRegion = end > start ? new Region(start, end - start) : null;
+    }
+
     public void aboutToBeReconciled() { }
 
-    @SuppressWarnings("unchecked")
     public void reconciled(CompilationUnit ast, boolean forced,
             IProgressMonitor progressMonitor) {
 
+        // stop any reconcile that is still running, it is out of date now
+        final int generation = fReconcileGeneration.incrementAndGet();
+
         // ensure that only one thread can enter here at a time
         synchronized (fReconcileLock) {
-            if (fIsReconciling)
+            if (generation != fReconcileGeneration.get()) {
+                // an even newer reconcile is waiting
                 return;
-            else
-                fIsReconciling= true;
-        }
-
-        try {
-            progressMonitor.beginTask("Groovy semantic highlighting", 100);
-
-            GroovyCompilationUnit unit = editor.getGroovyCompilationUnit();
-            if (unit != null) {
-                presenter.setCanceled(progressMonitor.isCanceled());
-                GatherSemanticReferences finder = new GatherSemanticReferences(unit);
-                Collection<HighlightedTypedPosition> semanticReferences = finder.findSemanticHighlightingReferences();
-                progressMonitor.worked(50);
+            }
 
-                List<HighlightedPosition> newPositions = new LinkedList<HighlightedPosition>();
-                List<HighlightedPosition> removedPositions = new LinkedList<HighlightedPosition>();
+            try {
+                progressMonitor.beginTask("Groovy semantic highlighting", 100);
+
+                GroovyCompilationUnit unit = editor.getGroovyCompilationUnit();
+                if (unit != null) {
+                    final SemanticHighlightingPresenter thisPresenter = presenter;
+                    thisPresenter.setCanceled(progressMonitor.isCanceled());
+                    IProgressMonitor monitor = new ProgressMonitorWrapper(progressMonitor) {
+                        @Override
+                        public boolean isCanceled() {
+                            return super.isCanceled() || thisPresenter.isCanceled()
+                                    || generation != fReconcileGeneration.get();
+                        }
+                    };
+                    GatherSemanticReferences finder = new GatherSemanticReferences(unit);
+
+                    List<HighlightedPosition> currentPositions = new ArrayList<HighlightedPosition>();
+                    thisPresenter.addAllPositions(currentPositions);
+                    HighlightedPosition[] oldPositions = currentPositions.toArray(new HighlightedPosition[currentPositions.size()]);
+
+                    // first the part of the unit that the user is looking at...
+                    IRegion region = visibleRegion;
+                    if (region != null && (region.getOffset() > 0 || region.getLength() < unit.getContents().length)) {
+                        Collection<HighlightedTypedPosition> semanticReferences = finder.findSemanticHighlightingReferences(region, monitor);
+                        if (monitor.isCanceled()) {
+                            return;
+                        }
+                        oldPositions = reconcilePositions(oldPositions, createHighlightedPositions(semanticReferences, region), region);
+                    }
+                    progressMonitor.worked(30);
 
-                for (HighlightedPosition oldPosition : (Iterable<HighlightedPosition>) presenter.fPositions) {
-                    if (oldPosition != null) {
-                        removedPositions.add(oldPosition);
+                    // ...then everything
+                    Collection<HighlightedTypedPosition> semanticReferences = finder.findSemanticHighlightingReferences(null, monitor);
+                    progressMonitor.worked(60);
+                    if (monitor.isCanceled()) {
+                        return;
                     }
+                    reconcilePositions(oldPositions, createHighlightedPositions(semanticReferences, null), null);
+                    progressMonitor.worked(10);
                 }
-                progressMonitor.worked(20);
-                List<HighlightedPosition> semanticReferencesHighlighted = new ArrayList<HighlightedPosition>(semanticReferences.size());
-                for (HighlightedTypedPosition pos : semanticReferences) {
-                    HighlightedPosition range = createHighlightedPosition(pos);
-                    maybeAddPosition(newPositions, removedPositions, range);
-                    semanticReferencesHighlighted.add(range);
-                }
-                progressMonitor.worked(20);
+            } catch (NullPointerException e) {
+                // do nothing...reconciler has been uninstalled
+            }
+        }
+    }
 
-                TextPresentation textPresentation = null;
-                if (!presenter.isCanceled()) {
-                    textPresentation= presenter.createPresentation(newPositions, removedPositions);
+    /**
+     * Compares the new positions to the old ones and sends the differences
+     * to the presenter.  Both arrays are sorted by offset, so a single
+     * merge-style pass finds the differences.
+     *
+     * @param oldPositions the positions that the presenter has, sorted by offset
+     * @param newPositions the positions that were found, sorted by offset
+     * @param region only old positions in this region are replaced, or null
+     *        to replace all of them
+     * @return the positions that the presenter has after the update, sorted
+     *         by offset
+     */
+    private HighlightedPosition[] reconcilePositions(HighlightedPosition[] oldPositions, HighlightedPosition[] newPositions, IRegion region) {
+        List<HighlightedPosition> addedPositions = new ArrayList<HighlightedPosition>();
+        List<HighlightedPosition> removedPositions = new ArrayList<HighlightedPosition>();
+        List<HighlightedPosition> resultPositions = new ArrayList<HighlightedPosition>(Math.max(oldPositions.length, newPositions.length));
+
+        int i = 0, j = 0;
+        while (i < oldPositions.length || j < newPositions.length) {
+            HighlightedPosition oldPosition = i < oldPositions.length ? oldPositions[i] : null;
+            HighlightedPosition newPosition = j < newPositions.length ? newPositions[j] : null;
+            if (newPosition == null || (oldPosition != null && oldPosition.getOffset() < newPosition.getOffset())) {
+                if (oldPosition.isDeleted() || isInRegion(oldPosition.getOffset(), region)) {
+                    removedPositions.add(oldPosition);
+                } else {
+                    resultPositions.add(oldPosition);
                 }
+                i += 1;
+            } else if (oldPosition == null || oldPosition.getOffset() > newPosition.getOffset()) {
+                addedPositions.add(newPosition);
+                resultPositions.add(newPosition);
+                j += 1;
+            } else if (oldPosition.isEqual(newPosition.getOffset(), newPosition.getLength(), newPosition.getHighlighting())) {
+                resultPositions.add(oldPosition);
+                i += 1;
+                j += 1;
+            } else {
+                // same offset, but something else has changed; the new
+                // position is compared to the next old one
+                removedPositions.add(oldPosition);
+                i += 1;
+            }
+        }
 
-                if (!presenter.isCanceled()) {
-                    updatePresentation(textPresentation, newPositions, removedPositions);
-                }
-                progressMonitor.worked(10);
+        if (!addedPositions.isEmpty() || !removedPositions.isEmpty()) {
+            TextPresentation textPresentation = null;
+            if (!presenter.isCanceled()) {
+                textPresentation= presenter.createPresentation(addedPositions, removedPositions);
             }
-        } catch (NullPointerException e) {
-            // do nothing...reconciler has been uninstalled
-        } finally {
-            synchronized (fReconcileLock) {
-                fIsReconciling= false;
+
+            if (!presenter.isCanceled()) {
+                updatePresentation(textPresentation, addedPositions, removedPositions);
             }
         }
+        return resultPositions.toArray(new HighlightedPosition[resultPositions.size()]);
+    }
+
+    /**
+     * @param references references sorted by offset
+     * @param region only references in this region are used, or null for all
+     * @return the positions to highlight, sorted by offset
+     */
+    private HighlightedPosition[] createHighlightedPositions(Collection<HighlightedTypedPosition> references, IRegion region) {
+        List<HighlightedPosition> positions = new ArrayList<HighlightedPosition>(references.size());
+        for (HighlightedTypedPosition pos : references) {
+            if (isInRegion(pos.offset, region)) {
+                positions.add(createHighlightedPosition(pos));
+            }
+        }
+        return positions.toArray(new HighlightedPosition[positions.size()]);
+    }
+
+    private static boolean isInRegion(int offset, IRegion region) {
+        return region == null || (offset >= region.getOffset() && offset < region.getOffset() + region.getLength());
     }
 
     private HighlightedPosition createHighlightedPosition(HighlightedTypedPosition pos) {
@@ -208,23 +324,6 @@ public class GroovySemanticReconciler implements IJavaReconcilingListener {
         return null;
     }
 
-    private void maybeAddPosition(List<HighlightedPosition> newPositions, List<HighlightedPosition> oldPositionsCopy,
-            HighlightedPosition maybePosition) {
-        boolean found = false;
-        for (Iterator<HighlightedPosition> positionIter = oldPositionsCopy.iterator(); positionIter.hasNext();) {
-            HighlightedPosition oldPosition = positionIter.next();
-            if (oldPosition.isEqual(maybePosition.offset, maybePosition.length, maybePosition.getHighlighting())) {
-                positionIter.remove();
-                found = true;
-                break;
-            }
-        }
-        if (!found) {
-            newPositions.add(maybePosition);
-        }
-    }
-
-
     /**
      * Update the presentation.
      *
@@ -41,6 +41,7 @@ import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.SourceRange;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.groovy.search.InferenceResultStore;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorFactory;
 import org.eclipse.jdt.groovy.search.TypeInferencingVisitorWithRequestor;
 import org.eclipse.jdt.internal.ui.search.IOccurrencesFinder;
@@ -176,7 +177,11 @@ public class GroovyOccurrencesFinder implements IOccurrencesFinder {
                 && !(nodeToLookFor instanceof MethodCallExpression)) {
             FindAllReferencesRequestor requestor = new FindAllReferencesRequestor(nodeToLookFor);
             TypeInferencingVisitorWithRequestor visitor = new TypeInferencingVisitorFactory().createVisitor(gunit);
-            visitor.visitCompilationUnit(requestor);
+            // moving the caret around an unchanged editor does not need to infer again
+            InferenceResultStore store = visitor.getResultStore();
+            if (store == null || !store.replayAll(requestor)) {
+                visitor.visitCompilationUnitAndRecord(requestor);
+            }
             Map<org.codehaus.groovy.ast.ASTNode, Integer> occurences = requestor.getReferences();
             return occurences;
         } else {
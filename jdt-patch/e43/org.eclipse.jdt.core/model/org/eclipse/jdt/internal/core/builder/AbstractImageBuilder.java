@@ -25,6 +25,7 @@ import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
 import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
 import org.eclipse.jdt.internal.compiler.lookup.TypeConstants;
 import org.eclipse.jdt.internal.compiler.problem.*;
+import org.eclipse.jdt.internal.compiler.util.HashtableOfObject;
 import org.eclipse.jdt.internal.compiler.util.SimpleSet;
 import org.eclipse.jdt.internal.compiler.util.SuffixConstants;
 import org.eclipse.jdt.internal.core.JavaModelManager;
@@ -66,6 +67,12 @@ protected SimpleSet filesWithAnnotations = null;
 
 //2000 is best compromise between space used and speed
 public static int MAX_AT_ONCE = Integer.getInteger(JavaModelManager.MAX_COMPILED_UNITS_AT_ONCE, 2000).intValue();
+// GROOVY start
+// when set, groovy projects with more than MAX_AT_ONCE units are compiled in groups, each holding all
+// the units that mention each other's types (see groupDependentUnits()), rather than all at once
+public static boolean CHUNK_UNITS = Boolean.valueOf(System.getProperty("greclipse.build.chunkUnits", "true")).booleanValue(); //$NON-NLS-1$ //$NON-NLS-2$
+private static final char[][] TYPE_KEYWORDS = { "class".toCharArray(), "interface".toCharArray(), "enum".toCharArray(), "trait".toCharArray() }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+// GROOVY end
 public final static String[] JAVA_PROBLEM_MARKER_ATTRIBUTE_NAMES = {
 	IMarker.MESSAGE,
 	IMarker.SEVERITY,
@@ -316,11 +323,19 @@ protected void compile(SourceFile[] units) {
 	this.compiledAllAtOnce = MAX_AT_ONCE == 0 || unitsLength <= MAX_AT_ONCE;
 
 	// GROOVY start
-	// currently can't easily fault in files from the other group.  Easier to
-	// do this than fix that right now.
-	if (this.compiler!=null && this.compiler.options!=null && this.compiler.options.buildGroovyFiles==2) {
+	// a groovy file cannot be faulted in from a later group, since the groovy compilation unit cannot
+	// take new sources once it is running.  So each group holds all the units that mention each
+	// other's types, or everything is compiled at once if the units cannot be grouped
+	int[] groupEnds = null;
+	if (this.compiler!=null && this.compiler.options!=null && this.compiler.options.buildGroovyFiles==2 && !this.compiledAllAtOnce) {
+		if (CHUNK_UNITS) {
+			SourceFile[] ordered = new SourceFile[unitsLength];
+			groupEnds = groupDependentUnits(units, ordered);
+			if (groupEnds != null)
+				units = ordered;
+		}
 		// System.out.println("although more than "+MAX_AT_ONCE+" still compiling "+unitsLength+" files at once");
-		this.compiledAllAtOnce = true;
+		this.compiledAllAtOnce = groupEnds == null || groupEnds.length == 1;
 	}
 	// GROOVY end
 	if (this.compiledAllAtOnce) {
@@ -333,12 +348,29 @@ protected void compile(SourceFile[] units) {
 		SourceFile[] remainingUnits = new SourceFile[unitsLength]; // copy of units, removing units when about to compile
 		System.arraycopy(units, 0, remainingUnits, 0, unitsLength);
 		int doNow = unitsLength < MAX_AT_ONCE ? unitsLength : MAX_AT_ONCE;
+		// GROOVY start
+		int group = 0;
+		int groupEnd = unitsLength;
+		// GROOVY end
 		SourceFile[] toCompile = new SourceFile[doNow];
 		int remainingIndex = 0;
 		boolean compilingFirstGroup = true;
 		while (remainingIndex < unitsLength) {
+			// GROOVY start: a group of units that mention each other may be bigger than MAX_AT_ONCE
+			if (groupEnds != null) {
+				groupEnd = groupEnds[group++];
+				doNow = groupEnd - remainingIndex;
+				if (toCompile.length != doNow)
+					toCompile = new SourceFile[doNow];
+			}
+			// GROOVY end
 			int count = 0;
+			// GROOVY start
+			/* old {
 			while (remainingIndex < unitsLength && count < doNow) {
+			} new */
+			while (remainingIndex < groupEnd && count < doNow) {
+			// GROOVY end
 				// Although it needed compiling when this method was called, it may have
 				// already been compiled when it was referenced by another unit.
 				SourceFile unit = remainingUnits[remainingIndex];
@@ -369,6 +401,132 @@ protected void compile(SourceFile[] units) {
 	}
 }
 
+// GROOVY start
+/*
+ * Puts the units into ordered and returns the end of each group of units to compile together.  A unit
+ * that mentions the name of a type declared in another unit is kept in the same group as it, so no
+ * groovy file is ever faulted in from a later group.  Mentions are found by looking at every
+ * identifier of the source, which can only keep more units together than needed.  A group holding
+ * groovy units is bigger than MAX_AT_ONCE when that many units mention each other, java units can
+ * still be split over several groups.  Returns null if a source cannot be read.
+ */
+private static int[] groupDependentUnits(SourceFile[] units, SourceFile[] ordered) {
+	int unitsLength = units.length;
+	int[] roots = new int[unitsLength]; // union-find over the units that mention each other
+	for (int i = 0; i < unitsLength; i++)
+		roots[i] = i;
+	try {
+		// first find the units that declare each type name
+		HashtableOfObject declaringUnits = new HashtableOfObject(unitsLength);
+		for (int i = 0; i < unitsLength; i++) {
+			declare(declaringUnits, units[i].getMainTypeName(), i, roots);
+			char[] contents = units[i].getContents();
+			int previousStart = 0, previousEnd = 0;
+			for (int c = 0, length = contents.length; c < length;) {
+				if (!Character.isJavaIdentifierStart(contents[c])) {
+					c++;
+					continue;
+				}
+				int start = c;
+				while (++c < length && Character.isJavaIdentifierPart(contents[c])) {/*empty*/}
+				for (int k = 0; k < TYPE_KEYWORDS.length; k++) {
+					if (CharOperation.equals(TYPE_KEYWORDS[k], contents, previousStart, previousEnd)) {
+						declare(declaringUnits, CharOperation.subarray(contents, start, c), i, roots);
+						break;
+					}
+				}
+				previousStart = start;
+				previousEnd = c;
+			}
+		}
+		// then join each unit with the units declaring the names it mentions
+		for (int i = 0; i < unitsLength; i++) {
+			char[] contents = units[i].getContents();
+			for (int c = 0, length = contents.length; c < length;) {
+				if (!Character.isJavaIdentifierStart(contents[c])) {
+					c++;
+					continue;
+				}
+				int start = c;
+				while (++c < length && Character.isJavaIdentifierPart(contents[c])) {/*empty*/}
+				Integer declaringUnit = (Integer) declaringUnits.get(CharOperation.subarray(contents, start, c));
+				if (declaringUnit != null)
+					union(roots, i, declaringUnit.intValue());
+			}
+		}
+	} catch (AbortCompilation e) {
+		return null;
+	}
+
+	// lay out the units joined together one after the other, in the order of their first unit
+	int[] sizes = new int[unitsLength];
+	boolean[] hasGroovy = new boolean[unitsLength];
+	for (int i = 0; i < unitsLength; i++) {
+		int root = find(roots, i);
+		sizes[root]++;
+		if (!isJavaUnit(units[i]))
+			hasGroovy[root] = true;
+	}
+	int[] next = new int[unitsLength];
+	Arrays.fill(next, -1);
+	int[] order = new int[unitsLength];
+	int laidOut = 0;
+	for (int i = 0; i < unitsLength; i++) {
+		int root = find(roots, i);
+		if (next[root] == -1) {
+			next[root] = laidOut;
+			laidOut += sizes[root];
+		}
+		order[next[root]++] = i;
+	}
+	for (int i = 0; i < unitsLength; i++)
+		ordered[i] = units[order[i]];
+
+	// and cut them into groups
+	int[] groupEnds = new int[unitsLength];
+	int groupCount = 0;
+	int groupStart = 0;
+	for (int start = 0; start < unitsLength;) {
+		int root = find(roots, order[start]);
+		int end = start + sizes[root];
+		if (hasGroovy[root]) {
+			if (end - groupStart > MAX_AT_ONCE && start > groupStart)
+				groupEnds[groupCount++] = groupStart = start;
+		} else {
+			// java units can be faulted in from a later group
+			while (end - groupStart > MAX_AT_ONCE)
+				groupEnds[groupCount++] = groupStart = Math.max(groupStart + MAX_AT_ONCE, start);
+		}
+		start = end;
+	}
+	groupEnds[groupCount++] = unitsLength;
+	System.arraycopy(groupEnds, 0, groupEnds = new int[groupCount], 0, groupCount);
+	return groupEnds;
+}
+
+private static void declare(HashtableOfObject declaringUnits, char[] typeName, int unit, int[] roots) {
+	Integer declaringUnit = (Integer) declaringUnits.get(typeName);
+	if (declaringUnit == null)
+		declaringUnits.put(typeName, new Integer(unit));
+	else
+		union(roots, unit, declaringUnit.intValue()); // the same name in different packages cannot be told apart
+}
+
+private static int find(int[] roots, int unit) {
+	while (roots[unit] != unit)
+		unit = roots[unit] = roots[roots[unit]];
+	return unit;
+}
+
+private static void union(int[] roots, int unit, int other) {
+	roots[find(roots, unit)] = find(roots, other);
+}
+
+private static boolean isJavaUnit(SourceFile unit) {
+	return CharOperation.endsWith(unit.getFileName(), SuffixConstants.SUFFIX_java);
+}
+// GROOVY end
+
 protected void compile(SourceFile[] units, SourceFile[] additionalUnits, boolean compilingFirstGroup) {
 	if (units.length == 0) return;
 	this.notifier.aboutToCompile(units[0]); // just to change the message